@@ -29,6 +29,11 @@ import com.rapidftr.view.fields.TextField;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import static android.net.ConnectivityManager.EXTRA_NETWORK_INFO;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.rapidftr.RapidFtrApplication.APP_IDENTIFIER;
@@ -66,6 +71,8 @@ public abstract class RapidFtrActivity extends Activity {
 
     protected Multimap<Integer, ResultListener> activityResultListeners = HashMultimap.create();
 
+    private final List<Closeable> heldRepositories = new ArrayList<Closeable>();
+
     public RapidFtrApplication getContext() {
         return (RapidFtrApplication) getApplication();
     }
@@ -123,6 +130,16 @@ public abstract class RapidFtrActivity extends Activity {
         return getInjector().getInstance(clazz);
     }
 
+    /*
+     * For repositories kept for the life of the activity, e.g. by a scroll listener: they are closed, releasing their
+     * database lease, when the activity is destroyed.
+     */
+    protected <T extends Closeable> T injectHeld(Class<T> clazz) {
+        T repository = inject(clazz);
+        heldRepositories.add(repository);
+        return repository;
+    }
+
     public void addResultListener(int requestCode, ResultListener listener) {
         activityResultListeners.put(requestCode, listener);
     }
@@ -248,6 +265,18 @@ public abstract class RapidFtrActivity extends Activity {
     protected void onDestroy() {
         super.onDestroy();
         unregisterReceivers();
+        closeHeldRepositories();
+    }
+
+    private void closeHeldRepositories() {
+        for (Closeable repository : heldRepositories) {
+            try {
+                repository.close();
+            } catch (IOException e) {
+                logError(e.getMessage());
+            }
+        }
+        heldRepositories.clear();
     }
 
     private void unregisterReceivers() {
@@ -11,7 +11,6 @@ import com.rapidftr.adapter.pagination.PaginatedSearchResultsScrollListener;
 import com.rapidftr.model.Child;
 import com.rapidftr.repository.ChildRepository;
 import com.rapidftr.repository.ChildSearch;
-import com.rapidftr.service.FormService;
 import lombok.Cleanup;
 import org.json.JSONException;
 
@@ -21,8 +20,8 @@ import java.util.List;
 public class SearchActivity extends RapidFtrActivity {
 
     private HighlightedFieldsViewAdapter highlightedFieldsViewAdapter;
-    private FormService formService;
     private ChildSearch childSearch;
+    private ChildRepository childRepository;
     private PaginatedSearchResultsScrollListener scrollListener;
 
     @Override
@@ -30,7 +29,6 @@ public class SearchActivity extends RapidFtrActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_search_child);
         findViewById(R.id.search_btn).setOnClickListener(searchListener());
-        formService = inject(FormService.class);
     }
 
     private void listView(List<Child> children) {
@@ -65,7 +63,10 @@ public class SearchActivity extends RapidFtrActivity {
         if ("".equals(subString)) {
             return new ArrayList<Child>();
         }
-        this.childSearch = new ChildSearch(subString, inject(ChildRepository.class), formService.getHighlightedFields(Child.CHILD_FORM_NAME));
+        if (childRepository == null) {
+            childRepository = injectHeld(ChildRepository.class);
+        }
+        this.childSearch = new ChildSearch(subString, childRepository);
         return childSearch.getRecordsForFirstPage();
     }
 
@@ -7,6 +7,7 @@ import com.rapidftr.R;
 import com.rapidftr.adapter.HighlightedFieldsViewAdapter;
 import com.rapidftr.adapter.pagination.ViewAllChildrenPaginatedScrollListener;
 import com.rapidftr.model.Child;
+import com.rapidftr.model.ChildSummary;
 import com.rapidftr.repository.ChildRepository;
 import lombok.Cleanup;
 import org.json.JSONException;
@@ -23,12 +24,12 @@ public class ViewAllChildrenActivity extends RapidFtrActivity {
         listView(getChildren());
     }
     
-    private List<Child> getChildren()
+    private List<ChildSummary> getChildren()
     {
-        List<Child> children = new ArrayList<Child>();
+        List<ChildSummary> children = new ArrayList<ChildSummary>();
         @Cleanup ChildRepository childRepository = inject(ChildRepository.class);
         try {
-            children = childRepository.getRecordsForFirstPage();
+            children = childRepository.getSummariesForFirstPage();
         } catch (JSONException e) {
             Log.e("ViewAllChildrenActivity","Error while displaying children list");
             makeToast(R.string.fetch_child_error);
@@ -36,14 +37,14 @@ public class ViewAllChildrenActivity extends RapidFtrActivity {
         return children;
     }
     
-    private void listView(List<Child> children) {
+    private void listView(List<ChildSummary> children) {
         HighlightedFieldsViewAdapter highlightedFieldsViewAdapter = new HighlightedFieldsViewAdapter(this, children, Child.CHILD_FORM_NAME, ViewChildActivity.class);
         ListView childListView = (ListView) findViewById(R.id.child_list);
         if (children.isEmpty()) {
             childListView.setEmptyView(findViewById(R.id.no_child_view));
         }
         childListView.setAdapter(highlightedFieldsViewAdapter);
-        ViewAllChildrenPaginatedScrollListener scrollListener = new ViewAllChildrenPaginatedScrollListener(inject(ChildRepository.class), highlightedFieldsViewAdapter);
+        ViewAllChildrenPaginatedScrollListener scrollListener = new ViewAllChildrenPaginatedScrollListener(injectHeld(ChildRepository.class), highlightedFieldsViewAdapter);
         childListView.setOnScrollListener(scrollListener);
     }
 }
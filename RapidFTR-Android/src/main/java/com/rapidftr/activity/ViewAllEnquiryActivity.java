@@ -32,7 +32,7 @@ public class ViewAllEnquiryActivity extends BaseEnquiryActivity {
             enquiryListView.setEmptyView(findViewById(R.id.no_enquiry_view));
         }
         enquiryListView.setAdapter(highlightedFieldsViewAdapter);
-        ViewAllEnquiryScrollListener listener = new ViewAllEnquiryScrollListener(inject(EnquiryRepository.class), highlightedFieldsViewAdapter);
+        ViewAllEnquiryScrollListener listener = new ViewAllEnquiryScrollListener(injectHeld(EnquiryRepository.class), highlightedFieldsViewAdapter);
         enquiryListView.setOnScrollListener(listener);
     }
 
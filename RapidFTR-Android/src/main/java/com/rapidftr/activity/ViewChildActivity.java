@@ -99,7 +99,7 @@ public class ViewChildActivity extends BaseChildActivity {
 
     protected SyncSingleRecordTask createChildSyncTask() {
         ChildRepository childRepository = inject(ChildRepository.class);
-        return new SyncSingleRecordTask(new ChildSyncService(this.getContext(), dao, childRepository), getCurrentUser()) {
+        return new SyncSingleRecordTask(new ChildSyncService(this.getContext(), dao, childRepository), childRepository, getCurrentUser()) {
             @Override
             public Boolean doInBackground(BaseModel... params) {
                 try {
@@ -112,6 +112,8 @@ public class ViewChildActivity extends BaseChildActivity {
                 } catch (Exception e) {
                     Log.e(APP_IDENTIFIER, "Error syncing one child record", e);
                     return false;
+                } finally {
+                    closeRepository();
                 }
             }
         };
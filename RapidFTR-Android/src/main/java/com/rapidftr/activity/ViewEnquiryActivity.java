@@ -111,8 +111,9 @@ public class ViewEnquiryActivity extends BaseEnquiryActivity {
     }
 
     protected SyncSingleRecordTask createSyncTaskForEnquiry() {
+        EnquiryRepository enquiryRepository = inject(EnquiryRepository.class);
         SyncSingleRecordTask syncRecordTask = new SyncSingleRecordTask(
-                new EnquirySyncService(this.getContext(), dao, inject(EnquiryRepository.class)), getCurrentUser());
+                new EnquirySyncService(this.getContext(), dao, enquiryRepository), enquiryRepository, getCurrentUser());
         return syncRecordTask;
     }
 }
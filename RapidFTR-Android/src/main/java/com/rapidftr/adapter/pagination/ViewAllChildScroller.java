@@ -1,7 +1,7 @@
 package com.rapidftr.adapter.pagination;
 
 import com.rapidftr.adapter.HighlightedFieldsViewAdapter;
-import com.rapidftr.model.Child;
+import com.rapidftr.model.ChildSummary;
 import com.rapidftr.repository.ChildRepository;
 import org.json.JSONException;
 
@@ -12,9 +12,9 @@ import static com.rapidftr.adapter.pagination.ViewAllChildrenPaginatedScrollList
 public class ViewAllChildScroller extends Scroller {
 
     private final ChildRepository repository;
-    private final HighlightedFieldsViewAdapter<Child> adapter;
+    private final HighlightedFieldsViewAdapter<ChildSummary> adapter;
 
-    public ViewAllChildScroller(ChildRepository repository, HighlightedFieldsViewAdapter<Child> adapter) {
+    public ViewAllChildScroller(ChildRepository repository, HighlightedFieldsViewAdapter<ChildSummary> adapter) {
         super();
         this.repository = repository;
         this.adapter = adapter;
@@ -23,7 +23,7 @@ public class ViewAllChildScroller extends Scroller {
     @Override
     public void loadRecordsForNextPage() throws JSONException {
         if (shouldQueryForMoreData()) {
-            List<Child> records = repository.getRecordsBetween(adapter.getCount(), adapter.getCount() + DEFAULT_PAGE_SIZE);
+            List<ChildSummary> records = repository.getSummariesAfter(lastIdIn(adapter), DEFAULT_PAGE_SIZE);
             adapter.addAll(records);
         }
     }
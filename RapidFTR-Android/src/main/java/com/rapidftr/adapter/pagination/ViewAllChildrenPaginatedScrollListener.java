@@ -2,7 +2,7 @@ package com.rapidftr.adapter.pagination;
 
 import android.widget.AbsListView;
 import com.rapidftr.adapter.HighlightedFieldsViewAdapter;
-import com.rapidftr.model.Child;
+import com.rapidftr.model.ChildSummary;
 import com.rapidftr.repository.ChildRepository;
 import org.json.JSONException;
 
@@ -14,7 +14,7 @@ public class ViewAllChildrenPaginatedScrollListener implements AbsListView.OnScr
     private ViewAllChildScroller scroller;
 
     public ViewAllChildrenPaginatedScrollListener(ChildRepository repository,
-                                                  HighlightedFieldsViewAdapter<Child> adapter) {
+                                                  HighlightedFieldsViewAdapter<ChildSummary> adapter) {
         scroller = new ViewAllChildScroller(repository, adapter);
     }
 
@@ -21,7 +21,7 @@ public class ViewAllEnquiryScroller extends Scroller{
     @Override
     public void loadRecordsForNextPage() throws JSONException {
         if(shouldQueryForMoreData()){
-            adapter.addAll(repository.getRecordsBetween(adapter.getCount(), adapter.getCount() + DEFAULT_PAGE_SIZE));
+            adapter.addAll(repository.getRecordsAfter(lastIdIn(adapter), DEFAULT_PAGE_SIZE));
         }
     }
 }
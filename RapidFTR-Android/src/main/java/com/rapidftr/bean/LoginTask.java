@@ -8,13 +8,16 @@ import com.google.common.base.Throwables;
 import com.google.common.io.CharStreams;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.model.User;
+import com.rapidftr.repository.ChildRepository;
 import com.rapidftr.service.FormService;
 import com.rapidftr.service.LoginService;
 import com.rapidftr.task.MigrateUnverifiedDataToVerified;
 import com.rapidftr.utils.http.FluentResponse;
+import lombok.Cleanup;
 import lombok.Getter;
 import lombok.NonNull;
 import org.androidannotations.annotations.*;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.InputStreamReader;
@@ -64,6 +67,7 @@ public class LoginTask {
             migrateIfVerified(user);
             cacheForOffline(user);
             loadFormSections();
+            rebuildUpgradedChildren();
             notifyToast(login_online_success);
             return true;
         } catch (LoginException e) {
@@ -78,6 +82,7 @@ public class LoginTask {
             notifyProgress(login_offline_progress);
             User user = loadOffline(userName, password);
             cacheForOffline(user);
+            rebuildUpgradedChildren();
             notifyToast(login_offline_success);
             return true;
         } catch (LoginException e) {
@@ -156,6 +161,16 @@ public class LoginTask {
         }
     }
 
+    // Children listed without a stored summary are summarized as they are read, so a failed rebuild need not fail the login
+    protected void rebuildUpgradedChildren() {
+        try {
+            @Cleanup ChildRepository childRepository = application.getBean(ChildRepository.class);
+            childRepository.rebuildIfUpgraded();
+        } catch (JSONException e) {
+            Log.e(APP_IDENTIFIER, "Could not rebuild child summaries or search index", e);
+        }
+    }
+
     @UiThread
     protected void createProgressDialog() {
         progressDialog = new ProgressDialog(activity);
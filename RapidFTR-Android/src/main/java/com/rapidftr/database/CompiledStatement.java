@@ -0,0 +1,14 @@
+package com.rapidftr.database;
+
+public interface CompiledStatement {
+
+    public void bindString(int index, String value);
+    public void bindLong(int index, long value);
+    public void bindDouble(int index, double value);
+    public void bindNull(int index);
+    public void clearBindings();
+    public void execute();
+    public long executeInsert();
+    public long simpleQueryForLong();
+    public void close();
+}
@@ -12,7 +12,7 @@ import static com.google.common.collect.Iterables.filter;
 
 public enum Database {
 
-    child("children"), enquiry("enquiry"), potential_match("potential_match");
+    child("children"), child_search("children_search"), enquiry("enquiry"), potential_match("potential_match"), history("history");
     private String tableName;
 
     Database(String tableName) {
@@ -60,6 +60,7 @@ public enum Database {
         owner("child_owner"),
         synced("synced", true, true),
         syncLog("syncLog"),
+        summary("summary"),
 
         internal_id("_id", true, false),
         internal_rev("_rev", true, false),
@@ -102,6 +103,28 @@ public enum Database {
         }
     }
 
+    @RequiredArgsConstructor(suppressConstructorProperties = true)
+    public enum HistoryTableColumn {
+        id("id"),
+        record_id("record_id"),
+        content("history_json");
+
+        private
+        @Getter
+        final String columnName;
+    }
+
+    @RequiredArgsConstructor(suppressConstructorProperties = true)
+    public enum ChildSearchTableColumn {
+        docid("docid"),
+        terms("terms"),
+        suffixes("suffixes");
+
+        private
+        @Getter
+        final String columnName;
+    }
+
     @RequiredArgsConstructor(suppressConstructorProperties = true)
     public enum PotentialMatchTableColumn {
         id("id"),
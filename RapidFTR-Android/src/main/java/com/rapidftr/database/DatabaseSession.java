@@ -5,11 +5,14 @@ import android.database.Cursor;
 
 import java.io.Closeable;
 
-public interface DatabaseSession extends Closeable {
+public interface DatabaseSession extends Closeable, StatementCompiler {
 
     public Cursor rawQuery(String sql, String[] selectionArgs);
     public void execSQL(String sql);
     public int update(String table, ContentValues contentvalues, String whereClause, String[] whereArgs);
     public long replace(String table, String nullColumnHack, ContentValues values);
     public long replaceOrThrow(String table, String nullColumnHack, ContentValues values);
+    public void beginTransaction();
+    public void setTransactionSuccessful();
+    public void endTransaction();
 }
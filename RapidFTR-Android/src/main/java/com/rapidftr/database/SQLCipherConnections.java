@@ -0,0 +1,141 @@
+package com.rapidftr.database;
+
+import android.content.Context;
+import com.rapidftr.model.User;
+import lombok.Delegate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Keeps one keyed SQLCipher database open per user for the whole login session, so injecting a repository no longer
+ * loads the native libraries and re-derives the database key. Every lease holds a reference to the shared connection;
+ * closing the lease (or its session) releases it, after which the session can no longer be used. SQLCipher locks the
+ * database internally, so sync and UI threads can share the connection. On logout the connections are retired and
+ * each one is closed once its last lease is released; activities release the leases they hold for their whole life
+ * when they are destroyed, which logging out causes, and sync tasks release theirs when the sync ends.
+ */
+public class SQLCipherConnections {
+
+    private static final Map<String, Connection> connections = new HashMap<String, Connection>();
+
+    public static DatabaseHelper lease(final User user, final Context context) {
+        return lease(user.getDbName(), new Opener() {
+            @Override
+            public DatabaseHelper open() {
+                return new SQLCipherHelper(user, context);
+            }
+        });
+    }
+
+    static synchronized DatabaseHelper lease(String dbName, Opener opener) {
+        Connection connection = connections.get(dbName);
+        if (connection == null) {
+            connection = new Connection(opener.open());
+            connections.put(dbName, connection);
+        }
+        return new Lease(connection);
+    }
+
+    public static synchronized void closeAll() {
+        List<Connection> retired = new ArrayList<Connection>(connections.values());
+        connections.clear();
+        for (Connection connection : retired) {
+            connection.retire();
+        }
+    }
+
+    interface Opener {
+        DatabaseHelper open();
+    }
+
+    private static class Connection {
+        private final DatabaseHelper helper;
+        private int references;
+        private boolean retired;
+
+        Connection(DatabaseHelper helper) {
+            this.helper = helper;
+        }
+
+        void acquire() {
+            references++;
+        }
+
+        void release() {
+            references--;
+            closeIfUnused();
+        }
+
+        void retire() {
+            retired = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (retired && references == 0) {
+                try {
+                    helper.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    private static class Lease implements DatabaseHelper {
+        private final Connection connection;
+        private final DatabaseSession session;
+        private volatile boolean released;
+
+        Lease(Connection connection) {
+            this.connection = connection;
+            this.session = new LeasedSession(connection.helper.getSession(), this);
+            connection.acquire();
+        }
+
+        @Override
+        public DatabaseSession getSession() {
+            return session;
+        }
+
+        @Override
+        public void close() {
+            synchronized (SQLCipherConnections.class) {
+                if (!released) {
+                    released = true;
+                    connection.release();
+                }
+            }
+        }
+    }
+
+    // Once its lease is released the session may belong to a closed connection, so it refuses to be used at all
+    private static class LeasedSession implements DatabaseSession {
+
+        private final DatabaseSession session;
+        private final Lease lease;
+
+        LeasedSession(DatabaseSession session, Lease lease) {
+            this.session = session;
+            this.lease = lease;
+        }
+
+        @Delegate(types = DatabaseSession.class, excludes = Closeable.class)
+        private DatabaseSession session() {
+            if (lease.released) {
+                throw new IllegalStateException("Database session used after its lease was released");
+            }
+            return session;
+        }
+
+        @Override
+        public void close() throws IOException {
+            lease.close();
+        }
+    }
+}
@@ -10,7 +10,7 @@ import net.sqlcipher.database.SQLiteOpenHelper;
 
 public class SQLCipherHelper extends SQLiteOpenHelper implements DatabaseHelper {
 
-    public static final int DB_VERSION = 2;
+    public static final int DB_VERSION = 3;
 
     protected @Getter final DatabaseSession session;
 
@@ -29,9 +29,10 @@ public class SQLCipherHelper extends SQLiteOpenHelper implements DatabaseHelper
         }
     }
 
+    // Summaries and the search index need the forms, so children from before v003 get them after login rather than here
     @Override
     public void onUpgrade(SQLiteDatabase database, int oldVersion, int newVersion) {
-        for (Migrations migration : Migrations.forVersion(newVersion)) {
+        for (Migrations migration : Migrations.upgrading(oldVersion, newVersion)) {
             database.execSQL(migration.getSql());
         }
     }
@@ -3,12 +3,26 @@ package com.rapidftr.database;
 import lombok.Delegate;
 import lombok.RequiredArgsConstructor;
 import net.sqlcipher.database.SQLiteDatabase;
+import net.sqlcipher.database.SQLiteStatement;
 
 
 @RequiredArgsConstructor(suppressConstructorProperties = true)
 public class SQLCipherSession implements DatabaseSession {
 
-    @Delegate(types = DatabaseSession.class)
+    @Delegate(types = DatabaseSession.class, excludes = StatementCompiler.class)
     protected final SQLiteDatabase database;
 
+    @Override
+    public CompiledStatement compileStatement(String sql) {
+        return new SQLCipherStatement(database.compileStatement(sql));
+    }
+
+    @RequiredArgsConstructor(suppressConstructorProperties = true)
+    private static class SQLCipherStatement implements CompiledStatement {
+
+        @Delegate(types = CompiledStatement.class)
+        private final SQLiteStatement statement;
+
+    }
+
 }
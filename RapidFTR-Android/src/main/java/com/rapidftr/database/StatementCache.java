@@ -0,0 +1,94 @@
+package com.rapidftr.database;
+
+import android.content.ContentValues;
+import com.google.common.base.Joiner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Compiled statements keyed by their SQL template, so statements on hot paths such as the per-record insert during sync
+ * are parsed and planned by SQLite once per repository rather than on every call. Values are always bound, never
+ * formatted into the SQL. A compiled statement holds its bindings until executed, so every use is synchronized.
+ */
+public class StatementCache {
+
+    public static final int MAX_STATEMENTS = 20;
+
+    private final StatementCompiler compiler;
+    private final Map<String, CompiledStatement> statements = new LinkedHashMap<String, CompiledStatement>(MAX_STATEMENTS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledStatement> eldest) {
+            if (size() > MAX_STATEMENTS) {
+                eldest.getValue().close();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public StatementCache(StatementCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    public synchronized void execute(String sql, Object... arguments) {
+        bind(sql, arguments).execute();
+    }
+
+    public synchronized long executeInsert(String sql, Object... arguments) {
+        return bind(sql, arguments).executeInsert();
+    }
+
+    public synchronized long queryForLong(String sql, Object... arguments) {
+        return bind(sql, arguments).simpleQueryForLong();
+    }
+
+    public synchronized long insertOrReplace(String table, ContentValues values) {
+        List<String> columns = new ArrayList<String>(values.keySet());
+        Collections.sort(columns);
+
+        Object[] arguments = new Object[columns.size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = values.get(columns.get(i));
+        }
+
+        String sql = "INSERT OR REPLACE INTO " + table + "(" + Joiner.on(", ").join(columns) + ") VALUES ("
+                + Joiner.on(", ").join(Collections.nCopies(columns.size(), "?")) + ")";
+        return executeInsert(sql, arguments);
+    }
+
+    public synchronized void close() {
+        for (CompiledStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+    }
+
+    private CompiledStatement bind(String sql, Object[] arguments) {
+        CompiledStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = compiler.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+
+        statement.clearBindings();
+        for (int i = 0; i < arguments.length; i++) {
+            Object argument = arguments[i];
+            if (argument == null) {
+                statement.bindNull(i + 1);
+            } else if (argument instanceof Boolean) {
+                statement.bindLong(i + 1, (Boolean) argument ? 1 : 0);
+            } else if (argument instanceof Double || argument instanceof Float) {
+                statement.bindDouble(i + 1, ((Number) argument).doubleValue());
+            } else if (argument instanceof Number) {
+                statement.bindLong(i + 1, ((Number) argument).longValue());
+            } else {
+                statement.bindString(i + 1, argument.toString());
+            }
+        }
+        return statement;
+    }
+}
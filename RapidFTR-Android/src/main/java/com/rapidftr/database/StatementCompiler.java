@@ -0,0 +1,6 @@
+package com.rapidftr.database;
+
+public interface StatementCompiler {
+
+    public CompiledStatement compileStatement(String sql);
+}
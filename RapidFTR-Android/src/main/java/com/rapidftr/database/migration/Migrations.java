@@ -1,5 +1,6 @@
 package com.rapidftr.database.migration;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.rapidftr.database.Database;
 import com.rapidftr.utils.RapidFtrDateTime;
@@ -19,7 +20,19 @@ public enum Migrations {
     v001_add_revColumn(1, MigrationSQL.addRevColumn),
     v001_add_last_synced_at_column(1,MigrationSQL.addLastSyncedAtColumn),
     v001_createEnquiryTable(1, MigrationSQL.createEnquiryTable),
-    v002_createPotentialMatchTable(2, MigrationSQL.createPotentialMatchTable)
+    v002_createPotentialMatchTable(2, MigrationSQL.createPotentialMatchTable),
+    v003_createChildSearchTable(3, MigrationSQL.createChildSearchTable),
+    v003_createChildOwnerIndex(3, MigrationSQL.createChildOwnerIndex),
+    v003_createChildSyncedIndex(3, MigrationSQL.createChildSyncedIndex),
+    v003_createChildInternalIdIndex(3, MigrationSQL.createChildInternalIdIndex),
+    v003_createEnquiryCreatedByIndex(3, MigrationSQL.createEnquiryCreatedByIndex),
+    v003_createEnquirySyncedIndex(3, MigrationSQL.createEnquirySyncedIndex),
+    v003_createEnquiryInternalIdIndex(3, MigrationSQL.createEnquiryInternalIdIndex),
+    v003_createPotentialMatchChildIndex(3, MigrationSQL.createPotentialMatchChildIndex),
+    v003_createPotentialMatchEnquiryIndex(3, MigrationSQL.createPotentialMatchEnquiryIndex),
+    v003_addSummaryColumn(3, MigrationSQL.addSummaryColumn),
+    v003_createHistoryTable(3, MigrationSQL.createHistoryTable),
+    v003_createHistoryRecordIndex(3, MigrationSQL.createHistoryRecordIndex)
     ;
 
     private int databaseVersion;
@@ -47,6 +60,15 @@ public enum Migrations {
         }));
     }
 
+    // A database several versions behind takes each version in turn, since later versions index tables earlier ones create
+    public static List<Migrations> upgrading(int oldVersion, int newVersion) {
+        List<Migrations> migrations = newArrayList();
+        for (int version = oldVersion + 1; version <= newVersion; version++) {
+            migrations.addAll(forVersion(version));
+        }
+        return migrations;
+    }
+
 }
 
 class MigrationSQL {
@@ -111,5 +133,59 @@ class MigrationSQL {
             + Database.PotentialMatchTableColumn.revision.getColumnName() + " text,"
             + Database.PotentialMatchTableColumn.confirmed.getColumnName() + " text default 'false'"
             + ");";
-}
 
+    // Existing children are indexed after the upgrade, at login, through ChildRepository.rebuildIfUpgraded
+    public static final String createChildSearchTable = "CREATE VIRTUAL TABLE "
+            + Database.child_search.getTableName() + " USING fts3("
+            + Database.ChildSearchTableColumn.terms.getColumnName() + ", "
+            + Database.ChildSearchTableColumn.suffixes.getColumnName()
+            + ");";
+
+    // Owner lists page by id, so the owner index carries id as well and never needs a temporary sort
+    public static final String createChildOwnerIndex = createIndex("children_owner_idx", Database.child,
+            Database.ChildTableColumn.owner.getColumnName(), Database.ChildTableColumn.id.getColumnName());
+
+    public static final String createChildSyncedIndex = createIndex("children_synced_idx", Database.child,
+            Database.ChildTableColumn.synced.getColumnName(), Database.ChildTableColumn.owner.getColumnName());
+
+    public static final String createChildInternalIdIndex = createIndex("children_internal_id_idx", Database.child,
+            Database.ChildTableColumn.internal_id.getColumnName());
+
+    public static final String createEnquiryCreatedByIndex = createIndex("enquiry_created_by_idx", Database.enquiry,
+            Database.EnquiryTableColumn.created_by.getColumnName(), Database.EnquiryTableColumn.id.getColumnName());
+
+    public static final String createEnquirySyncedIndex = createIndex("enquiry_synced_idx", Database.enquiry,
+            Database.EnquiryTableColumn.synced.getColumnName());
+
+    public static final String createEnquiryInternalIdIndex = createIndex("enquiry_internal_id_idx", Database.enquiry,
+            Database.EnquiryTableColumn.internal_id.getColumnName());
+
+    public static final String createPotentialMatchChildIndex = createIndex("potential_match_child_id_idx", Database.potential_match,
+            Database.PotentialMatchTableColumn.child_id.getColumnName());
+
+    public static final String createPotentialMatchEnquiryIndex = createIndex("potential_match_enquiry_id_idx", Database.potential_match,
+            Database.PotentialMatchTableColumn.enquiry_id.getColumnName());
+
+    // Filled in for existing children after the upgrade, at login, through ChildRepository.rebuildIfUpgraded
+    public static final String addSummaryColumn = "ALTER TABLE "
+            + Database.child.getTableName()
+            + " ADD COLUMN "
+            + Database.ChildTableColumn.summary.getColumnName()
+            + " text";
+
+    // Histories already inside child_json or enquiry_json move to this table the next time the record is saved with them
+    public static final String createHistoryTable = "create table "
+            + Database.history.getTableName() + "("
+            + Database.HistoryTableColumn.id.getColumnName() + " integer primary key autoincrement,"
+            + Database.HistoryTableColumn.record_id.getColumnName() + " text not null,"
+            + Database.HistoryTableColumn.content.getColumnName() + " text not null"
+            + ");";
+
+    public static final String createHistoryRecordIndex = createIndex("history_record_id_idx", Database.history,
+            Database.HistoryTableColumn.record_id.getColumnName(), Database.HistoryTableColumn.id.getColumnName());
+
+    private static String createIndex(String indexName, Database table, String... columns) {
+        return "CREATE INDEX IF NOT EXISTS " + indexName
+                + " ON " + table.getTableName() + "(" + Joiner.on(", ").join(columns) + ");";
+    }
+}
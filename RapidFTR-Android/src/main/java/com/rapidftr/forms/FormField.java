@@ -12,7 +12,6 @@ import java.util.*;
 @Setter
 @EqualsAndHashCode
 @NoArgsConstructor
-@AllArgsConstructor(suppressConstructorProperties = true)
 public class FormField {
 
     @JsonProperty("name")
@@ -39,28 +38,111 @@ public class FormField {
 
 	private Object value;
 
+    // Labels and options resolved for the last language asked for; rebuilt when the language or these maps change
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile Localization localization;
+
+    public FormField(String id, HighlightInfo highlightInfo, boolean titleField, boolean editable, String type,
+                     Map<String, String> displayName, Map<String, String> helpText,
+                     Map<String, List<String>> optionStrings, Object value) {
+        this.id = id;
+        this.highlightInfo = highlightInfo;
+        this.titleField = titleField;
+        this.editable = editable;
+        this.type = type;
+        this.displayName = displayName;
+        this.helpText = helpText;
+        this.optionStrings = optionStrings;
+        this.value = value;
+    }
+
+    public void setDisplayName(Map<String, String> displayName) {
+        this.displayName = displayName;
+        this.localization = null;
+    }
+
+    public void setHelpText(Map<String, String> helpText) {
+        this.helpText = helpText;
+        this.localization = null;
+    }
+
+    public void setOptionStrings(Map<String, List<String>> optionStrings) {
+        this.optionStrings = optionStrings;
+        this.localization = null;
+    }
+
     public String getLocalizedDisplayName(){
-        return getLocalized(displayName);
+        return localized().displayName;
     }
 
     public String getLocalizedHelpText(){
-        return getLocalized(helpText);
+        return localized().helpText;
     }
 
     public List<String> getLocalizedOptionStrings(){
-        String locale = Locale.getDefault().getLanguage();
-        List<String> localizedOptionStrings = (optionStrings != null && optionStrings.get(locale) != null) ? optionStrings.get(locale) : null;
-        if(localizedOptionStrings == null)
-            return (optionStrings != null && optionStrings.get(RapidFtrApplication.getDefaultLocale()) != null) ? optionStrings.get(RapidFtrApplication.getDefaultLocale()) : new ArrayList<String>();
-        return localizedOptionStrings;
+        return localized().optionStrings;
+    }
+
+    private Localization localized() {
+        String language = Locale.getDefault().getLanguage();
+        Localization current = localization;
+        if (current == null || !current.isFor(language)) {
+            current = new Localization(language);
+            localization = current;
+        }
+        return current;
     }
 
-    private String getLocalized(Map<String, String> valueMap) {
-        if(valueMap != null) {
-            String value = valueMap.get(Locale.getDefault().getLanguage());
-            return (value == null || "".equals(value)) ? valueMap.get(RapidFtrApplication.getDefaultLocale()) : value;
+    /*
+     * The user's default language is only looked up, and only checked again, when the device language is missing a value.
+     */
+    private class Localization {
+        private final String language;
+        private final String fallbackLanguage;
+        private final String displayName;
+        private final String helpText;
+        private final List<String> optionStrings;
+
+        Localization(String language) {
+            this.language = language;
+            this.fallbackLanguage = isTranslated(language) ? null : RapidFtrApplication.getDefaultLocale();
+            this.displayName = localize(FormField.this.displayName);
+            this.helpText = localize(FormField.this.helpText);
+
+            List<String> options = optionStrings(language);
+            if (options == null && fallbackLanguage != null) {
+                options = optionStrings(fallbackLanguage);
+            }
+            this.optionStrings = Collections.unmodifiableList(options == null ? new ArrayList<String>() : options);
+        }
+
+        boolean isFor(String language) {
+            return this.language.equals(language)
+                    && (fallbackLanguage == null || fallbackLanguage.equals(RapidFtrApplication.getDefaultLocale()));
+        }
+
+        private boolean isTranslated(String language) {
+            return hasValue(FormField.this.displayName, language)
+                    && hasValue(FormField.this.helpText, language)
+                    && (optionStrings == null || optionStrings.isEmpty() || optionStrings(language) != null);
+        }
+
+        private boolean hasValue(Map<String, String> valueMap, String language) {
+            return valueMap == null || (valueMap.get(language) != null && !"".equals(valueMap.get(language)));
+        }
+
+        private List<String> optionStrings(String language) {
+            return FormField.this.optionStrings == null ? null : FormField.this.optionStrings.get(language);
+        }
+
+        private String localize(Map<String, String> valueMap) {
+            if (valueMap != null) {
+                String value = valueMap.get(language);
+                return (value == null || "".equals(value)) ? valueMap.get(fallbackLanguage) : value;
+            }
+            return null;
         }
-        return null;
     }
 
 
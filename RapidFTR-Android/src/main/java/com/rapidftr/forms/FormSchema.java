@@ -0,0 +1,114 @@
+package com.rapidftr.forms;
+
+import android.util.Log;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidftr.RapidFtrApplication;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Form sections of every form, shared by every FormService until different forms are stored.
+ * Each form is compiled the first time it is asked for, from the sections it was built with or else from the
+ * FormSchemaStore. Highlighted and title fields are worked out once then, and sections and their field lists
+ * can't be changed once compiled. Each schema gets a new version, so anything derived from the forms can tell
+ * when they were downloaded again.
+ */
+public class FormSchema {
+
+    public static final FormSchema EMPTY = new FormSchema(null, 0, null, Collections.<String, List<FormSection>>emptyMap());
+
+    private static final AtomicInteger versions = new AtomicInteger();
+
+    private final String source;
+    @Getter
+    private final int version;
+    private final FormSchemaStore store;
+    private final Map<String, List<FormSection>> formSections;
+    private final ConcurrentMap<String, CompiledForm> compiledForms = new ConcurrentHashMap<String, CompiledForm>();
+
+    private FormSchema(String source, int version, FormSchemaStore store, Map<String, List<FormSection>> formSections) {
+        this.source = source;
+        this.version = version;
+        this.store = store;
+        this.formSections = formSections;
+    }
+
+    public static FormSchema of(String source, Map<String, List<FormSection>> formSections) {
+        return new FormSchema(source, versions.incrementAndGet(), null, new HashMap<String, List<FormSection>>(formSections));
+    }
+
+    public static FormSchema stored(String source, FormSchemaStore store) {
+        return new FormSchema(source, versions.incrementAndGet(), store, Collections.<String, List<FormSection>>emptyMap());
+    }
+
+    public static Map<String, List<FormSection>> parse(JsonNode rootNode, ObjectMapper mapper) throws IOException {
+        Map<String, List<FormSection>> forms = new HashMap<String, List<FormSection>>();
+        Iterator<Map.Entry<String, JsonNode>> childNodes = rootNode.fields();
+        while (childNodes.hasNext()) {
+            Map.Entry<String, JsonNode> entry = childNodes.next();
+            forms.put(entry.getKey(), new ArrayList<FormSection>(Arrays.asList(mapper.treeToValue(entry.getValue(), FormSection[].class))));
+        }
+        return forms;
+    }
+
+    public boolean isCompiledFrom(String source) {
+        return version > 0 && source != null && source.equals(this.source);
+    }
+
+    public List<FormSection> getFormSections(String formName) {
+        return form(formName).formSections;
+    }
+
+    public List<FormField> getHighlightedFields(String formName) {
+        return form(formName).highlightedFields;
+    }
+
+    public List<FormField> getTitleFields(String formName) {
+        return form(formName).titleFields;
+    }
+
+    private CompiledForm form(String formName) {
+        CompiledForm form = compiledForms.get(formName);
+        if (form == null) {
+            List<FormSection> sections = formSections.get(formName);
+            if (sections == null && store != null) {
+                try {
+                    sections = store.read(formName);
+                } catch (IOException e) {
+                    Log.e(RapidFtrApplication.APP_IDENTIFIER, "Could not read form " + formName, e);
+                    return new CompiledForm(Collections.<FormSection>emptyList());
+                }
+            }
+            CompiledForm compiled = new CompiledForm(sections == null ? Collections.<FormSection>emptyList() : sections);
+            form = compiledForms.putIfAbsent(formName, compiled);
+            if (form == null) {
+                form = compiled;
+            }
+        }
+        return form;
+    }
+
+    private static class CompiledForm {
+        private final List<FormSection> formSections;
+        private final List<FormField> highlightedFields;
+        private final List<FormField> titleFields;
+
+        CompiledForm(List<FormSection> sections) {
+            List<FormField> highlighted = new ArrayList<FormField>(), titles = new ArrayList<FormField>();
+            for (FormSection formSection : sections) {
+                formSection.setFields(Collections.unmodifiableList(formSection.getFields()));
+                highlighted.addAll(formSection.getOrderedHighLightedFields());
+                titles.addAll(formSection.getOrderedTitleFields());
+            }
+            this.formSections = Collections.unmodifiableList(new ArrayList<FormSection>(sections));
+            this.highlightedFields = Collections.unmodifiableList(highlighted);
+            this.titleFields = Collections.unmodifiableList(titles);
+        }
+    }
+}
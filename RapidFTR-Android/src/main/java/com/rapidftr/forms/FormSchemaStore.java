@@ -0,0 +1,257 @@
+package com.rapidftr.forms;
+
+import android.content.Context;
+import lombok.Cleanup;
+
+import java.io.*;
+import java.util.*;
+
+/*
+ * Form sections kept in a binary file of their own, rather than as one JSON string in the app's shared preferences.
+ * The file starts with an index of forms, so a form is read and decoded without touching the others. It is written to
+ * a temporary file and renamed into place, so a write that is cut short leaves the previous forms intact.
+ */
+public class FormSchemaStore {
+
+    public static final String DIRECTORY = "forms";
+    public static final String FILE_NAME = "form_sections.bin";
+
+    private static final int MAGIC = 0x52465346;
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+
+    public FormSchemaStore(Context context) {
+        this(new File(context.getDir(DIRECTORY, Context.MODE_PRIVATE), FILE_NAME));
+    }
+
+    public FormSchemaStore(File file) {
+        this.file = file;
+    }
+
+    /*
+     * Changes whenever the file is rewritten; null while nothing has been stored.
+     */
+    public String getState() {
+        return file.exists() ? file.getPath() + "@" + file.lastModified() + "+" + file.length() : null;
+    }
+
+    public void write(Map<String, List<FormSection>> forms) throws IOException {
+        List<String> formNames = new ArrayList<String>(forms.keySet());
+        List<byte[]> encodedForms = new ArrayList<byte[]>();
+        for (String formName : formNames) {
+            encodedForms.add(encode(forms.get(formName)));
+        }
+
+        File temporary = new File(file.getPath() + ".tmp");
+        FileOutputStream fileStream = new FileOutputStream(temporary);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(formNames.size());
+            int offset = 0;
+            for (int i = 0; i < formNames.size(); i++) {
+                writeString(out, formNames.get(i));
+                out.writeInt(offset);
+                out.writeInt(encodedForms.get(i).length);
+                offset += encodedForms.get(i).length;
+            }
+            for (byte[] encodedForm : encodedForms) {
+                out.write(encodedForm);
+            }
+            out.flush();
+            fileStream.getFD().sync();
+        } finally {
+            fileStream.close();
+        }
+
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /*
+     * Null when the form isn't stored.
+     */
+    public List<FormSection> read(String formName) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        @Cleanup RandomAccessFile in = new RandomAccessFile(file, "r");
+        DataInputStream header = new DataInputStream(new BufferedInputStream(new FileInputStream(in.getFD())));
+        if (header.readInt() != MAGIC || header.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown form sections format in " + file);
+        }
+
+        int formCount = header.readInt();
+        int headerLength = 12, offset = -1, length = 0;
+        for (int i = 0; i < formCount; i++) {
+            String name = readString(header);
+            int formOffset = header.readInt(), formLength = header.readInt();
+            headerLength += 4 + name.getBytes("UTF-8").length + 8;
+            if (name.equals(formName)) {
+                offset = formOffset;
+                length = formLength;
+            }
+        }
+        if (offset < 0) {
+            return null;
+        }
+
+        byte[] encodedForm = new byte[length];
+        in.seek(headerLength + offset);
+        in.readFully(encodedForm);
+        return decode(new DataInputStream(new ByteArrayInputStream(encodedForm)));
+    }
+
+    public void clear() {
+        file.delete();
+    }
+
+    private byte[] encode(List<FormSection> formSections) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(formSections.size());
+        for (FormSection formSection : formSections) {
+            writeStrings(out, formSection.getName());
+            out.writeInt(formSection.getOrder());
+            out.writeBoolean(formSection.isEnabled());
+            writeStrings(out, formSection.getHelpText());
+            out.writeInt(formSection.getFields().size());
+            for (FormField field : formSection.getFields()) {
+                encode(out, field);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // A field's value, when the form gives it one, is stored as text
+    private void encode(DataOutputStream out, FormField field) throws IOException {
+        writeString(out, field.getId());
+        HighlightInfo highlightInfo = field.getHighlightInfo();
+        out.writeBoolean(highlightInfo != null);
+        if (highlightInfo != null) {
+            writeString(out, highlightInfo.getOrder());
+            out.writeByte(highlightInfo.getHighlighted() == null ? -1 : (highlightInfo.getHighlighted() ? 1 : 0));
+        }
+        out.writeBoolean(field.isTitleField());
+        out.writeBoolean(field.isEditable());
+        writeString(out, field.getType());
+        writeStrings(out, field.getDisplayName());
+        writeStrings(out, field.getHelpText());
+
+        Map<String, List<String>> optionStrings = field.getOptionStrings();
+        out.writeInt(optionStrings == null ? -1 : optionStrings.size());
+        if (optionStrings != null) {
+            for (Map.Entry<String, List<String>> options : optionStrings.entrySet()) {
+                writeString(out, options.getKey());
+                out.writeInt(options.getValue() == null ? -1 : options.getValue().size());
+                if (options.getValue() != null) {
+                    for (String option : options.getValue()) {
+                        writeString(out, option);
+                    }
+                }
+            }
+        }
+        writeString(out, field.getValue() == null ? null : field.getValue().toString());
+    }
+
+    private List<FormSection> decode(DataInputStream in) throws IOException {
+        int sectionCount = in.readInt();
+        List<FormSection> formSections = new ArrayList<FormSection>(sectionCount);
+        for (int i = 0; i < sectionCount; i++) {
+            Map<String, String> name = readStrings(in);
+            int order = in.readInt();
+            boolean enabled = in.readBoolean();
+            Map<String, String> helpText = readStrings(in);
+            int fieldCount = in.readInt();
+            List<FormField> fields = new ArrayList<FormField>(fieldCount);
+            for (int j = 0; j < fieldCount; j++) {
+                fields.add(decodeField(in));
+            }
+            formSections.add(new FormSection(name, order, enabled, helpText, fields));
+        }
+        return formSections;
+    }
+
+    private FormField decodeField(DataInputStream in) throws IOException {
+        String id = readString(in);
+        HighlightInfo highlightInfo = null;
+        if (in.readBoolean()) {
+            String order = readString(in);
+            byte highlighted = in.readByte();
+            highlightInfo = new HighlightInfo(order, highlighted < 0 ? null : highlighted == 1);
+        }
+        boolean titleField = in.readBoolean();
+        boolean editable = in.readBoolean();
+        String type = readString(in);
+        Map<String, String> displayName = readStrings(in);
+        Map<String, String> helpText = readStrings(in);
+
+        Map<String, List<String>> optionStrings = null;
+        int languages = in.readInt();
+        if (languages >= 0) {
+            optionStrings = new HashMap<String, List<String>>();
+            for (int i = 0; i < languages; i++) {
+                String language = readString(in);
+                int optionCount = in.readInt();
+                List<String> options = null;
+                if (optionCount >= 0) {
+                    options = new ArrayList<String>(optionCount);
+                    for (int j = 0; j < optionCount; j++) {
+                        options.add(readString(in));
+                    }
+                }
+                optionStrings.put(language, options);
+            }
+        }
+        String value = readString(in);
+        return new FormField(id, highlightInfo, titleField, editable, type, displayName, helpText, optionStrings, value);
+    }
+
+    private void writeStrings(DataOutputStream out, Map<String, String> strings) throws IOException {
+        out.writeInt(strings == null ? -1 : strings.size());
+        if (strings != null) {
+            for (Map.Entry<String, String> entry : strings.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+    }
+
+    private Map<String, String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> strings = new HashMap<String, String>();
+        for (int i = 0; i < size; i++) {
+            strings.put(readString(in), readString(in));
+        }
+        return strings;
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
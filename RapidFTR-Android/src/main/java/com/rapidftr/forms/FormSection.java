@@ -12,7 +12,6 @@ import java.util.*;
 @Setter
 @EqualsAndHashCode
 @NoArgsConstructor
-@AllArgsConstructor(suppressConstructorProperties = true)
 public class FormSection implements Comparable<FormSection> {
 
     @JsonProperty("name")
@@ -27,6 +26,29 @@ public class FormSection implements Comparable<FormSection> {
 
     protected List<FormField> fields = new ArrayList<FormField>();
 
+    // Ordered once per fields list; FormSchema hands out sections whose fields can no longer change in place
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile List<FormField> orderedHighlightedFields;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile List<FormField> orderedTitleFields;
+
+    public FormSection(Map<String, String> name, int order, boolean enabled, Map<String, String> helpText, List<FormField> fields) {
+        this.name = name;
+        this.order = order;
+        this.enabled = enabled;
+        this.helpText = helpText;
+        this.fields = fields;
+    }
+
+    public void setFields(List<FormField> fields) {
+        this.fields = fields;
+        this.orderedHighlightedFields = null;
+        this.orderedTitleFields = null;
+    }
+
     public String getLocalizedName() {
         return getLocalized(name);
     }
@@ -54,26 +76,28 @@ public class FormSection implements Comparable<FormSection> {
     }
 
     public List<FormField> getOrderedHighLightedFields() {
-        SortedMap<Integer, FormField> sortedFormFields = new TreeMap<Integer, FormField>();
-        for (FormField formField : fields) {
-            if (formField.getHighlightInfo() != null && formField.getHighlightInfo().getHighlighted()) {
-                Integer order = Integer.parseInt(formField.getHighlightInfo().getOrder());
-                sortedFormFields.put(order, formField);
-            }
+        if (orderedHighlightedFields == null) {
+            orderedHighlightedFields = orderHighlighted(false);
         }
-
-        return Arrays.asList(sortedFormFields.values().toArray(new FormField[]{}));
+        return orderedHighlightedFields;
     }
 
     public List<FormField> getOrderedTitleFields() {
+        if (orderedTitleFields == null) {
+            orderedTitleFields = orderHighlighted(true);
+        }
+        return orderedTitleFields;
+    }
+
+    private List<FormField> orderHighlighted(boolean titleFieldsOnly) {
         SortedMap<Integer, FormField> sortedFormFields = new TreeMap<Integer, FormField>();
         for (FormField formField : fields) {
-            if (formField.isTitleField() && formField.getHighlightInfo() != null && formField.getHighlightInfo().getHighlighted()) {
+            if ((!titleFieldsOnly || formField.isTitleField()) && formField.getHighlightInfo() != null && formField.getHighlightInfo().getHighlighted()) {
                 Integer order = Integer.parseInt(formField.getHighlightInfo().getOrder());
                 sortedFormFields.put(order, formField);
             }
         }
 
-        return Arrays.asList(sortedFormFields.values().toArray(new FormField[]{}));
+        return Collections.unmodifiableList(new ArrayList<FormField>(sortedFormFields.values()));
     }
 }
@@ -9,8 +9,7 @@ import com.google.common.collect.Lists;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.database.Database;
 import com.rapidftr.forms.Form;
-import com.rapidftr.repository.ChildRepository;
-import com.rapidftr.repository.EnquiryRepository;
+import com.rapidftr.repository.MatchedRecords;
 import com.rapidftr.repository.PotentialMatchRepository;
 import com.rapidftr.utils.RapidFtrDateTime;
 import org.json.JSONArray;
@@ -21,6 +20,7 @@ import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,6 +38,20 @@ public class BaseModel extends JSONObject implements Parcelable {
 
     public BaseModel(String content) throws JSONException {
         super(Strings.nullToEmpty(content).trim().length() == 0 ? "{}" : content);
+        setDefaults();
+    }
+
+    public BaseModel(JSONObject content) throws JSONException {
+        super();
+        Iterator<String> names = content.keys();
+        while (names.hasNext()) {
+            String name = names.next();
+            super.put(name, content.get(name));
+        }
+        setDefaults();
+    }
+
+    private void setDefaults() throws JSONException {
         if (!has(created_at.getColumnName())) {
             setCreatedAt(RapidFtrDateTime.now().defaultFormat());
         }
@@ -229,7 +243,7 @@ public class BaseModel extends JSONObject implements Parcelable {
             this.put(History.HISTORIES, new JSONArray(histories));
     }
 
-    public List<BaseModel> getPotentialMatchingModels(PotentialMatchRepository potentialMatchRepo, ChildRepository childRepo, EnquiryRepository enquiryRepository) throws JSONException {
+    public List<BaseModel> getPotentialMatchingModels(PotentialMatchRepository potentialMatchRepo) throws JSONException {
         return new ArrayList<BaseModel>();
     }
 
@@ -250,10 +264,14 @@ public class BaseModel extends JSONObject implements Parcelable {
         }
     }
 
-    public List<BaseModel> getConfirmedMatchingModels(PotentialMatchRepository potentialMatchRepository, ChildRepository childRepository, EnquiryRepository enquiryRepository) {
+    public List<BaseModel> getConfirmedMatchingModels(PotentialMatchRepository potentialMatchRepository) {
         return new ArrayList<BaseModel>();
     }
 
+    public MatchedRecords<? extends BaseModel> getMatches(PotentialMatchRepository potentialMatchRepository) throws JSONException {
+        return new MatchedRecords<BaseModel>();
+    }
+
     public void addHistory(History history) throws JSONException {
         boolean meaningfulHistory = history.has(History.CHANGES) && history.get(History.CHANGES) != null;
         if(meaningfulHistory) {
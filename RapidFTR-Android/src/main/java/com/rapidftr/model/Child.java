@@ -4,18 +4,15 @@ import android.os.Parcel;
 import android.util.Log;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.rapidftr.repository.ChildRepository;
-import com.rapidftr.repository.EnquiryRepository;
+import com.rapidftr.repository.MatchedRecords;
 import com.rapidftr.repository.PotentialMatchRepository;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import static com.rapidftr.database.Database.ChildTableColumn;
@@ -48,6 +45,11 @@ public class Child extends BaseModel {
         setHistories();
     }
 
+    public Child(JSONObject content) throws JSONException {
+        super(content);
+        setHistories();
+    }
+
     public Child(String content, boolean synced) throws JSONException {
         this(content);
         setSynced(synced);
@@ -83,22 +85,24 @@ public class Child extends BaseModel {
     }
 
     @Override
-    public List<BaseModel> getConfirmedMatchingModels(PotentialMatchRepository potentialMatchRepository, ChildRepository childRepository, EnquiryRepository enquiryRepository) {
-        return getMatchesByConfirmationStatus(potentialMatchRepository, enquiryRepository, true);
+    public MatchedRecords<Enquiry> getMatches(PotentialMatchRepository potentialMatchRepository) throws JSONException {
+        return potentialMatchRepository.getMatchingEnquiries(this);
+    }
+
+    @Override
+    public List<BaseModel> getConfirmedMatchingModels(PotentialMatchRepository potentialMatchRepository) {
+        return getMatchesByConfirmationStatus(potentialMatchRepository, true);
     }
 
     @Override
-    public List<BaseModel> getPotentialMatchingModels(PotentialMatchRepository potentialMatchRepo, ChildRepository childRepo, EnquiryRepository enquiryRepository) throws JSONException {
-        return getMatchesByConfirmationStatus(potentialMatchRepo, enquiryRepository, false);
+    public List<BaseModel> getPotentialMatchingModels(PotentialMatchRepository potentialMatchRepo) throws JSONException {
+        return getMatchesByConfirmationStatus(potentialMatchRepo, false);
     }
 
-    private List<BaseModel> getMatchesByConfirmationStatus(PotentialMatchRepository potentialMatchRepo, EnquiryRepository enquiryRepository, boolean status) {
-        List<BaseModel> models = new ArrayList<BaseModel>();
+    private List<BaseModel> getMatchesByConfirmationStatus(PotentialMatchRepository potentialMatchRepo, boolean status) {
         try {
-            List<PotentialMatch> matches = potentialMatchRepo.getPotentialMatchesFor(this);
-            Collection<PotentialMatch> potentialMatches = Collections2.filter(matches, new PotentialMatch.FilterByConfirmationStatus(status));
-            models.addAll(enquiryRepository.getAllWithInternalIds(idsFromMatches(potentialMatches)));
-            return models;
+            MatchedRecords<Enquiry> matches = getMatches(potentialMatchRepo);
+            return new ArrayList<BaseModel>(status ? matches.getConfirmed() : matches.getUnconfirmed());
         } catch (JSONException exception) {
             return new ArrayList<BaseModel>();
         }
@@ -118,14 +122,6 @@ public class Child extends BaseModel {
         return photo_keys;
     }
 
-    public static List<String> idsFromMatches(Collection<PotentialMatch> potentialMatches) {
-        List<String> ids = new ArrayList<String>();
-        for (PotentialMatch potentialMatch : potentialMatches) {
-            ids.add(potentialMatch.getEnquiryId());
-        }
-        return ids;
-    }
-
     @Override
     public String getRecordedAudio() {
         return optString("recorded_audio");
@@ -0,0 +1,16 @@
+package com.rapidftr.model;
+
+import org.json.JSONException;
+
+/*
+ * The values a child list row shows: unique id, title and highlighted fields and current photo key.
+ * Built from the summary column of the children table, so listing children never parses child_json or its histories.
+ * A summary is read only; load the Child itself to view or edit the record.
+ */
+public class ChildSummary extends BaseModel {
+
+    public ChildSummary(String content, boolean synced) throws JSONException {
+        super(content);
+        setSynced(synced);
+    }
+}
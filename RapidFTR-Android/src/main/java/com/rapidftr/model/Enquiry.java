@@ -2,19 +2,16 @@ package com.rapidftr.model;
 
 import android.database.Cursor;
 import com.google.common.base.Function;
-import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.rapidftr.database.Database;
-import com.rapidftr.repository.ChildRepository;
-import com.rapidftr.repository.EnquiryRepository;
+import com.rapidftr.repository.MatchedRecords;
 import com.rapidftr.repository.PotentialMatchRepository;
 import com.rapidftr.utils.RapidFtrDateTime;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import static com.rapidftr.database.Database.EnquiryTableColumn.content;
@@ -57,6 +54,11 @@ public class Enquiry extends BaseModel {
         setHistories();
     }
 
+    public Enquiry(JSONObject enquiryJSON) throws JSONException {
+        super(enquiryJSON);
+        setHistories();
+    }
+
     public boolean isValid() {
         int numberOfInternalFields = names().length();
 
@@ -84,35 +86,29 @@ public class Enquiry extends BaseModel {
 
 
     @Override
-    public List<BaseModel> getConfirmedMatchingModels(PotentialMatchRepository potentialMatchRepository, ChildRepository childRepository, EnquiryRepository enquiryRepository) {
-        return getMatchesByConfirmationStatus(potentialMatchRepository, childRepository, true);
+    public MatchedRecords<Child> getMatches(PotentialMatchRepository potentialMatchRepository) throws JSONException {
+        return potentialMatchRepository.getMatchingChildren(this);
+    }
+
+    @Override
+    public List<BaseModel> getConfirmedMatchingModels(PotentialMatchRepository potentialMatchRepository) {
+        return getMatchesByConfirmationStatus(potentialMatchRepository, true);
     }
 
     @Override
-    public List<BaseModel> getPotentialMatchingModels(PotentialMatchRepository potentialMatchRepo, ChildRepository childRepository, EnquiryRepository enquiryRepository) throws JSONException {
-        return getMatchesByConfirmationStatus(potentialMatchRepo, childRepository, false);
+    public List<BaseModel> getPotentialMatchingModels(PotentialMatchRepository potentialMatchRepo) throws JSONException {
+        return getMatchesByConfirmationStatus(potentialMatchRepo, false);
     }
 
-    private List<BaseModel> getMatchesByConfirmationStatus(PotentialMatchRepository potentialMatchRepo, ChildRepository childRepository, boolean status) {
-        List<BaseModel> models = new ArrayList<BaseModel>();
+    private List<BaseModel> getMatchesByConfirmationStatus(PotentialMatchRepository potentialMatchRepo, boolean status) {
         try {
-            List<PotentialMatch> matches = potentialMatchRepo.getPotentialMatchesFor(this);
-            Collection<PotentialMatch> potentialMatches = Collections2.filter(matches, new PotentialMatch.FilterByConfirmationStatus(status));
-            models.addAll(childRepository.getAllWithInternalIds(idsFromMatches(potentialMatches)));
-            return models;
+            MatchedRecords<Child> matches = getMatches(potentialMatchRepo);
+            return new ArrayList<BaseModel>(status ? matches.getConfirmed() : matches.getUnconfirmed());
         } catch (JSONException exception) {
             return new ArrayList<BaseModel>();
         }
     }
 
-    public static List<String> idsFromMatches(Collection<PotentialMatch> potentialMatches) {
-        List<String> ids = new ArrayList<String>();
-        for (PotentialMatch potentialMatch : potentialMatches) {
-            ids.add(potentialMatch.getChildId());
-        }
-        return ids;
-    }
-
     @Override
     public String getApiPath() {
         return "/api/enquiries";
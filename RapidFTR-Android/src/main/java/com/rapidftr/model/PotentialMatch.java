@@ -1,7 +1,7 @@
 package com.rapidftr.model;
 
-import com.google.common.base.Predicate;
 import org.json.JSONException;
+import org.json.JSONObject;
 
 public class PotentialMatch extends BaseModel {
 
@@ -22,6 +22,10 @@ public class PotentialMatch extends BaseModel {
         super(jsonString);
     }
 
+    public PotentialMatch(JSONObject json) throws JSONException {
+        super(json);
+    }
+
     public PotentialMatch(String enquiryId, String childId, String uniqueIdentifier) {
         this.put(ENQUIRY_ID_FIELD, enquiryId);
         this.put(CHILD_ID_FIELD, childId);
@@ -68,17 +72,4 @@ public class PotentialMatch extends BaseModel {
     public Boolean isDeleted() {
         return PotentialMatchStatus.valueOf(getString(STATUS_FIELD)) == PotentialMatchStatus.DELETED;
     }
-
-    public static class FilterByConfirmationStatus implements Predicate<PotentialMatch> {
-        private Boolean keepConfirmedMatches;
-
-        public FilterByConfirmationStatus(Boolean keepConfirmedMatches) {
-            this.keepConfirmedMatches = keepConfirmedMatches;
-        }
-
-        @Override
-        public boolean apply(PotentialMatch potentialMatch) {
-            return potentialMatch.isConfirmed() == keepConfirmedMatches;
-        }
-    }
 }
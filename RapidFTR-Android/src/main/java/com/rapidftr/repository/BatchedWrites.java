@@ -0,0 +1,35 @@
+package com.rapidftr.repository;
+
+import com.google.common.collect.Iterables;
+import com.rapidftr.database.DatabaseSession;
+import org.json.JSONException;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Each SQLCipher transaction ends with a sync of the encrypted pages, so writing rows one by one pays that cost per row.
+ * Grouping rows into transactions of batchSize pays it once per batch, while keeping any single transaction bounded.
+ */
+public class BatchedWrites {
+
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    public interface Writer<T> {
+        public void write(T record) throws JSONException;
+    }
+
+    public static <T> void inTransactions(DatabaseSession session, Collection<T> records, int batchSize, Writer<T> writer) throws JSONException {
+        for (List<T> batch : Iterables.partition(records, Math.max(1, batchSize))) {
+            session.beginTransaction();
+            try {
+                for (T record : batch) {
+                    writer.write(record);
+                }
+                session.setTransactionSuccessful();
+            } finally {
+                session.endTransaction();
+            }
+        }
+    }
+}
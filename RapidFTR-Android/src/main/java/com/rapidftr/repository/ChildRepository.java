@@ -2,22 +2,27 @@ package com.rapidftr.repository;
 
 import android.content.ContentValues;
 import android.database.Cursor;
-import android.util.Log;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.adapter.pagination.ViewAllChildrenPaginatedScrollListener;
 import com.rapidftr.database.Database;
 import com.rapidftr.database.DatabaseSession;
+import com.rapidftr.database.StatementCache;
 import com.rapidftr.model.Child;
+import com.rapidftr.model.ChildSummary;
 import com.rapidftr.model.History;
 import com.rapidftr.model.User;
+import com.rapidftr.service.FormService;
 import com.rapidftr.utils.RapidFtrDateTime;
 import lombok.Cleanup;
+import lombok.Setter;
+import org.json.JSONArray;
 import org.json.JSONException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
@@ -29,16 +34,30 @@ public class ChildRepository implements Repository<Child> {
 
     protected final String userName;
     protected final DatabaseSession session;
+    protected final StatementCache statements;
+    protected final RecordHistories histories;
     private PaginatedSearchQueryBuilder paginatedSearchQueryBuilder;
     private RapidFtrApplication applicationInstance;
+    @Setter
+    private int batchSize = BatchedWrites.DEFAULT_BATCH_SIZE;
+    private FormService formService;
+    private ChildSearchIndex searchIndex;
+    private ChildSummaries summaries;
 
     @Inject
     public ChildRepository(@Named("USER_NAME") String userName, DatabaseSession session) {
         this.userName = userName;
         this.session = session;
+        this.statements = new StatementCache(session);
+        this.histories = new RecordHistories(session, statements);
         this.applicationInstance = RapidFtrApplication.getApplicationInstance();
     }
 
+    public ChildRepository(String userName, DatabaseSession session, FormService formService) {
+        this(userName, session);
+        this.formService = formService;
+    }
+
     @Override
     public Child get(String id) throws JSONException {
         @Cleanup Cursor cursor = session.rawQuery("SELECT child_json, synced FROM children WHERE id = ?", new String[]{id});
@@ -51,35 +70,68 @@ public class ChildRepository implements Repository<Child> {
 
     @Override
     public boolean exists(String childId) {
-        @Cleanup Cursor cursor = session.rawQuery("SELECT child_json FROM children WHERE id = ?", new String[]{childId == null ? "" : childId});
-        return cursor.moveToNext() && cursor.getCount() > 0;
+        return statements.queryForLong("SELECT COUNT(1) FROM children WHERE id = ?", childId == null ? "" : childId) > 0;
     }
 
     @Override
     public int size() {
-        @Cleanup Cursor cursor = session.rawQuery("SELECT COUNT(1) FROM children WHERE child_owner = ?", new String[]{userName});
-        return cursor.moveToNext() ? cursor.getInt(0) : 0;
+        return (int) statements.queryForLong("SELECT COUNT(1) FROM children WHERE child_owner = ?", userName);
     }
 
     @Override
-    public List<Child> getRecordsBetween(int fromPageNumber, int pageNumber) throws JSONException {
-        String sql = String.format(
-                "SELECT child_json, synced FROM children WHERE child_owner='%s' ORDER BY id LIMIT %d OFFSET %d",
-                userName, pageNumber - fromPageNumber, fromPageNumber);
-        Log.d("QUERY LIMIT", String.format(sql));
-        @Cleanup Cursor cursor = session.rawQuery(sql, null);
+    public List<Child> getRecordsAfter(String lastId, int pageSize) throws JSONException {
+        @Cleanup Cursor cursor = session.rawQuery("SELECT child_json, synced FROM children WHERE child_owner = ? AND id > ? ORDER BY id LIMIT ?",
+                new String[]{userName, lastId == null ? "" : lastId, String.valueOf(pageSize)});
         return toChildren(cursor);
     }
 
+    public List<ChildSummary> getSummariesForFirstPage() throws JSONException {
+        @Cleanup Cursor cursor = session.rawQuery("SELECT id, summary, synced FROM children WHERE child_owner = ? ORDER BY id LIMIT ?",
+                new String[]{userName, String.valueOf(ViewAllChildrenPaginatedScrollListener.FIRST_PAGE)});
+        return toSummaries(cursor);
+    }
+
+    public List<ChildSummary> getSummariesAfter(String lastId, int pageSize) throws JSONException {
+        @Cleanup Cursor cursor = session.rawQuery("SELECT id, summary, synced FROM children WHERE child_owner = ? AND id > ? ORDER BY id LIMIT ?",
+                new String[]{userName, lastId == null ? "" : lastId, String.valueOf(pageSize)});
+        return toSummaries(cursor);
+    }
+
+    public void rebuildSearchIndex() throws JSONException {
+        session.beginTransaction();
+        try {
+            getSearchIndex().rebuild(session);
+            session.setTransactionSuccessful();
+        } finally {
+            session.endTransaction();
+        }
+    }
+
+    public void rebuildSummaries() throws JSONException {
+        session.beginTransaction();
+        try {
+            getSummaries().rebuild(session, statements);
+            session.setTransactionSuccessful();
+        } finally {
+            session.endTransaction();
+        }
+    }
+
+    // Every child saved since v003 has a summary, so one without is from before the upgrade and has no search terms either
+    public void rebuildIfUpgraded() throws JSONException {
+        if (statements.queryForLong("SELECT EXISTS (SELECT 1 FROM children WHERE summary IS NULL)") > 0) {
+            rebuildSummaries();
+            rebuildSearchIndex();
+        }
+    }
+
     @Override
     public List<Child> allCreatedByCurrentUser() throws JSONException { return new ArrayList<Child>(); }
 
     @Override
     public List<Child> getRecordsForFirstPage() throws JSONException {
-        String sql = String.format(
-                "SELECT child_json, synced FROM children WHERE child_owner='%s' ORDER BY id LIMIT %d",
-                userName, ViewAllChildrenPaginatedScrollListener.FIRST_PAGE);
-        @Cleanup Cursor cursor = session.rawQuery(sql, null);
+        @Cleanup Cursor cursor = session.rawQuery("SELECT child_json, synced FROM children WHERE child_owner = ? ORDER BY id LIMIT ?",
+                new String[]{userName, String.valueOf(ViewAllChildrenPaginatedScrollListener.FIRST_PAGE)});
         return toChildren(cursor);
     }
 
@@ -94,32 +146,67 @@ public class ChildRepository implements Repository<Child> {
     }
 
     public void deleteChildrenByOwner() throws JSONException {
-        session.execSQL("DELETE FROM children WHERE child_owner = '" + userName + "';");
+        getSearchIndex().removeByOwner(userName);
+        statements.execute("DELETE FROM history WHERE record_id IN (SELECT id FROM children WHERE child_owner = ?)", userName);
+        statements.execute("DELETE FROM children WHERE child_owner = ?", userName);
     }
 
     @Override
     public void createOrUpdate(Child child) throws JSONException {
+        History history;
         if (exists(child.getUniqueId())) {
             Child existingChild = get(child.getUniqueId());
-            child.addHistory(History.buildHistoryBetween(existingChild, child));
+            history = History.buildHistoryBetween(existingChild, child);
         } else {
             User currentUser = RapidFtrApplication.getApplicationInstance().getCurrentUser();
-            child.addHistory(History.buildCreationHistory(child, currentUser));
+            history = History.buildCreationHistory(child, currentUser);
         }
         child.setLastUpdatedAt(getTimeStamp());
-        createOrUpdateWithoutHistory(child);
+        if (child.has(History.HISTORIES)) {
+            createOrUpdateWithoutHistory(child);
+        } else {
+            save(child);
+        }
+        histories.append(child.getUniqueId(), history);
     }
 
     @Override
     public void createOrUpdateWithoutHistory(Child child) throws JSONException {
+        save(child);
+        histories.replace(child.getUniqueId(), child.optJSONArray(History.HISTORIES));
+    }
+
+    @Override
+    public void attachHistories(Child child) throws JSONException {
+        histories.attachTo(child);
+    }
+
+    public JSONArray getHistories(String childId) throws JSONException {
+        return histories.get(childId);
+    }
+
+    private void save(Child child) throws JSONException {
         ContentValues values = new ContentValues();
         values.put(Database.ChildTableColumn.owner.getColumnName(), child.getCreatedBy());
         values.put(id.getColumnName(), child.getUniqueId());
-        values.put(content.getColumnName(), child.getJsonString());
+        values.put(content.getColumnName(), RecordHistories.jsonWithoutHistories(child));
         values.put(synced.getColumnName(), child.isSynced());
         values.put(created_at.getColumnName(), child.getCreatedAt());
+        values.put(summary.getColumnName(), getSummaries().summaryOf(child));
         populateInternalColumns(child, values);
-        session.replaceOrThrow(Database.child.getTableName(), null, values);
+        getSearchIndex().remove(child.getUniqueId());
+        long rowId = statements.insertOrReplace(Database.child.getTableName(), values);
+        getSearchIndex().add(rowId, child);
+    }
+
+    @Override
+    public void createOrUpdateAll(Collection<Child> children) throws JSONException {
+        BatchedWrites.inTransactions(session, children, batchSize, new BatchedWrites.Writer<Child>() {
+            @Override
+            public void write(Child child) throws JSONException {
+                createOrUpdateWithoutHistory(child);
+            }
+        });
     }
 
     private void populateInternalColumns(Child child, ContentValues values) {
@@ -130,13 +217,13 @@ public class ChildRepository implements Repository<Child> {
     @Override
     public List<Child> toBeSynced() throws JSONException {
         @Cleanup Cursor cursor = session.rawQuery("SELECT child_json, synced FROM children WHERE synced = ?", new String[]{falseValue.getColumnValue()});
-        return toChildren(cursor);
+        return withHistories(toChildren(cursor));
     }
 
     @Override
     public List<Child> currentUsersUnsyncedRecords() throws JSONException {
         @Cleanup Cursor cursor = session.rawQuery("SELECT child_json, synced FROM children WHERE synced = ? AND child_owner = ?", new String[]{falseValue.getColumnValue(), userName});
-        return toChildren(cursor);
+        return withHistories(toChildren(cursor));
     }
 
     @Override // TODO remove this method - we no longer want to work out what to updateWithoutHistory by comparing _revs
@@ -155,6 +242,7 @@ public class ChildRepository implements Repository<Child> {
     @Override
     public void close() {
         try {
+            statements.close();
             session.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -169,13 +257,55 @@ public class ChildRepository implements Repository<Child> {
         return children;
     }
 
-    private Child childFrom(Cursor cursor) throws JSONException {
+    private List<Child> withHistories(List<Child> children) throws JSONException {
+        for (Child child : children) {
+            histories.attachTo(child);
+        }
+        return children;
+    }
+
+    static Child childFrom(Cursor cursor) throws JSONException {
         int contentColumnIndex = cursor.getColumnIndex(content.getColumnName());
         int syncedColumnIndex = cursor.getColumnIndex(synced.getColumnName());
 
         return new Child(cursor.getString(contentColumnIndex), BooleanColumn.from(cursor.getString(syncedColumnIndex)).toBoolean());
     }
 
+    // A summary is only missing if it could not be built when it should have been, so it is built here but not stored
+    private List<ChildSummary> toSummaries(Cursor cursor) throws JSONException {
+        List<ChildSummary> childSummaries = new ArrayList<ChildSummary>();
+        while (cursor.moveToNext()) {
+            String childSummary = cursor.getString(cursor.getColumnIndex(summary.getColumnName()));
+            if (childSummary == null) {
+                childSummary = getSummaries().summaryOf(get(cursor.getString(cursor.getColumnIndex(id.getColumnName()))));
+            }
+            boolean isSynced = BooleanColumn.from(cursor.getString(cursor.getColumnIndex(synced.getColumnName()))).toBoolean();
+            childSummaries.add(new ChildSummary(childSummary, isSynced));
+        }
+        return childSummaries;
+    }
+
+    protected FormService getFormService() {
+        if (formService == null) {
+            formService = applicationInstance.getBean(FormService.class);
+        }
+        return formService;
+    }
+
+    protected ChildSummaries getSummaries() {
+        if (summaries == null) {
+            summaries = ChildSummaries.of(getFormService());
+        }
+        return summaries;
+    }
+
+    protected ChildSearchIndex getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new ChildSearchIndex(statements, getFormService().getHighlightedFields(Child.CHILD_FORM_NAME));
+        }
+        return searchIndex;
+    }
+
     protected String getTimeStamp() {
         return RapidFtrDateTime.now().defaultFormat();
     }
@@ -188,29 +318,19 @@ public class ChildRepository implements Repository<Child> {
         return children;
     }
 
-    public List<Child> getAllWithInternalIds(List<String> internalIds) throws JSONException {
-        List<Child> children = new ArrayList<Child>();
-        for (String internalId : internalIds) {
-            @Cleanup Cursor cursor = session.rawQuery("SELECT child_json, synced FROM children WHERE _id = ?", new String[]{internalId});
-            if (cursor.moveToNext())
-                children.add(childFrom(cursor));
-        }
-        return children;
-    }
-
     public List<Child> getFirstPageOfChildrenMatchingString(String searchKey) throws JSONException {
         paginatedSearchQueryBuilder = new PaginatedSearchQueryBuilder(
                 applicationInstance, searchKey);
-        @Cleanup Cursor cursor = session.rawQuery(paginatedSearchQueryBuilder.queryForMatchingChildrenFirstPage(), null);
+        @Cleanup Cursor cursor = session.rawQuery(paginatedSearchQueryBuilder.queryForMatchingChildrenFirstPage(),
+                paginatedSearchQueryBuilder.argumentsForFirstPage());
         return toChildren(cursor);
     }
 
     public List<Child> getChildrenMatchingStringBetween(
             String searchKey, int fromPageNumber, int toPageNumber) throws JSONException {
         paginatedSearchQueryBuilder = new PaginatedSearchQueryBuilder(applicationInstance, searchKey);
-        Log.d("QUERY LIMIT", paginatedSearchQueryBuilder.queryForMatchingChildrenBetweenPages(fromPageNumber, toPageNumber));
-        @Cleanup Cursor cursor = session.rawQuery(paginatedSearchQueryBuilder.queryForMatchingChildrenBetweenPages(
-                fromPageNumber, toPageNumber), null);
+        @Cleanup Cursor cursor = session.rawQuery(paginatedSearchQueryBuilder.queryForMatchingChildrenBetweenPages(),
+                paginatedSearchQueryBuilder.argumentsBetweenPages(fromPageNumber, toPageNumber));
         return toChildren(cursor);
     }
 }
@@ -0,0 +1,108 @@
+package com.rapidftr.repository;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import com.google.common.base.Joiner;
+import com.rapidftr.database.Database;
+import com.rapidftr.database.DatabaseSession;
+import com.rapidftr.database.StatementCache;
+import com.rapidftr.forms.FormField;
+import com.rapidftr.model.Child;
+import lombok.Cleanup;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static com.rapidftr.database.Database.ChildSearchTableColumn.*;
+
+/*
+ * Full-text (fts3) index over the short id and highlighted fields of each child, kept in step with the children table by ChildRepository.
+ * The whole index is rebuilt at the first login after the v003 migration creates it, and by FormService when a download
+ * changes the highlighted fields.
+ * Index rows share their docid with the rowid of the child, so a search is a single MATCH followed by a rowid join.
+ *
+ * FTS can only match whole tokens or token prefixes, so every suffix of a token is indexed too: the prefix query "hild1*"
+ * then finds "child1" just as LIKE '%hild1%' did. Whole tokens sit in both columns, so a match at the start of a word
+ * counts twice when results are ranked by the number of matches.
+ */
+public class ChildSearchIndex {
+
+    public static final String RANK = "length(offsets(children_search)) - length(replace(offsets(children_search), ' ', ''))";
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final StatementCache statements;
+    private final List<FormField> searchableFields;
+
+    public ChildSearchIndex(StatementCache statements, List<FormField> searchableFields) {
+        this.statements = statements;
+        this.searchableFields = searchableFields;
+    }
+
+    public void add(long rowId, Child child) throws JSONException {
+        List<String> tokens = tokenize(searchableText(child));
+        ContentValues values = new ContentValues();
+        values.put(docid.getColumnName(), rowId);
+        values.put(terms.getColumnName(), Joiner.on(' ').join(tokens));
+        values.put(suffixes.getColumnName(), Joiner.on(' ').join(suffixesOf(tokens)));
+        statements.insertOrReplace(Database.child_search.getTableName(), values);
+    }
+
+    /*
+     * Indexes every child again from its child_json, just as add() does when a child is saved.
+     */
+    public void rebuild(DatabaseSession session) throws JSONException {
+        statements.execute("DELETE FROM children_search");
+        @Cleanup Cursor cursor = session.rawQuery("SELECT rowid, child_json FROM children", new String[]{});
+        while (cursor.moveToNext()) {
+            add(cursor.getLong(0), new Child(cursor.getString(1)));
+        }
+    }
+
+    public void remove(String childId) {
+        statements.execute("DELETE FROM children_search WHERE docid IN (SELECT rowid FROM children WHERE id = ?)", childId);
+    }
+
+    public void removeByOwner(String owner) {
+        statements.execute("DELETE FROM children_search WHERE docid IN (SELECT rowid FROM children WHERE child_owner = ?)", owner);
+    }
+
+    public static String matchExpression(String searchKey) {
+        List<String> prefixes = new ArrayList<String>();
+        for (String token : tokenize(searchKey)) {
+            prefixes.add(token + "*");
+        }
+        return Joiner.on(" OR ").join(prefixes);
+    }
+
+    private String searchableText(Child child) throws JSONException {
+        StringBuilder text = new StringBuilder(child.getShortId() == null ? "" : child.getShortId());
+        for (FormField field : searchableFields) {
+            text.append(' ').append(child.optString(field.getId()));
+        }
+        return text.toString();
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<String>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ENGLISH))) {
+            if (token.length() > 0) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> suffixesOf(List<String> tokens) {
+        List<String> suffixes = new ArrayList<String>();
+        for (String token : tokens) {
+            for (int i = 0; i < token.length(); i++) {
+                suffixes.add(token.substring(i));
+            }
+        }
+        return suffixes;
+    }
+}
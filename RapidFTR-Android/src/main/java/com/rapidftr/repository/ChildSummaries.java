@@ -0,0 +1,63 @@
+package com.rapidftr.repository;
+
+import android.database.Cursor;
+import com.rapidftr.database.DatabaseSession;
+import com.rapidftr.database.StatementCache;
+import com.rapidftr.forms.FormField;
+import com.rapidftr.model.Child;
+import com.rapidftr.service.FormService;
+import lombok.Cleanup;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.rapidftr.database.Database.ChildTableColumn.created_at;
+import static com.rapidftr.database.Database.ChildTableColumn.unique_identifier;
+
+/*
+ * Builds the summary column of the children table from the title and highlighted fields of the child form.
+ * Summaries are written with every child, and rebuilt for every child at the first login after the v003 migration and
+ * by FormService when a download changes those fields, so listing children never writes.
+ */
+public class ChildSummaries {
+
+    public static final String CURRENT_PHOTO_KEY = "current_photo_key";
+
+    private final List<FormField> summaryFields;
+
+    public ChildSummaries(List<FormField> summaryFields) {
+        this.summaryFields = summaryFields;
+    }
+
+    public static ChildSummaries of(FormService formService) {
+        List<FormField> summaryFields = new ArrayList<FormField>(formService.getTitleFields(Child.CHILD_FORM_NAME));
+        summaryFields.addAll(formService.getHighlightedFields(Child.CHILD_FORM_NAME));
+        return new ChildSummaries(summaryFields);
+    }
+
+    public String summaryOf(Child child) throws JSONException {
+        JSONObject summary = new JSONObject();
+        summary.put(unique_identifier.getColumnName(), child.getUniqueId());
+        summary.putOpt(created_at.getColumnName(), child.opt(created_at.getColumnName()));
+        summary.putOpt(CURRENT_PHOTO_KEY, child.opt(CURRENT_PHOTO_KEY));
+        for (FormField field : summaryFields) {
+            summary.putOpt(field.getId(), child.opt(field.getId()));
+        }
+        return summary.toString();
+    }
+
+    public void rebuild(DatabaseSession session, StatementCache statements) throws JSONException {
+        Map<String, String> summaries = new HashMap<String, String>();
+        @Cleanup Cursor cursor = session.rawQuery("SELECT id, child_json FROM children", new String[]{});
+        while (cursor.moveToNext()) {
+            summaries.put(cursor.getString(0), summaryOf(new Child(cursor.getString(1))));
+        }
+        for (Map.Entry<String, String> summary : summaries.entrySet()) {
+            statements.execute("UPDATE children SET summary = ? WHERE id = ?", summary.getValue(), summary.getKey());
+        }
+    }
+}
@@ -2,24 +2,27 @@ package com.rapidftr.repository;
 
 import android.content.ContentValues;
 import android.database.Cursor;
-import android.util.Log;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.adapter.pagination.ViewAllChildrenPaginatedScrollListener;
 import com.rapidftr.database.Database;
 import com.rapidftr.database.DatabaseSession;
+import com.rapidftr.database.StatementCache;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.Enquiry;
 import com.rapidftr.model.History;
 import com.rapidftr.model.User;
 import com.rapidftr.utils.RapidFtrDateTime;
 import lombok.Cleanup;
+import lombok.Setter;
+import org.json.JSONArray;
 import org.json.JSONException;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
@@ -31,29 +34,61 @@ public class EnquiryRepository implements Closeable, Repository<Enquiry> {
 
     private final String userName;
     private final DatabaseSession session;
+    private final StatementCache statements;
+    private final RecordHistories histories;
+    @Setter
+    private int batchSize = BatchedWrites.DEFAULT_BATCH_SIZE;
 
     @Inject
     public EnquiryRepository(@Named("USER_NAME") String userName, DatabaseSession session) {
         this.userName = userName;
         this.session = session;
+        this.statements = new StatementCache(session);
+        this.histories = new RecordHistories(session, statements);
     }
 
     @Override
     public void createOrUpdate(Enquiry enquiry) throws JSONException {
+        History history;
         if (exists(enquiry.getUniqueId())) {
             Enquiry existingEnquiry = get(enquiry.getUniqueId());
-            enquiry.addHistory(History.buildHistoryBetween(existingEnquiry, enquiry));
+            history = History.buildHistoryBetween(existingEnquiry, enquiry);
         } else {
             User currentUser = RapidFtrApplication.getApplicationInstance().getCurrentUser();
-            enquiry.addHistory(History.buildCreationHistory(enquiry, currentUser));
+            history = History.buildCreationHistory(enquiry, currentUser);
         }
         enquiry.setLastUpdatedAt(RapidFtrDateTime.now().defaultFormat());
-        createOrUpdateWithoutHistory(enquiry);
+        if (enquiry.has(History.HISTORIES)) {
+            createOrUpdateWithoutHistory(enquiry);
+        } else {
+            session.replaceOrThrow(Database.enquiry.getTableName(), null, getContentValuesFrom(enquiry));
+        }
+        histories.append(enquiry.getUniqueId(), history);
     }
 
     @Override
     public void createOrUpdateWithoutHistory(Enquiry enquiry) throws JSONException {
         session.replaceOrThrow(Database.enquiry.getTableName(), null, getContentValuesFrom(enquiry));
+        histories.replace(enquiry.getUniqueId(), enquiry.optJSONArray(History.HISTORIES));
+    }
+
+    @Override
+    public void attachHistories(Enquiry enquiry) throws JSONException {
+        histories.attachTo(enquiry);
+    }
+
+    public JSONArray getHistories(String enquiryId) throws JSONException {
+        return histories.get(enquiryId);
+    }
+
+    @Override
+    public void createOrUpdateAll(Collection<Enquiry> enquiries) throws JSONException {
+        BatchedWrites.inTransactions(session, enquiries, batchSize, new BatchedWrites.Writer<Enquiry>() {
+            @Override
+            public void write(Enquiry enquiry) throws JSONException {
+                createOrUpdateWithoutHistory(enquiry);
+            }
+        });
     }
 
     protected ContentValues getContentValuesFrom(Enquiry enquiry) throws JSONException {
@@ -61,7 +96,7 @@ public class EnquiryRepository implements Closeable, Repository<Enquiry> {
 
         enquiryValues.put(id.getColumnName(), enquiry.getUniqueId());
         enquiryValues.put(created_by.getColumnName(), enquiry.getCreatedBy());
-        enquiryValues.put(content.getColumnName(), enquiry.getJsonString());
+        enquiryValues.put(content.getColumnName(), RecordHistories.jsonWithoutHistories(enquiry));
         enquiryValues.put(created_at.getColumnName(), enquiry.getCreatedAt());
         enquiryValues.put(unique_identifier.getColumnName(), enquiry.getUniqueId());
         enquiryValues.put(synced.getColumnName(), enquiry.isSynced());
@@ -103,24 +138,27 @@ public class EnquiryRepository implements Closeable, Repository<Enquiry> {
     public List<Enquiry> toBeSynced() throws JSONException {
         @Cleanup Cursor cursor = session.rawQuery("SELECT * FROM enquiry WHERE synced" +
                 " = ?", new String[]{falseValue.getColumnValue()});
-        return toEnquiries(cursor);
+        List<Enquiry> enquiries = toEnquiries(cursor);
+        for (Enquiry enquiry : enquiries) {
+            histories.attachTo(enquiry);
+        }
+        return enquiries;
     }
 
     @Override
     public boolean exists(String id) {
-        @Cleanup Cursor cursor = session.rawQuery("SELECT * FROM enquiry WHERE id = ?", new String[]{id == null ? "" : id});
-        return cursor.moveToNext() && cursor.getCount() > 0;
+        return statements.queryForLong("SELECT COUNT(1) FROM enquiry WHERE id = ?", id == null ? "" : id) > 0;
     }
 
     @Override
     public int size() {
-        @Cleanup Cursor cursor = session.rawQuery("SELECT COUNT(1) FROM enquiry", new String[]{});
-        return cursor.moveToNext() ? cursor.getInt(0) : 0;
+        return (int) statements.queryForLong("SELECT COUNT(1) FROM enquiry");
     }
 
     @Override
     public void close() {
         try {
+            statements.close();
             session.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -141,7 +179,7 @@ public class EnquiryRepository implements Closeable, Repository<Enquiry> {
     }
 
     //TODO move this to the enquiry class
-    private Enquiry buildEnquiry(Cursor cursor) throws JSONException {
+    static Enquiry buildEnquiry(Cursor cursor) throws JSONException {
         int contentColumnIndex = cursor.getColumnIndex(content.getColumnName());
         Enquiry enquiry = new Enquiry(cursor.getString(contentColumnIndex));
         for (Database.EnquiryTableColumn column : Database.EnquiryTableColumn.values()) {
@@ -168,44 +206,17 @@ public class EnquiryRepository implements Closeable, Repository<Enquiry> {
         }
     }
 
-    public List<Enquiry> getAllWithInternalIds(List<String> ids) {
-        @Cleanup Cursor cursor = session.rawQuery(buildSelectAllQuery(ids), null);
-        try {
-            return toEnquiries(cursor);
-        } catch (JSONException e) {
-            return new ArrayList<Enquiry>();
-        }
-    }
-
     @Override
     public List<Enquiry> getRecordsForFirstPage() throws JSONException {
-        String sql = String.format(
-                "SELECT enquiry_json, synced FROM enquiry WHERE created_by ='%s' ORDER BY id LIMIT %d",
-                userName, ViewAllChildrenPaginatedScrollListener.FIRST_PAGE);
-        @Cleanup Cursor cursor = session.rawQuery(sql, null);
+        @Cleanup Cursor cursor = session.rawQuery("SELECT enquiry_json, synced FROM enquiry WHERE created_by = ? ORDER BY id LIMIT ?",
+                new String[]{userName, String.valueOf(ViewAllChildrenPaginatedScrollListener.FIRST_PAGE)});
         return toEnquiries(cursor);
     }
 
     @Override
-    public List<Enquiry> getRecordsBetween(int fromPageNumber, int pageNumber) throws JSONException {
-        String sql = String.format(
-                "SELECT enquiry_json, synced FROM enquiry WHERE created_by='%s' ORDER BY id LIMIT %d OFFSET %d",
-                userName, pageNumber - fromPageNumber, pageNumber);
-        Log.d("QUERY LIMIT", sql);
-        @Cleanup Cursor cursor = session.rawQuery(sql, null);
+    public List<Enquiry> getRecordsAfter(String lastId, int pageSize) throws JSONException {
+        @Cleanup Cursor cursor = session.rawQuery("SELECT enquiry_json, synced FROM enquiry WHERE created_by = ? AND id > ? ORDER BY id LIMIT ?",
+                new String[]{userName, lastId == null ? "" : lastId, String.valueOf(pageSize)});
         return toEnquiries(cursor);
     }
-
-    private String buildSelectAllQuery(List<String> ids) {
-        StringBuilder queryBuilder = new StringBuilder();
-        queryBuilder.append("SELECT * from enquiry where _id in (");
-        for(int i = 0; i < ids.size(); i++) {
-            queryBuilder.append("'" + ids.get(i) + "'");
-            if(i < ids.size() - 1) {
-                queryBuilder.append(",");
-            }
-        }
-        queryBuilder.append(")");
-        return queryBuilder.toString();
-    }
 }
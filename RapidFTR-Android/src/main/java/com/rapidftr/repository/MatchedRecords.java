@@ -0,0 +1,44 @@
+package com.rapidftr.repository;
+
+import com.rapidftr.model.BaseModel;
+import lombok.Getter;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Records matched to a child or an enquiry, split by whether the match has been confirmed.
+ * Unique ids of the confirmed ones are kept in a set, so telling whether a record is confirmed doesn't walk a list.
+ */
+@Getter
+public class MatchedRecords<T extends BaseModel> {
+
+    private final List<T> confirmed = new ArrayList<T>();
+    private final List<T> unconfirmed = new ArrayList<T>();
+    private final Set<String> confirmedIds = new HashSet<String>();
+
+    void add(T record, boolean isConfirmed) throws JSONException {
+        if (isConfirmed) {
+            confirmed.add(record);
+            String uniqueId = record.getUniqueId();
+            if (uniqueId != null) {
+                confirmedIds.add(uniqueId);
+            }
+        } else {
+            unconfirmed.add(record);
+        }
+    }
+
+    /*
+     * Confirmed matches first, then the rest.
+     */
+    public List<T> getAll() {
+        List<T> all = new ArrayList<T>(confirmed.size() + unconfirmed.size());
+        all.addAll(confirmed);
+        all.addAll(unconfirmed);
+        return all;
+    }
+}
@@ -1,51 +1,73 @@
 package com.rapidftr.repository;
 
 import com.rapidftr.RapidFtrApplication;
+import com.rapidftr.adapter.pagination.ViewAllChildrenPaginatedScrollListener;
 import org.json.JSONException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class PaginatedSearchQueryBuilder {
 
     private final RapidFtrApplication applicationContext;
-    private final String searchKey;
+    private final String matchExpression;
 
     public PaginatedSearchQueryBuilder(RapidFtrApplication applicationContext, String searchKey) {
         this.applicationContext = applicationContext;
-        this.searchKey = searchKey;
+        this.matchExpression = ChildSearchIndex.matchExpression(searchKey);
     }
 
     public String queryForMatchingChildrenFirstPage() throws JSONException {
-        StringBuilder queryBuilder = buildQuery();
-        return queryBuilder.append(") LIMIT 30").toString();
+        return buildQuery().append(" LIMIT ?").toString();
+    }
+
+    public String[] argumentsForFirstPage() throws JSONException {
+        List<String> arguments = buildArguments();
+        arguments.add(String.valueOf(ViewAllChildrenPaginatedScrollListener.FIRST_PAGE));
+        return arguments.toArray(new String[arguments.size()]);
     }
 
-    public String queryForMatchingChildrenBetweenPages(int fromPageNumber, int toPageNumber) throws JSONException {
-        StringBuilder queryBuilder = buildQuery();
-        return queryBuilder.append(String.format(") LIMIT %d OFFSET %d", toPageNumber - fromPageNumber, toPageNumber)).toString();
+    public String queryForMatchingChildrenBetweenPages() throws JSONException {
+        return buildQuery().append(" LIMIT ? OFFSET ?").toString();
+    }
+
+    public String[] argumentsBetweenPages(int fromPageNumber, int toPageNumber) throws JSONException {
+        List<String> arguments = buildArguments();
+        arguments.add(String.valueOf(toPageNumber - fromPageNumber));
+        arguments.add(String.valueOf(toPageNumber));
+        return arguments.toArray(new String[arguments.size()]);
     }
 
     private StringBuilder buildQuery() throws JSONException {
-        StringBuilder queryBuilder = new StringBuilder("SELECT child_json, synced FROM children WHERE (").append(fetchByOwner());
-        String[] subQueries = searchKey.split("\\s+");
-        queryBuilder.append(subQueries(subQueries));
-        return queryBuilder;
-    }
-
-    private String subQueries(String[] subQueries) {
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < subQueries.length; i++) {
-            builder.append(String.format("child_json LIKE '%%%s%%' OR id LIKE '%%%s%%'", subQueries[i], subQueries[i]));
-            if (i < subQueries.length - 1) {
-                builder.append(" OR ");
-            }
+        if (matchExpression.length() == 0) {
+            return new StringBuilder("SELECT child_json, synced FROM children")
+                    .append(fetchByOwner(" WHERE "))
+                    .append(" ORDER BY id");
         }
-        return builder.toString();
+
+        return new StringBuilder("SELECT children.child_json, children.synced FROM children_search")
+                .append(" JOIN children ON children.rowid = children_search.docid")
+                .append(" WHERE children_search MATCH ?")
+                .append(fetchByOwner(" AND "))
+                .append(" ORDER BY ").append(ChildSearchIndex.RANK).append(" DESC, children.id");
     }
 
-    private String fetchByOwner() throws JSONException {
-        if (!applicationContext.getCurrentUser().isVerified()) {
-            return " child_owner = '" + applicationContext.getCurrentUser().getUserName() + "' AND ";
-        } else {
-            return "";
+    private List<String> buildArguments() throws JSONException {
+        List<String> arguments = new ArrayList<String>();
+        if (matchExpression.length() > 0) {
+            arguments.add(matchExpression);
         }
+        if (!isVerified()) {
+            arguments.add(applicationContext.getCurrentUser().getUserName());
+        }
+        return arguments;
+    }
+
+    private String fetchByOwner(String conjunction) throws JSONException {
+        return isVerified() ? "" : conjunction + "children.child_owner = ?";
+    }
+
+    private boolean isVerified() throws JSONException {
+        return applicationContext.getCurrentUser().isVerified();
     }
 }
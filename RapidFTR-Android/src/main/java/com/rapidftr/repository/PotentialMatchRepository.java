@@ -6,16 +6,19 @@ import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.rapidftr.database.Database;
 import com.rapidftr.database.DatabaseSession;
+import com.rapidftr.database.StatementCache;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.Enquiry;
 import com.rapidftr.model.PotentialMatch;
 import lombok.Cleanup;
+import lombok.Setter;
 import org.json.JSONException;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
@@ -23,18 +26,25 @@ import static com.rapidftr.database.Database.PotentialMatchTableColumn.*;
 
 public class PotentialMatchRepository implements Closeable, Repository<PotentialMatch> {
 
+    private static final String MATCH_CONFIRMED = "match_confirmed";
+
     private final String userName;
     private final DatabaseSession session;
+    private final StatementCache statements;
+    @Setter
+    private int batchSize = BatchedWrites.DEFAULT_BATCH_SIZE;
 
     @Inject
     public PotentialMatchRepository(@Named("USER_NAME") String userName, DatabaseSession session) {
         this.userName = userName;
         this.session = session;
+        this.statements = new StatementCache(session);
     }
 
     @Override
     public void close() {
         try {
+            statements.close();
             session.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -48,9 +58,7 @@ public class PotentialMatchRepository implements Closeable, Repository<Potential
 
     @Override
     public boolean exists(String id) {
-        String dbId = (id == null ? "" : id);
-        @Cleanup Cursor cursor = session.rawQuery("SELECT * FROM potential_match WHERE id = ?", new String[]{dbId});
-        return cursor.moveToNext() && cursor.getCount() > 0;
+        return statements.queryForLong("SELECT COUNT(1) FROM potential_match WHERE id = ?", id == null ? "" : id) > 0;
     }
 
     @Override
@@ -91,12 +99,26 @@ public class PotentialMatchRepository implements Closeable, Repository<Potential
             values.put(revision.getColumnName(), potentialMatch.getRevision());
             values.put(confirmed.getColumnName(), potentialMatch.isConfirmed().toString());
 
-            session.replaceOrThrow(Database.potential_match.getTableName(), null, values);
+            statements.insertOrReplace(Database.potential_match.getTableName(), values);
         }
     }
 
+    @Override
+    public void createOrUpdateAll(Collection<PotentialMatch> potentialMatches) throws JSONException {
+        BatchedWrites.inTransactions(session, potentialMatches, batchSize, new BatchedWrites.Writer<PotentialMatch>() {
+            @Override
+            public void write(PotentialMatch potentialMatch) throws JSONException {
+                createOrUpdateWithoutHistory(potentialMatch);
+            }
+        });
+    }
+
+    @Override
+    public void attachHistories(PotentialMatch potentialMatch) {
+    }
+
     public void delete(PotentialMatch potentialMatch) {
-        session.execSQL(String.format("DELETE FROM potential_match WHERE id ='%s'", potentialMatch.getUniqueId()));
+        statements.execute("DELETE FROM potential_match WHERE id = ?", potentialMatch.getUniqueId());
     }
 
     @Override
@@ -115,7 +137,7 @@ public class PotentialMatchRepository implements Closeable, Repository<Potential
     }
 
     @Override
-    public List<PotentialMatch> getRecordsBetween(int previousPageNumber, int pageNumber) {
+    public List<PotentialMatch> getRecordsAfter(String lastId, int pageSize) {
         return null;
     }
 
@@ -124,28 +146,38 @@ public class PotentialMatchRepository implements Closeable, Repository<Potential
         return null;
     }
 
-    public List<PotentialMatch> getPotentialMatchesFor(Enquiry enquiry) throws JSONException {
+    /*
+     * Children matched to the enquiry and whether each match is confirmed, in one join over the indexed ids.
+     */
+    public MatchedRecords<Child> getMatchingChildren(Enquiry enquiry) throws JSONException {
+        MatchedRecords<Child> children = new MatchedRecords<Child>();
         if (enquiry.getInternalId() == null) {
-            return new ArrayList<PotentialMatch>();
+            return children;
+        }
+        @Cleanup Cursor cursor = session.rawQuery("SELECT c.child_json, c.synced, m.confirmed AS match_confirmed FROM potential_match m " +
+                "JOIN children c ON c._id = m.child_id WHERE m.enquiry_id = ? ORDER BY m.rowid", new String[]{enquiry.getInternalId()});
+        int confirmedIndex = cursor.getColumnIndex(MATCH_CONFIRMED);
+        while (cursor.moveToNext()) {
+            children.add(ChildRepository.childFrom(cursor), Boolean.valueOf(cursor.getString(confirmedIndex)));
         }
-        @Cleanup Cursor cursor = session.rawQuery("SELECT * FROM potential_match WHERE enquiry_id = ?", new String[]{enquiry.getInternalId()});
-        return buildPotentialMatches(cursor);
+        return children;
     }
 
-    public List<PotentialMatch> getPotentialMatchesFor(Child child) throws JSONException {
+    /*
+     * Enquiries matched to the child and whether each match is confirmed, in one join over the indexed ids.
+     */
+    public MatchedRecords<Enquiry> getMatchingEnquiries(Child child) throws JSONException {
+        MatchedRecords<Enquiry> enquiries = new MatchedRecords<Enquiry>();
         if (child.getInternalId() == null) {
-            return new ArrayList<PotentialMatch>();
+            return enquiries;
         }
-        @Cleanup Cursor cursor = session.rawQuery("SELECT * FROM potential_match WHERE child_id = ?", new String[]{child.getInternalId()});
-        return buildPotentialMatches(cursor);
-    }
-
-    private ArrayList<PotentialMatch> buildPotentialMatches(Cursor cursor) {
-        ArrayList<PotentialMatch> potentialMatches = new ArrayList<PotentialMatch>();
+        @Cleanup Cursor cursor = session.rawQuery("SELECT e.*, m.confirmed AS match_confirmed FROM potential_match m " +
+                "JOIN enquiry e ON e._id = m.enquiry_id WHERE m.child_id = ? ORDER BY m.rowid", new String[]{child.getInternalId()});
+        int confirmedIndex = cursor.getColumnIndex(MATCH_CONFIRMED);
         while (cursor.moveToNext()) {
-            potentialMatches.add(buildPotentialMatch(cursor));
+            enquiries.add(EnquiryRepository.buildEnquiry(cursor), Boolean.valueOf(cursor.getString(confirmedIndex)));
         }
-        return potentialMatches;
+        return enquiries;
     }
 
     private PotentialMatch buildPotentialMatch(Cursor cursor) {
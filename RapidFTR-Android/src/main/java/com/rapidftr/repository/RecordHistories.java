@@ -0,0 +1,89 @@
+package com.rapidftr.repository;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import com.rapidftr.database.Database;
+import com.rapidftr.database.DatabaseSession;
+import com.rapidftr.database.StatementCache;
+import com.rapidftr.model.BaseModel;
+import com.rapidftr.model.History;
+import lombok.Cleanup;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import static com.rapidftr.database.Database.HistoryTableColumn.content;
+import static com.rapidftr.database.Database.HistoryTableColumn.record_id;
+
+/*
+ * Histories of children and enquiries, one row per history in the history table rather than an ever growing array in the record json.
+ * Saving a record appends its new history instead of re-serialising all earlier ones, and records are read without their histories.
+ * Histories are only attached to a record when it is about to be sent to the server, which expects them inside the record json.
+ */
+public class RecordHistories {
+
+    private final DatabaseSession session;
+    private final StatementCache statements;
+
+    public RecordHistories(DatabaseSession session, StatementCache statements) {
+        this.session = session;
+        this.statements = statements;
+    }
+
+    public void append(String recordId, History history) throws JSONException {
+        boolean meaningfulHistory = history.has(History.CHANGES) && history.get(History.CHANGES) != null;
+        if (meaningfulHistory) {
+            insert(recordId, history.toString());
+        }
+    }
+
+    /*
+     * A record without a histories array leaves its stored histories as they are; an empty array clears them.
+     */
+    public void replace(String recordId, JSONArray histories) throws JSONException {
+        if (histories == null) {
+            return;
+        }
+        remove(recordId);
+        for (int i = 0; i < histories.length(); i++) {
+            insert(recordId, histories.get(i).toString());
+        }
+    }
+
+    public void remove(String recordId) {
+        statements.execute("DELETE FROM history WHERE record_id = ?", recordId);
+    }
+
+    public JSONArray get(String recordId) throws JSONException {
+        JSONArray histories = new JSONArray();
+        @Cleanup Cursor cursor = session.rawQuery("SELECT history_json FROM history WHERE record_id = ? ORDER BY id", new String[]{recordId});
+        while (cursor.moveToNext()) {
+            histories.put(new History(cursor.getString(0)));
+        }
+        return histories;
+    }
+
+    public void attachTo(BaseModel model) throws JSONException {
+        JSONArray histories = get(model.getUniqueId());
+        if (histories.length() > 0) {
+            model.put(History.HISTORIES, histories);
+        }
+    }
+
+    public static String jsonWithoutHistories(BaseModel model) {
+        Object histories = model.remove(History.HISTORIES);
+        try {
+            return model.getJsonString();
+        } finally {
+            if (histories != null) {
+                model.put(History.HISTORIES, histories);
+            }
+        }
+    }
+
+    private void insert(String recordId, String history) {
+        ContentValues values = new ContentValues();
+        values.put(record_id.getColumnName(), recordId);
+        values.put(content.getColumnName(), history);
+        statements.insertOrReplace(Database.history.getTableName(), values);
+    }
+}
@@ -6,6 +6,7 @@ import org.json.JSONException;
 
 import java.io.Closeable;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
@@ -25,13 +26,17 @@ public interface Repository<T extends BaseModel> extends Closeable {
 
     public void createOrUpdateWithoutHistory(T t) throws JSONException;
 
+    public void createOrUpdateAll(Collection<T> records) throws JSONException;
+
+    public void attachHistories(T record) throws JSONException;
+
     public List<T> currentUsersUnsyncedRecords() throws JSONException;
 
     public List<String> getRecordIdsByOwner() throws JSONException;
 
     public List<T> allCreatedByCurrentUser() throws JSONException;
 
-    public List<T> getRecordsBetween(int previousPageNumber, int pageNumber) throws JSONException;
+    public List<T> getRecordsAfter(String lastId, int pageSize) throws JSONException;
 
     public List<T> getRecordsForFirstPage() throws JSONException;
 }
@@ -32,7 +32,7 @@ public class ChildSyncService implements SyncService<Child> {
         this.context = context;
         this.childRepository = childRepository;
         this.childEntityHttpDao = childHttpDao;
-        this.mediaSyncHelper = new MediaSyncHelper(childEntityHttpDao, context);
+        this.mediaSyncHelper = new MediaSyncHelper(context);
     }
 
     @Override
@@ -68,6 +68,11 @@ public class ChildSyncService implements SyncService<Child> {
         return context.getString(R.string.child_sync_title);
     }
 
+    @Override
+    public void close() throws IOException {
+        childRepository.close();
+    }
+
     @Override
     public void setLastSyncedAt() {
         RapidFtrApplication.getApplicationInstance()
@@ -84,11 +89,25 @@ public class ChildSyncService implements SyncService<Child> {
         return child;
     }
 
+    @Override
+    public List<Child> getUpdatedRecords(DateTime updatedAfter, int page, int perPage) throws IOException, JSONException, HttpException {
+        List<Child> children = childEntityHttpDao.getUpdatedRecords(updatedAfter, page, perPage);
+        if (children != null) {
+            for (Child child : children) {
+                GenericSyncService.setAttributes(child);
+            }
+        }
+        return children;
+    }
+
     public List<String> getIdsToDownload() throws IOException, JSONException, HttpException {
+        return childEntityHttpDao.getUpdatedResourceUrls(getLastSyncedAt());
+    }
+
+    @Override
+    public DateTime getLastSyncedAt() {
         // Default value is currently epoch
-        long lastUpdateMillis = context.getSharedPreferences().getLong(RapidFtrApplication.LAST_CHILD_SYNC, 0);
-        DateTime lastUpdate = new DateTime(lastUpdateMillis);
-        return childEntityHttpDao.getUpdatedResourceUrls(lastUpdate);
+        return new DateTime(context.getSharedPreferences().getLong(RapidFtrApplication.LAST_CHILD_SYNC, 0));
     }
 
 }
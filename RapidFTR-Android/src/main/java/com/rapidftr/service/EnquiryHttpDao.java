@@ -1,21 +1,20 @@
 package com.rapidftr.service;
 
-import com.google.common.io.CharStreams;
 import com.google.inject.Inject;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.model.Enquiry;
+import com.rapidftr.utils.JSONStreams;
 import com.rapidftr.utils.http.FluentResponse;
+import lombok.Cleanup;
 import org.apache.http.HttpException;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormat;
-import org.json.JSONArray;
 import org.json.JSONException;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.URLEncoder;
-import java.util.ArrayList;
 import java.util.List;
 
 import static com.rapidftr.utils.http.FluentRequest.http;
@@ -46,8 +45,7 @@ public class EnquiryHttpDao {
                 .host(url)
                 .get()
                 .ensureSuccess();
-        String enquiryJSON = CharStreams.toString(new InputStreamReader(fluentResponse.getEntity().getContent()));
-        return new Enquiry(enquiryJSON);
+        return readEnquiry(fluentResponse);
     }
 
     public Enquiry update(Enquiry enquiry) throws JSONException, IOException, HttpException {
@@ -58,8 +56,7 @@ public class EnquiryHttpDao {
                 .param(ENQUIRY_FORM_PARAMETER, enquiry.values().toString())
                 .putWithMultiPart()
                 .ensureSuccess();
-        String json = CharStreams.toString(new InputStreamReader(fluentResponse.getEntity().getContent()));
-        return new Enquiry(json);
+        return readEnquiry(fluentResponse);
     }
 
     public List<String> getIdsOfUpdated(DateTime lastUpdate) throws IOException, JSONException, HttpException {
@@ -69,13 +66,8 @@ public class EnquiryHttpDao {
                 .param(UPDATED_AFTER_FORM_PARAMETER, URLEncoder.encode(utcString, CHARACTER_SET))
                 .get()
                 .ensureSuccess();
-        String json = CharStreams.toString(new InputStreamReader(fluentResponse.getEntity().getContent()));
-        JSONArray jsonArray = new JSONArray(json);
-        List<String> urls = new ArrayList<String>();
-        for (int i = 0; i < jsonArray.length(); i++) {
-            urls.add(jsonArray.getJSONObject(i).getString(LOCATION_ATTRIBUTE));
-        }
-        return urls;
+        @Cleanup InputStream content = fluentResponse.getEntity().getContent();
+        return JSONStreams.readFieldOfEach(content, LOCATION_ATTRIBUTE);
     }
 
     public Enquiry create(Enquiry enquiry) throws IOException, HttpException, JSONException {
@@ -85,7 +77,11 @@ public class EnquiryHttpDao {
                 .param(ENQUIRY_FORM_PARAMETER, enquiry.getJsonString())
                 .post()
                 .ensureSuccess();
-        String json = CharStreams.toString(new InputStreamReader(fluentResponse.getEntity().getContent()));
-        return new Enquiry(json);
+        return readEnquiry(fluentResponse);
+    }
+
+    private Enquiry readEnquiry(FluentResponse fluentResponse) throws IOException, JSONException {
+        @Cleanup InputStream content = fluentResponse.getEntity().getContent();
+        return new Enquiry(JSONStreams.readObject(content));
     }
 }
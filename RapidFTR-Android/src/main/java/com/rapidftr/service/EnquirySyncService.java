@@ -40,7 +40,7 @@ public class EnquirySyncService implements SyncService<Enquiry> {
         this.sharedPreferences = rapidFtrApplication.getSharedPreferences();
         this.enquiryHttpDao = enquiryHttpDao;
         this.enquiryRepository = enquiryRepository;
-        this.mediaSyncHelper = new MediaSyncHelper(enquiryHttpDao, rapidFtrApplication);
+        this.mediaSyncHelper = new MediaSyncHelper(rapidFtrApplication);
     }
 
     @Override
@@ -52,19 +52,36 @@ public class EnquirySyncService implements SyncService<Enquiry> {
 
     @Override
     public Enquiry getRecord(String url) throws IOException, JSONException, HttpException {
-        Enquiry enquiry = enquiryHttpDao.get(url);
-        enquiry.setSynced(true);
-        enquiry.setLastUpdatedAt(RapidFtrDateTime.now().defaultFormat());
-        enquiry.remove(Enquiry.FIELD_ATTACHMENTS);
+        return setAttributes(enquiryHttpDao.get(url));
+    }
 
-        return enquiry;
+    @Override
+    public List<Enquiry> getUpdatedRecords(DateTime updatedAfter, int page, int perPage) throws IOException, JSONException, HttpException {
+        List<Enquiry> enquiries = enquiryHttpDao.getUpdatedRecords(updatedAfter, page, perPage);
+        if (enquiries != null) {
+            for (Enquiry enquiry : enquiries) {
+                setAttributes(enquiry);
+            }
+        }
+        return enquiries;
     }
 
     @Override
     public List<String> getIdsToDownload() throws IOException, JSONException, HttpException {
-        long lastUpdateMillis = sharedPreferences.getLong(RapidFtrApplication.LAST_ENQUIRY_SYNC, 0);  // Default value is currently epoch
-        DateTime lastUpdate = new DateTime(lastUpdateMillis);
-        return enquiryHttpDao.getUpdatedResourceUrls(lastUpdate);
+        return enquiryHttpDao.getUpdatedResourceUrls(getLastSyncedAt());
+    }
+
+    @Override
+    public DateTime getLastSyncedAt() {
+        return new DateTime(sharedPreferences.getLong(RapidFtrApplication.LAST_ENQUIRY_SYNC, 0));  // Default value is currently epoch
+    }
+
+    private Enquiry setAttributes(Enquiry enquiry) throws JSONException {
+        enquiry.setSynced(true);
+        enquiry.setLastUpdatedAt(RapidFtrDateTime.now().defaultFormat());
+        enquiry.remove(Enquiry.FIELD_ATTACHMENTS);
+
+        return enquiry;
     }
 
     @Override
@@ -83,6 +100,11 @@ public class EnquirySyncService implements SyncService<Enquiry> {
         return RapidFtrApplication.getApplicationInstance().getString(R.string.enquires_sync_title);
     }
 
+    @Override
+    public void close() throws IOException {
+        enquiryRepository.close();
+    }
+
     @Override
     public void setLastSyncedAt() {
         RapidFtrApplication.getApplicationInstance()
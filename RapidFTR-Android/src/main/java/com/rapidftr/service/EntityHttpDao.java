@@ -1,21 +1,22 @@
 package com.rapidftr.service;
 
 import android.util.Log;
-import com.google.common.io.CharStreams;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.model.BaseModel;
+import com.rapidftr.utils.JSONStreams;
 import com.rapidftr.utils.http.FluentRequest;
 import com.rapidftr.utils.http.FluentResponse;
 import org.apache.http.HttpException;
+import org.apache.http.HttpStatus;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormat;
-import org.json.JSONArray;
+import lombok.Cleanup;
 import org.json.JSONException;
+import org.json.JSONObject;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.lang.reflect.ParameterizedType;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -30,6 +31,9 @@ public class EntityHttpDao<T extends BaseModel> {
     private static final String UPDATED_AFTER_FORM_PARAMETER = "updated_after";
     private static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss";
     private static final String LOCATION_ATTRIBUTE = "location";
+    private static final String CHANGES_PATH = "/changes";
+    private static final String PAGE_PARAMETER = "page";
+    private static final String PER_PAGE_PARAMETER = "per_page";
 
     protected String serverUrl;
     protected String apiPath;
@@ -53,59 +57,79 @@ public class EntityHttpDao<T extends BaseModel> {
                 .get()
                 .ensureSuccess();
 
-        return buildEntityFromJson(getJsonResponse(fluentResponse));
-    }
-
-    public InputStream getResourceStream(String resourcePath) throws IOException {
-        FluentResponse fluentResponse = http()
-                .context(RapidFtrApplication.getApplicationInstance())
-                .path(resourcePath)
-                .get();
-
-        return fluentResponse.getEntity().getContent();
+        return buildEntityFromJson(readJsonResponse(fluentResponse));
     }
 
     public T update(T entity, String path, Map<String, String> requestParameters) throws IOException, HttpException {
-        FluentRequest fluentRequest = http()
-                .context(RapidFtrApplication.getApplicationInstance())
-                .path(path)
-                .param(apiParameter, entity.getJsonString());
+        FluentResponse fluentResponse = multiPartRequest(entity.getJsonString(), path, requestParameters).putWithMultiPart().ensureSuccess();
+        return buildEntityFromJson(readJsonResponse(fluentResponse));
+    }
 
-        if (requestParameters != null && requestParameters.size() > 0) {
-            Iterator<String> keys = requestParameters.keySet().iterator();
-            while (keys.hasNext()) {
-                String key = keys.next();
-                fluentRequest.param(key, requestParameters.get(key));
+    /*
+     * Sends only the given fields of a record, which carry the _rev they were edited from. Returns null when the server
+     * answers 409 Conflict because the record changed there since, so the caller can fall back to a full update.
+     */
+    public T updateFields(JSONObject fields, String path, Map<String, String> requestParameters) throws IOException, HttpException {
+        FluentResponse fluentResponse = multiPartRequest(fields.toString(), path, requestParameters).putWithMultiPart();
+        if (fluentResponse.getStatusLine().getStatusCode() == HttpStatus.SC_CONFLICT) {
+            if (fluentResponse.getEntity() != null) {
+                fluentResponse.getEntity().consumeContent();
             }
+            return null;
         }
-
-        FluentResponse fluentResponse = fluentRequest.putWithMultiPart().ensureSuccess();
-        return buildEntityFromJson(getJsonResponse(fluentResponse));
+        return buildEntityFromJson(readJsonResponse(fluentResponse.ensureSuccess()));
     }
 
     public List<String> getUpdatedResourceUrls(DateTime lastUpdate) throws IOException, HttpException, JSONException {
-        String utcString = new StringBuilder(DateTimeFormat.forPattern(DATE_PATTERN).withZone(DateTimeZone.UTC).print(lastUpdate)).append("UTC").toString();
         final FluentResponse fluentResponse = http()
                 .context(RapidFtrApplication.getApplicationInstance())
                 .host(serverUrl)
                 .path(apiPath)
-                .param(UPDATED_AFTER_FORM_PARAMETER, utcString)
+                .param(UPDATED_AFTER_FORM_PARAMETER, toUtcString(lastUpdate))
                 .get()
                 .ensureSuccess();
-        String json = getJsonResponse(fluentResponse);
-        JSONArray jsonArray = new JSONArray(json);
-        List<String> urls = new ArrayList<String>();
-        for (int i = 0; i < jsonArray.length(); i++) {
-            urls.add(jsonArray.getJSONObject(i).getString(LOCATION_ATTRIBUTE));
+        @Cleanup InputStream content = fluentResponse.getEntity().getContent();
+        return JSONStreams.readFieldOfEach(content, LOCATION_ATTRIBUTE);
+    }
+
+    /*
+     * Fetches one page of the full records updated after lastUpdate, rather than one request per resource url.
+     * Returns null when the server has no changes endpoint, so callers can fall back to getUpdatedResourceUrls and get.
+     */
+    public List<T> getUpdatedRecords(DateTime lastUpdate, int page, int perPage) throws IOException, HttpException, JSONException {
+        final FluentResponse fluentResponse = http()
+                .context(RapidFtrApplication.getApplicationInstance())
+                .host(serverUrl)
+                .path(apiPath + CHANGES_PATH)
+                .param(UPDATED_AFTER_FORM_PARAMETER, toUtcString(lastUpdate))
+                .param(PAGE_PARAMETER, String.valueOf(page))
+                .param(PER_PAGE_PARAMETER, String.valueOf(perPage))
+                .get();
+        if (fluentResponse.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+            if (fluentResponse.getEntity() != null) {
+                fluentResponse.getEntity().consumeContent();
+            }
+            return null;
         }
-        return urls;
+
+        @Cleanup InputStream content = fluentResponse.ensureSuccess().getEntity().getContent();
+        List<T> records = new ArrayList<T>();
+        for (JSONObject json : JSONStreams.readObjects(content)) {
+            records.add(buildEntityFromJson(json));
+        }
+        return records;
     }
 
     public T create(T entity, String path, Map<String, String> requestParameters) throws IOException, HttpException {
+        FluentResponse fluentResponse = multiPartRequest(entity.getJsonString(), path, requestParameters).postWithMultiPart().ensureSuccess();
+        return buildEntityFromJson(readJsonResponse(fluentResponse));
+    }
+
+    private FluentRequest multiPartRequest(String json, String path, Map<String, String> requestParameters) {
         FluentRequest fluentRequest = http()
                 .context(RapidFtrApplication.getApplicationInstance())
                 .path(path)
-                .param(apiParameter, entity.getJsonString());
+                .param(apiParameter, json);
 
         if (requestParameters != null && requestParameters.size() > 0) {
             Iterator<String> keys = requestParameters.keySet().iterator();
@@ -114,13 +138,20 @@ public class EntityHttpDao<T extends BaseModel> {
                 fluentRequest.param(key, requestParameters.get(key));
             }
         }
+        return fluentRequest;
+    }
 
-        FluentResponse fluentResponse = fluentRequest.postWithMultiPart().ensureSuccess();
-        return buildEntityFromJson(getJsonResponse(fluentResponse));
+    protected JSONObject readJsonResponse(FluentResponse fluentResponse) throws IOException {
+        @Cleanup InputStream content = fluentResponse.getEntity().getContent();
+        try {
+            return JSONStreams.readObject(content);
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
     }
 
-    protected String getJsonResponse(FluentResponse fluentResponse) throws IOException {
-        return CharStreams.toString(new InputStreamReader(fluentResponse.getEntity().getContent()));
+    private String toUtcString(DateTime dateTime) {
+        return new StringBuilder(DateTimeFormat.forPattern(DATE_PATTERN).withZone(DateTimeZone.UTC).print(dateTime)).append("UTC").toString();
     }
 
     private String buildUpdatePath(T entity) {
@@ -131,9 +162,9 @@ public class EntityHttpDao<T extends BaseModel> {
         return builder.toString();
     }
 
-    protected T buildEntityFromJson(String jsonResponse) {
+    protected T buildEntityFromJson(JSONObject jsonResponse) {
         try {
-            return (T) getGenericParameterClass().getConstructor(String.class).newInstance(jsonResponse);
+            return (T) getGenericParameterClass().getConstructor(JSONObject.class).newInstance(jsonResponse);
         } catch (Exception e) {
             Log.e(null, e.getMessage(), e);
         }
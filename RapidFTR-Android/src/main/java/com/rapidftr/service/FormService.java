@@ -1,23 +1,30 @@
 package com.rapidftr.service;
 
 import android.util.Log;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.io.CharStreams;
 import com.google.inject.Inject;
 import com.rapidftr.RapidFtrApplication;
-import com.rapidftr.forms.Form;
 import com.rapidftr.forms.FormField;
+import com.rapidftr.forms.FormSchema;
+import com.rapidftr.forms.FormSchemaStore;
 import com.rapidftr.forms.FormSection;
+import com.rapidftr.model.Child;
+import com.rapidftr.repository.ChildRepository;
 import com.rapidftr.utils.ResourceLoader;
 import com.rapidftr.utils.StringUtils;
 import com.rapidftr.utils.http.FluentResponse;
+import com.rapidftr.utils.http.HttpValidators;
 import lombok.Cleanup;
+import org.json.JSONException;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.rapidftr.utils.http.FluentRequest.http;
 
@@ -27,13 +34,25 @@ public class FormService {
     public static final String DEFAULT_FORM_SECTIONS_FILE_NAME = "default_form_sections.json";
     public static final String API_FORM_SECTIONS_PATH = "/api/form_sections";
 
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private static FormSchema sharedSchema = FormSchema.EMPTY;
+
     private RapidFtrApplication context;
+    private FormSchemaStore store;
+    private HttpValidators validators;
 
-    private Map<String, Form> formsMap = new HashMap<String, Form>();
+    private FormSchema schema = FormSchema.EMPTY;
 
     @Inject
     public FormService(RapidFtrApplication context) {
+        this(context, new FormSchemaStore(context), new HttpValidators(context));
+    }
+
+    public FormService(RapidFtrApplication context, FormSchemaStore store, HttpValidators validators) {
         this.context = context;
+        this.store = store;
+        this.validators = validators;
         try {
             loadFormSections();
         } catch (IOException e) {
@@ -41,83 +60,124 @@ public class FormService {
         }
     }
 
+    // Forms rarely change, so the download is conditional on the validators of the last one and is usually a 304
     public void downloadPublishedFormSections() throws IOException {
         FluentResponse formSectionsResponse = http()
                 .context(context)
                 .path(API_FORM_SECTIONS_PATH)
+                .validators(validators)
                 .get();
 
         if (formSectionsResponse.isSuccess()) {
-            String formSectionJson = CharStreams.toString(new InputStreamReader(formSectionsResponse.getEntity().getContent()));
-            saveFormSections(formSectionJson);
-            loadFormSections();
+            @Cleanup InputStream content = formSectionsResponse.getEntity().getContent();
+            Map<String, List<FormSection>> formSections = FormSchema.parse(JSON_MAPPER.readTree(content), JSON_MAPPER);
+            List<String> summaryFieldIds = getSummaryFieldIds(Child.CHILD_FORM_NAME);
+            List<String> searchFieldIds = getFieldIds(getHighlightedFields(Child.CHILD_FORM_NAME));
+            saveFormSections(formSections);
+            formSectionsResponse.saveValidators();
+            boolean summariesChanged = !summaryFieldIds.equals(getSummaryFieldIds(Child.CHILD_FORM_NAME));
+            boolean searchFieldsChanged = !searchFieldIds.equals(getFieldIds(getHighlightedFields(Child.CHILD_FORM_NAME)));
+            if (summariesChanged || searchFieldsChanged) {
+                rebuildChildren(summariesChanged, searchFieldsChanged);
+            }
         }
     }
 
-    protected void saveFormSections(String formSectionJson) throws IOException {
-        context.getSharedPreferences().edit().putString(FORM_SECTIONS_PREF, formSectionJson).commit();
+    // Child list rows are read from stored summaries of these fields, which go stale when the fields change
+    private List<String> getSummaryFieldIds(String formName) {
+        List<String> fieldIds = getFieldIds(getTitleFields(formName));
+        fieldIds.addAll(getFieldIds(getHighlightedFields(formName)));
+        return fieldIds;
     }
 
-    protected void loadFormSections() throws IOException {
-        String formSections = context.getSharedPreferences().getString(FORM_SECTIONS_PREF, null);
-        if (formSections == null) {
-            formSections = loadDefaultFormSections();
+    private List<String> getFieldIds(List<FormField> fields) {
+        List<String> fieldIds = new ArrayList<String>();
+        for (FormField field : fields) {
+            fieldIds.add(field.getId());
         }
+        return fieldIds;
+    }
+
+    // Children are found by the highlighted fields only, so the search index is rebuilt only when they change
+    private void rebuildChildren(boolean summaries, boolean searchIndex) {
+        if (context.isLoggedIn()) {
+            @Cleanup ChildRepository childRepository = context.getBean(ChildRepository.class);
+            try {
+                if (summaries) {
+                    childRepository.rebuildSummaries();
+                }
+                if (searchIndex) {
+                    childRepository.rebuildSearchIndex();
+                }
+            } catch (JSONException e) {
+                Log.e(RapidFtrApplication.APP_IDENTIFIER, "Could not rebuild child summaries or search index", e);
+            }
+        }
+    }
 
-        parseFormSections(formSections);
+    protected void saveFormSections(Map<String, List<FormSection>> formSections) throws IOException {
+        synchronized (FormService.class) {
+            store.write(formSections);
+            sharedSchema = FormSchema.of(store.getState(), formSections);
+            schema = sharedSchema;
+        }
     }
 
-    private void parseFormSections(String formSections) throws IOException {
-        if (StringUtils.isNotEmpty(formSections)) {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode rootNode = objectMapper.readTree(formSections);
-            Iterator<Map.Entry<String, JsonNode>> childNodes = rootNode.fields();
-            while (childNodes.hasNext()) {
-                Map.Entry<String, JsonNode> entry = childNodes.next();
-                Form form = new Form(entry.getKey(), new ArrayList<FormSection>(Arrays.asList(objectMapper.readValue(entry.getValue().toString(), FormSection[].class))));
-                this.formsMap.put(entry.getKey(), form);
+    // Every FormService shares the schema of the stored form sections until different ones are stored
+    protected void loadFormSections() throws IOException {
+        synchronized (FormService.class) {
+            String state = store.getState();
+            if (state == null) {
+                importFormSections();
+            } else if (!sharedSchema.isCompiledFrom(state)) {
+                sharedSchema = FormSchema.stored(state, store);
             }
+            schema = sharedSchema;
+        }
+    }
+
+    // Moves form sections kept in shared preferences by earlier versions into the store, or else stores the bundled ones.
+    // Either way the stored forms are no longer the last download, so its validators are dropped.
+    private void importFormSections() throws IOException {
+        String formSections = context.getSharedPreferences().getString(FORM_SECTIONS_PREF, null);
+        String json = formSections == null ? loadDefaultFormSections() : formSections;
+        Map<String, List<FormSection>> forms = StringUtils.isNotEmpty(json)
+                ? FormSchema.parse(JSON_MAPPER.readTree(json), JSON_MAPPER) : new HashMap<String, List<FormSection>>();
+
+        sharedSchema = FormSchema.of(null, forms);
+        validators.clear();
+        try {
+            saveFormSections(forms);
+        } catch (IOException e) {
+            Log.e(RapidFtrApplication.APP_IDENTIFIER, "Could not store form sections", e);
+            return;
+        }
+        if (formSections != null) {
+            context.getSharedPreferences().edit().remove(FORM_SECTIONS_PREF).commit();
         }
     }
 
-    private String loadDefaultFormSections() throws IOException {
+    private static String loadDefaultFormSections() throws IOException {
         @Cleanup InputStream in = ResourceLoader.loadResourceFromClasspath(DEFAULT_FORM_SECTIONS_FILE_NAME);
         return CharStreams.toString(new InputStreamReader(in));
     }
 
+    // A copy, since activities add and remove sections of their own
     public List<FormSection> getFormSections(String formName) {
-
-        if (this.formsMap.containsKey(formName)) {
-            return this.formsMap.get(formName).getFormsections();
-        }
-
-        return Collections.emptyList();
+        return new ArrayList<FormSection>(schema.getFormSections(formName));
     }
 
-    public void setFormSections(List<FormSection> formSections) throws IOException {
-        saveFormSections(new ObjectMapper().writeValueAsString(formSections.toArray()));
+    public void setFormSections(Map<String, List<FormSection>> formSections) throws IOException {
+        validators.clear();
+        saveFormSections(formSections);
     }
 
     public List<FormField> getHighlightedFields(String formName) {
-        List<FormField> formFields = new ArrayList<FormField>();
-
-        List<FormSection> formSections = getFormSections(formName);
-        for (FormSection formSection : formSections) {
-            formFields.addAll(formSection.getOrderedHighLightedFields());
-        }
-
-        return formFields;
+        return schema.getHighlightedFields(formName);
     }
 
     public List<FormField> getTitleFields(String formName) {
-        List<FormField> formFields = new ArrayList<FormField>();
-
-        List<FormSection> formSections = getFormSections(formName);
-        for (FormSection formSection : formSections) {
-            formFields.addAll(formSection.getOrderedTitleFields());
-        }
-
-        return formFields;
+        return schema.getTitleFields(formName);
     }
 
 }
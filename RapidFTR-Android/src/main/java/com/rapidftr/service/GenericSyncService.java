@@ -4,16 +4,30 @@ import com.rapidftr.model.BaseModel;
 import com.rapidftr.model.History;
 import com.rapidftr.repository.Repository;
 import com.rapidftr.utils.RapidFtrDateTime;
+import org.apache.http.HttpException;
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 
 import java.io.IOException;
 import java.io.SyncFailedException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import static com.rapidftr.database.Database.ChildTableColumn.created_at;
+import static com.rapidftr.database.Database.ChildTableColumn.last_updated_at;
+import static com.rapidftr.database.Database.ChildTableColumn.unique_identifier;
 
 public class GenericSyncService<T extends BaseModel> {
 
+    private static final List<String> ALWAYS_SENT_FIELDS = Arrays.asList(BaseModel.FIELD_INTERNAL_ID,
+            unique_identifier.getColumnName(), created_at.getColumnName(), last_updated_at.getColumnName(), History.HISTORIES);
+
     private MediaSyncHelper mediaSyncHelper;
     private EntityHttpDao<T> entityHttpDao;
     private Repository<T> repository;
@@ -27,31 +41,90 @@ public class GenericSyncService<T extends BaseModel> {
     }
 
     public T sync(T model, String syncPath) throws IOException, JSONException {
+        String revision = model.optString(BaseModel.FIELD_REVISION_ID, null);
         try {
+            if (!model.has(History.HISTORIES)) {
+                repository.attachHistories(model);
+            }
             Map<String, String> requestParameters = new HashMap<String, String>();
-            mediaSyncHelper.addMultiMediaFilesToTheRequestParameters(model, requestParameters);
+            Map<String, String> sentMedia = mediaSyncHelper.addMultiMediaFilesToTheRequestParameters(model, requestParameters);
             removeUnusedParametersBeforeSync(model);
 
             model = model.isNew() ? entityHttpDao.create(model, syncPath, requestParameters)
-                    : entityHttpDao.update(model, syncPath, requestParameters);
+                    : update(model, revision, syncPath, requestParameters);
+            mediaSyncHelper.acknowledgeSentMedia(sentMedia);
             setAttributes(model);
-            model.remove(History.HISTORIES);
+            // The server has the uploaded histories now, so the stored ones can go
+            model.put(History.HISTORIES, new JSONArray());
             repository.createOrUpdateWithoutHistory(model);
+            model.remove(History.HISTORIES);
             setMedia(model);
-            repository.close();
         } catch (Exception e) {
             model.setSynced(false);
             model.setSyncLog(e.getMessage());
             model.put("photo_keys", photoKeys);
             model.put("audio_attachments", audioAttachments);
-            repository.createOrUpdateWithoutHistory(model);
-            repository.close();
+            // Without the revision the edits since it could not be sent on their own next time
+            if (!model.has(BaseModel.FIELD_REVISION_ID)) {
+                model.putOpt(BaseModel.FIELD_REVISION_ID, revision);
+            }
+            saveKeepingHistories(model);
             throw new SyncFailedException(e.getMessage());
         }
 
         return model;
     }
 
+    private T update(T model, String revision, String syncPath, Map<String, String> requestParameters) throws IOException, HttpException, JSONException {
+        JSONObject changedFields = changedFields(model, revision);
+        T updated = changedFields == null ? null : entityHttpDao.updateFields(changedFields, syncPath, requestParameters);
+        return updated != null ? updated : entityHttpDao.update(model, syncPath, requestParameters);
+    }
+
+    /*
+     * The fields edited since the last sync, read from the histories recorded with each edit (a successful sync clears
+     * them), plus the fields identifying the record and the revision the edits were made to. Null when there are no
+     * recorded edits or no revision to base them on, and the whole record has to be sent.
+     */
+    private JSONObject changedFields(T model, String revision) throws JSONException {
+        JSONArray histories = model.optJSONArray(History.HISTORIES);
+        if (revision == null || histories == null || histories.length() == 0) {
+            return null;
+        }
+
+        Set<String> keys = new HashSet<String>(ALWAYS_SENT_FIELDS);
+        for (int i = 0; i < histories.length(); i++) {
+            JSONObject changes = histories.getJSONObject(i).optJSONObject(History.CHANGES);
+            if (changes != null) {
+                Iterator<String> changedKeys = changes.keys();
+                while (changedKeys.hasNext()) {
+                    keys.add(changedKeys.next());
+                }
+            }
+        }
+
+        JSONObject fields = new JSONObject();
+        for (String key : keys) {
+            if (model.has(key)) {
+                fields.put(key, model.get(key));
+            }
+        }
+        fields.put(BaseModel.FIELD_REVISION_ID, revision);
+        return fields;
+    }
+
+    // Histories which were not uploaded stay in the repository for the next sync
+    private void saveKeepingHistories(T model) throws JSONException {
+        Object histories = model.remove(History.HISTORIES);
+        try {
+            repository.createOrUpdateWithoutHistory(model);
+        } finally {
+            if (histories != null) {
+                model.put(History.HISTORIES, histories);
+            }
+        }
+    }
+
     private void removeUnusedParametersBeforeSync(T model) {
         photoKeys = (JSONArray) model.remove("photo_keys");
         audioAttachments = model.remove("audio_attachments");
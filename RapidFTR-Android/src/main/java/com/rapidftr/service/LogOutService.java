@@ -9,7 +9,12 @@ import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.activity.LoginActivity;
 import com.rapidftr.activity.LoginActivity_;
 import com.rapidftr.activity.RapidFtrActivity;
+import com.rapidftr.database.SQLCipherConnections;
+import com.rapidftr.utils.BitmapCache;
+import com.rapidftr.utils.EncryptionUtil;
+import com.rapidftr.utils.http.ChunkedUpload;
 import com.rapidftr.utils.http.FluentRequest;
+import com.rapidftr.utils.http.ResumableDownload;
 
 import static android.widget.Toast.LENGTH_LONG;
 
@@ -25,6 +30,11 @@ public class LogOutService {
     protected void logOut(RapidFtrActivity currentActivity) {
         RapidFtrApplication context = currentActivity.getContext();
         context.setCurrentUser(null);
+        SQLCipherConnections.closeAll();
+        EncryptionUtil.clearKeyCache();
+        BitmapCache.clear();
+        new ResumableDownload(context).discardAll();
+        ChunkedUpload.forgetServersWithoutUploads();
         FluentRequest.getHttpClient().getCookieStore().clear();
         Toast.makeText(context, R.string.logout_successful, LENGTH_LONG).show();
 
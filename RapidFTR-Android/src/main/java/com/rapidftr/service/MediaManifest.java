@@ -0,0 +1,97 @@
+package com.rapidftr.service;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.rapidftr.RapidFtrApplication;
+import lombok.Cleanup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+import static com.rapidftr.RapidFtrApplication.SERVER_URL_PREF;
+
+/*
+ * Content hashes of the photos and audio each server has acknowledged, keyed by file name. A record synced again after
+ * a text edit then leaves out the media the server already has, while a re-captured or rotated photo is sent again.
+ * Photos are hashed as stored, encrypted, since the same picture always encrypts to the same bytes under its name.
+ */
+public class MediaManifest {
+
+    public static final String PREFERENCES_NAME = "media_manifest";
+    private static final String DIGEST_ALGORITHM = "MD5";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static int filesNotResent;
+    private static long bytesNotResent;
+
+    private final RapidFtrApplication context;
+    private final SharedPreferences preferences;
+
+    public MediaManifest(RapidFtrApplication context) {
+        this.context = context;
+        this.preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /*
+     * Returns the file's hash when it has to be sent, or null when the server already acknowledged this content.
+     */
+    public String hashIfChanged(String fileName, File file) throws IOException {
+        String hash = hashOf(file);
+        if (hash.equals(preferences.getString(entryKey(fileName), null))) {
+            countNotResent(file.length());
+            return null;
+        }
+        return hash;
+    }
+
+    public void acknowledge(Map<String, String> hashes) {
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<String, String> hash : hashes.entrySet()) {
+            editor.putString(entryKey(hash.getKey()), hash.getValue());
+        }
+        editor.commit();
+    }
+
+    public static synchronized void resetStatistics() {
+        filesNotResent = 0;
+        bytesNotResent = 0;
+    }
+
+    public static synchronized int getFilesNotResent() {
+        return filesNotResent;
+    }
+
+    public static synchronized long getBytesNotResent() {
+        return bytesNotResent;
+    }
+
+    private static synchronized void countNotResent(long bytes) {
+        filesNotResent++;
+        bytesNotResent += bytes;
+    }
+
+    private String entryKey(String fileName) {
+        return context.getSharedPreferences().getString(SERVER_URL_PREF, "") + " " + fileName;
+    }
+
+    private String hashOf(File file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            @Cleanup InputStream in = new FileInputStream(file);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return String.format("%032x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
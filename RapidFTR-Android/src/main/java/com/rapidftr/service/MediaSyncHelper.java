@@ -4,40 +4,101 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.model.BaseModel;
-import com.rapidftr.model.Child;
 import com.rapidftr.utils.AudioCaptureHelper;
 import com.rapidftr.utils.PhotoCaptureHelper;
+import com.rapidftr.utils.http.ChunkedUpload;
+import com.rapidftr.utils.http.FluentRequest;
+import com.rapidftr.utils.http.ResumableDownload;
+import lombok.Cleanup;
+import org.apache.http.HttpException;
 import org.json.JSONArray;
 import org.json.JSONException;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.GeneralSecurityException;
+import java.util.HashMap;
 import java.util.Map;
 
 import static com.rapidftr.view.fields.PhotoUploadBox.PHOTO_KEYS;
 
 public class MediaSyncHelper {
 
-    private EntityHttpDao<? extends BaseModel> entityHttpDao;
+    public static final String UPLOADED_PHOTO_KEYS = FluentRequest.UPLOADED_MEDIA_PREFIX + "photo_keys";
+    public static final String UPLOADED_AUDIO = FluentRequest.UPLOADED_MEDIA_PREFIX + "audio";
+
     private RapidFtrApplication context;
+    private ResumableDownload download;
+    private ChunkedUpload upload;
+    private MediaManifest manifest;
+
+    public MediaSyncHelper(RapidFtrApplication context) {
+        this(context, new ResumableDownload(context), new ChunkedUpload(context), new MediaManifest(context));
+    }
 
-    public MediaSyncHelper(EntityHttpDao<? extends BaseModel> entityHttpDao, RapidFtrApplication context) {
-        this.entityHttpDao = entityHttpDao;
+    public MediaSyncHelper(RapidFtrApplication context, ResumableDownload download, ChunkedUpload upload, MediaManifest manifest) {
         this.context = context;
+        this.download = download;
+        this.upload = upload;
+        this.manifest = manifest;
     }
 
-    public void addMultiMediaFilesToTheRequestParameters(BaseModel baseModel, Map<String, String> requestParameters) throws JSONException {
-        requestParameters.put("photo_keys", updatedPhotoKeys(baseModel).toString());
-        String recordedAudioEntry = baseModel.getRecordedAudio();
+    /*
+     * Media the manifest shows the server already has is left out. New media goes up in resumable chunks where the
+     * server supports it, and the record then only names the uploaded files; the rest is attached to the record's
+     * multipart request as before. Returns the hashes of the media sent, to acknowledge once the record is synced.
+     */
+    public Map<String, String> addMultiMediaFilesToTheRequestParameters(BaseModel baseModel, Map<String, String> requestParameters) throws JSONException, IOException, HttpException, GeneralSecurityException {
+        Map<String, String> sentMedia = new HashMap<String, String>();
+        JSONArray photoKeys = new JSONArray(), uploadedPhotoKeys = new JSONArray();
+        JSONArray updatedPhotoKeys = updatedPhotoKeys(baseModel);
+        for (int i = 0; i < updatedPhotoKeys.length(); i++) {
+            String photoKey = updatedPhotoKeys.getString(i);
+            File photo = new File(new PhotoCaptureHelper(context).getDir(), photoKey + ".jpg");
+            if (isUnchanged(photoKey + ".jpg", photo, sentMedia)) {
+                continue;
+            }
+            (uploadPhoto(photoKey, photo) ? uploadedPhotoKeys : photoKeys).put(photoKey);
+        }
+        requestParameters.put("photo_keys", photoKeys.toString());
+        if (uploadedPhotoKeys.length() > 0) {
+            requestParameters.put(UPLOADED_PHOTO_KEYS, uploadedPhotoKeys.toString());
+        }
 
+        String recordedAudioEntry = baseModel.getRecordedAudio();
         if (recordedAudioEntry != null && !recordedAudioEntry.equals("")) {
-            if (!getAudioKey(baseModel).equals(recordedAudioEntry)) {
-                requestParameters.put("recorded_audio", recordedAudioEntry);
+            File audio = new File(new AudioCaptureHelper(context).getCompleteFileName(recordedAudioEntry));
+            if (!getAudioKey(baseModel).equals(recordedAudioEntry) && !isUnchanged(recordedAudioEntry + ".amr", audio, sentMedia)) {
+                requestParameters.put(uploadAudio(recordedAudioEntry, audio) ? UPLOADED_AUDIO : "recorded_audio", recordedAudioEntry);
             }
         }
         baseModel.remove("attachments");
+        return sentMedia;
+    }
+
+    public void acknowledgeSentMedia(Map<String, String> sentMedia) {
+        manifest.acknowledge(sentMedia);
+    }
+
+    private boolean isUnchanged(String fileName, File file, Map<String, String> sentMedia) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        String hash = manifest.hashIfChanged(fileName, file);
+        if (hash != null) {
+            sentMedia.put(fileName, hash);
+        }
+        return hash == null;
+    }
+
+    private boolean uploadPhoto(String photoKey, File photo) throws IOException, HttpException, GeneralSecurityException {
+        return photo.exists() && upload.upload(photoKey + ".jpg", photo, context.getCurrentUser().getDbKey());
+    }
+
+    private boolean uploadAudio(String recordedAudio, File audio) throws IOException, HttpException, GeneralSecurityException {
+        return audio.exists() && upload.upload(recordedAudio + ".amr", audio, null);
     }
 
     public void setPhoto(BaseModel baseModel) throws IOException, JSONException {
@@ -92,17 +153,14 @@ public class MediaSyncHelper {
     }
 
     public void getPhotoFromServer(BaseModel baseModel, PhotoCaptureHelper photoCaptureHelper, String fileName) throws IOException {
-        Bitmap bitmap = BitmapFactory.decodeStream(getReSizedPhoto(baseModel, fileName));
-        savePhoto(bitmap, photoCaptureHelper, fileName);
+        @Cleanup InputStream photo = downloadResource(getReSizedPhotoPath(baseModel, fileName), fileName + ".jpg");
+        savePhoto(BitmapFactory.decodeStream(photo), photoCaptureHelper, fileName);
     }
 
-    protected InputStream getReSizedPhoto(BaseModel baseModel, String fileName) throws IOException {
+    protected String getReSizedPhotoPath(BaseModel baseModel, String fileName) {
         String apiModel = baseModel.getClass().getSimpleName().toLowerCase();
-        String photoUrl =
-                String.format("/%s/%s/photo/%s/resized/%sx%s",
-                        apiModel, baseModel.optString("_id"), fileName, PhotoCaptureHelper.PHOTO_WIDTH, PhotoCaptureHelper.PHOTO_HEIGHT);
-
-        return entityHttpDao.getResourceStream(photoUrl);
+        return String.format("/%s/%s/photo/%s/resized/%sx%s",
+                apiModel, baseModel.optString("_id"), fileName, PhotoCaptureHelper.PHOTO_WIDTH, PhotoCaptureHelper.PHOTO_HEIGHT);
     }
 
     public void setAudio(BaseModel baseModel) throws IOException, JSONException {
@@ -118,12 +176,22 @@ public class MediaSyncHelper {
     }
 
     private void getAudioFromServer(BaseModel baseModel, AudioCaptureHelper audioCaptureHelper) throws IOException, JSONException {
-        audioCaptureHelper.saveAudio(baseModel, getAudio(baseModel));
+        @Cleanup InputStream audio = downloadResource(getAudioPath(baseModel), baseModel.getRecordedAudio() + ".amr");
+        audioCaptureHelper.saveAudio(baseModel, audio);
     }
 
-    public InputStream getAudio(BaseModel baseModel) throws IOException {
+    protected String getAudioPath(BaseModel baseModel) {
         String apiModel = baseModel.getClass().getSimpleName().toLowerCase();
-        String audioUrlPath = String.format("/%s/%s/audio", apiModel, baseModel.optString("_id"));
-        return entityHttpDao.getResourceStream(audioUrlPath);
+        return String.format("/%s/%s/audio", apiModel, baseModel.optString("_id"));
+    }
+
+    protected InputStream downloadResource(String resourcePath, String fileName) throws IOException {
+        try {
+            return download.download(fileName, resourcePath, context.getCurrentUser().getDbKey());
+        } catch (HttpException e) {
+            throw (IOException) new IOException(e.getMessage()).initCause(e);
+        } catch (GeneralSecurityException e) {
+            throw (IOException) new IOException(e.getMessage()).initCause(e);
+        }
     }
 }
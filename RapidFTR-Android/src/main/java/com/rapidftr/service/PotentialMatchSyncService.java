@@ -20,12 +20,14 @@ public class PotentialMatchSyncService implements SyncService<PotentialMatch> {
 
     private RapidFtrApplication context;
     private EntityHttpDao<PotentialMatch> entityHttpDao;
+    private PotentialMatchRepository repository;
     private static final int NOTIFICATION_ID = 1023;
 
 
     @Inject
     public PotentialMatchSyncService(RapidFtrApplication rapidFtrApplication, PotentialMatchRepository repository) {
         this.context = rapidFtrApplication;
+        this.repository = repository;
         this.entityHttpDao = EntityHttpDaoFactory.createPotentialMatchHttpDao(rapidFtrApplication.getSharedPreferences().getString(RapidFtrApplication.SERVER_URL_PREF, ""),
                 POTENTIAL_MATCH_API_PATH, POTENTIAL_MATCH_API_PARAMETER);
     }
@@ -42,10 +44,24 @@ public class PotentialMatchSyncService implements SyncService<PotentialMatch> {
         return potentialMatch;
     }
 
+    @Override
+    public List<PotentialMatch> getUpdatedRecords(DateTime updatedAfter, int page, int perPage) throws IOException, JSONException, HttpException {
+        List<PotentialMatch> potentialMatches = entityHttpDao.getUpdatedRecords(updatedAfter, page, perPage);
+        if (potentialMatches != null) {
+            for (PotentialMatch potentialMatch : potentialMatches) {
+                potentialMatch.setSynced(true);
+            }
+        }
+        return potentialMatches;
+    }
+
     public List<String> getIdsToDownload() throws IOException, HttpException, JSONException {
-        long lastUpdateMillis = context.getSharedPreferences().getLong(RapidFtrApplication.LAST_POTENTIAL_MATCH_SYNC, 0);  // Default value is currently epoch
-        DateTime lastUpdate = new DateTime(lastUpdateMillis);
-        return entityHttpDao.getUpdatedResourceUrls(lastUpdate);
+        return entityHttpDao.getUpdatedResourceUrls(getLastSyncedAt());
+    }
+
+    @Override
+    public DateTime getLastSyncedAt() {
+        return new DateTime(context.getSharedPreferences().getLong(RapidFtrApplication.LAST_POTENTIAL_MATCH_SYNC, 0));  // Default value is currently epoch
     }
 
     @Override
@@ -62,6 +78,11 @@ public class PotentialMatchSyncService implements SyncService<PotentialMatch> {
         return context.getString(R.string.potential_matches_sync_title);
     }
 
+    @Override
+    public void close() throws IOException {
+        repository.close();
+    }
+
     @Override
     public void setLastSyncedAt() {
         RapidFtrApplication.getApplicationInstance()
@@ -3,12 +3,17 @@ package com.rapidftr.service;
 import com.rapidftr.model.BaseModel;
 import com.rapidftr.model.User;
 import org.apache.http.HttpException;
+import org.joda.time.DateTime;
 import org.json.JSONException;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
 
-public interface SyncService<T extends BaseModel> {
+/*
+ * Closing a sync service closes the repository it syncs through, releasing that repository's database lease.
+ */
+public interface SyncService<T extends BaseModel> extends Closeable {
 
     public T sync(T record, User currentUser) throws IOException, JSONException, HttpException;
 
@@ -16,6 +21,13 @@ public interface SyncService<T extends BaseModel> {
 
     public List<String> getIdsToDownload() throws IOException, JSONException, HttpException;
 
+    /*
+     * One page of records updated after updatedAfter, or null when the server can only serve records one url at a time.
+     */
+    public List<T> getUpdatedRecords(DateTime updatedAfter, int page, int perPage) throws IOException, JSONException, HttpException;
+
+    public DateTime getLastSyncedAt();
+
     public void setMedia(T t) throws IOException, JSONException;
 
     public int getNotificationId();
@@ -44,7 +44,7 @@ public class EncryptImageAsyncTask extends AsyncTask<Void, Integer, Boolean> {
     @Override
     protected void onPostExecute(Boolean result) {
         try {
-	        bitmap.recycle();
+	        photoCaptureHelper.releaseCapture(bitmap);
 	        photoUploadBox.repaint();
         } catch (Exception e) {
 	        Log.e(APP_IDENTIFIER, "Error saving photo", e);
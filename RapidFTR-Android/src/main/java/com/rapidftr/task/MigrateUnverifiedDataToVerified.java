@@ -3,7 +3,7 @@ package com.rapidftr.task;
 import android.os.AsyncTask;
 import android.util.Log;
 import com.rapidftr.RapidFtrApplication;
-import com.rapidftr.database.SQLCipherHelper;
+import com.rapidftr.database.SQLCipherConnections;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.User;
 import com.rapidftr.repository.ChildRepository;
@@ -33,14 +33,14 @@ public class MigrateUnverifiedDataToVerified extends AsyncTask<Void, Void, Void>
     }
 
     protected ChildRepository getChildRepo(User user) {
-        return new ChildRepository(user.getUserName(), new SQLCipherHelper(user, RapidFtrApplication.getApplicationInstance()).getSession());
+        return new ChildRepository(user.getUserName(), SQLCipherConnections.lease(user, RapidFtrApplication.getApplicationInstance()).getSession());
     }
 
     private void migrateChildren(ChildRepository unverifiedChildRepo, ChildRepository verifiedChildRepo) {
         try {
             List<Child> children = unverifiedChildRepo.allCreatedByCurrentUser();
+            verifiedChildRepo.createOrUpdateAll(children);
             for (Child child : children) {
-                verifiedChildRepo.createOrUpdate(child);
                 JSONArray photoKeys = child.getPhotos();
                 for(int i = 0; i < photoKeys.length(); i++){
                     String photo = photoKeys.getString(i);
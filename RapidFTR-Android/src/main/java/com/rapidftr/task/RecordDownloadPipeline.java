@@ -0,0 +1,243 @@
+package com.rapidftr.task;
+
+import android.util.Log;
+import com.rapidftr.model.BaseModel;
+import com.rapidftr.repository.Repository;
+import com.rapidftr.service.SyncService;
+import com.rapidftr.utils.http.FluentRequest;
+import lombok.Getter;
+import org.apache.http.HttpException;
+import org.joda.time.DateTime;
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Downloads records in three stages:
+ *   fetch   - a bounded pool of workers calling SyncService.getRecord, sharing the FluentRequest connection pool
+ *   persist - the calling thread writes fetched records to the repository in batches, so SQLite only ever sees one writer
+ *   media   - a second pool fetching photos and audio for records which have already been persisted
+ * At most (concurrency * 2) fetched records are held in memory at any time.
+ *
+ * When the server has a changes endpoint, the fetch stage instead requests whole pages of updated records, so a sync
+ * costs one round trip per batchSize records rather than one per record.
+ */
+public class RecordDownloadPipeline<T extends BaseModel> {
+
+    public static final int MAX_CONCURRENCY = FluentRequest.MAX_CONNECTIONS_PER_ROUTE / 2;
+
+    public interface Listener<T> {
+
+        public boolean isCancelled();
+
+        /*
+         * Called for each record as it arrives, before the batch holding it is written.
+         */
+        public void onRecordFetched(T record, int recordsFetched);
+    }
+
+    private final SyncService<T> syncService;
+    private final Repository<T> repository;
+    private final int concurrency;
+    @Getter
+    private final int batchSize;
+
+    public RecordDownloadPipeline(SyncService<T> syncService, Repository<T> repository, int concurrency, int batchSize) {
+        this.syncService = syncService;
+        this.repository = repository;
+        this.concurrency = Math.max(1, Math.min(concurrency, MAX_CONCURRENCY));
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /*
+     * Downloads the records updated after updatedAfter a page at a time, fetching each page while the previous one is persisted.
+     * Paging stops at the first empty page, since the server may serve fewer than batchSize records per page.
+     * Falls back to fetching resourceUrls one by one when the server has no changes endpoint or its first page is empty.
+     */
+    public int download(DateTime updatedAfter, List<String> resourceUrls, Listener<T> listener) throws IOException, JSONException, HttpException {
+        if (resourceUrls.isEmpty()) {
+            return 0;
+        }
+
+        List<T> firstPage = syncService.getUpdatedRecords(updatedAfter, 1, batchSize);
+        if (firstPage == null || firstPage.isEmpty()) {
+            return download(resourceUrls, listener);
+        }
+        return downloadPages(updatedAfter, firstPage, listener);
+    }
+
+    public int download(List<String> resourceUrls, Listener<T> listener) throws IOException, JSONException, HttpException {
+        ExecutorService fetchExecutor = Executors.newFixedThreadPool(concurrency, new StageThreadFactory("fetch"));
+        ExecutorService mediaExecutor = Executors.newFixedThreadPool(concurrency, new StageThreadFactory("media"));
+        CompletionService<T> fetched = new ExecutorCompletionService<T>(fetchExecutor);
+        List<Future<?>> mediaTasks = new ArrayList<Future<?>>();
+        List<T> batch = new ArrayList<T>(batchSize);
+
+        Iterator<String> pending = resourceUrls.iterator();
+        int inFlight = 0;
+        int fetchedCount = 0;
+        int saved = 0;
+        try {
+            for (; inFlight < concurrency * 2 && pending.hasNext(); inFlight++) {
+                fetched.submit(fetch(pending.next()));
+            }
+
+            while (inFlight > 0) {
+                T record = await(fetched.take());
+                inFlight--;
+                if (listener.isCancelled()) {
+                    break;
+                }
+
+                batch.add(record);
+                listener.onRecordFetched(record, ++fetchedCount);
+                if (pending.hasNext()) {
+                    fetched.submit(fetch(pending.next()));
+                    inFlight++;
+                }
+
+                if (batch.size() >= batchSize || inFlight == 0) {
+                    persist(batch);
+                    for (T savedRecord : batch) {
+                        mediaTasks.add(mediaExecutor.submit(media(savedRecord)));
+                    }
+                    saved += batch.size();
+                    batch = new ArrayList<T>(batchSize);
+                }
+            }
+
+            if (!listener.isCancelled()) {
+                for (Future<?> mediaTask : mediaTasks) {
+                    await(mediaTask);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new IOException("Record download interrupted").initCause(e);
+        } finally {
+            fetchExecutor.shutdownNow();
+            mediaExecutor.shutdownNow();
+        }
+        return saved;
+    }
+
+    private int downloadPages(DateTime updatedAfter, List<T> firstPage, Listener<T> listener) throws IOException, JSONException, HttpException {
+        ExecutorService fetchExecutor = Executors.newSingleThreadExecutor(new StageThreadFactory("fetch"));
+        ExecutorService mediaExecutor = Executors.newFixedThreadPool(concurrency, new StageThreadFactory("media"));
+        List<Future<?>> mediaTasks = new ArrayList<Future<?>>();
+
+        List<T> page = firstPage;
+        int fetchedCount = 0;
+        int saved = 0;
+        try {
+            for (int pageNumber = 2; page != null && !page.isEmpty() && !listener.isCancelled(); pageNumber++) {
+                Future<List<T>> nextPage = fetchExecutor.submit(fetchPage(updatedAfter, pageNumber));
+                for (T record : page) {
+                    listener.onRecordFetched(record, ++fetchedCount);
+                }
+
+                persist(page);
+                for (T savedRecord : page) {
+                    mediaTasks.add(mediaExecutor.submit(media(savedRecord)));
+                }
+                saved += page.size();
+                page = await(nextPage);
+            }
+
+            if (!listener.isCancelled()) {
+                for (Future<?> mediaTask : mediaTasks) {
+                    await(mediaTask);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new IOException("Record download interrupted").initCause(e);
+        } finally {
+            fetchExecutor.shutdownNow();
+            mediaExecutor.shutdownNow();
+        }
+        return saved;
+    }
+
+    private void persist(List<T> records) {
+        try {
+            repository.createOrUpdateAll(records);
+        } catch (Exception e) {
+            Log.e("SyncAllDataTask", "Error syncing record", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Callable<T> fetch(final String resourceUrl) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return syncService.getRecord(resourceUrl);
+            }
+        };
+    }
+
+    private Callable<List<T>> fetchPage(final DateTime updatedAfter, final int page) {
+        return new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                return syncService.getUpdatedRecords(updatedAfter, page, batchSize);
+            }
+        };
+    }
+
+    private Callable<Void> media(final T record) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                syncService.setMedia(record);
+                return null;
+            }
+        };
+    }
+
+    private <V> V await(Future<V> future) throws IOException, JSONException, HttpException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof JSONException) {
+                throw (JSONException) cause;
+            } else if (cause instanceof HttpException) {
+                throw (HttpException) cause;
+            }
+            Log.e("SyncAllDataTask", "Error syncing record", cause);
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static class StageThreadFactory implements ThreadFactory {
+        private final String stage;
+        private final AtomicInteger count = new AtomicInteger();
+
+        StageThreadFactory(String stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "sync-" + stage + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
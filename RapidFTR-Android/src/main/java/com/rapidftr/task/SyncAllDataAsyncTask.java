@@ -11,6 +11,7 @@ import com.rapidftr.service.DeviceService;
 import com.rapidftr.service.FormService;
 import com.rapidftr.service.SyncService;
 import org.apache.http.HttpException;
+import org.joda.time.DateTime;
 import org.json.JSONException;
 
 import java.io.IOException;
@@ -41,13 +42,14 @@ public class SyncAllDataAsyncTask<T extends BaseModel> extends SynchronisationAs
                 deviceService.wipeData();
             }
         } else {
+            DateTime updatedAfter = recordSyncService.getLastSyncedAt();
             idsToDownload = recordSyncService.getIdsToDownload();
             recordSyncService.setLastSyncedAt();
             setProgressBarParameters(idsToDownload, recordsToUpload);
             setProgressAndNotify(context.getString(R.string.synchronize_step_1), 0);
 
             sendRecordsToServer(recordsToUpload);
-            downloadRecordsFromServer(idsToDownload, numberOfUploadedRecords(recordsToUpload));
+            downloadRecordsFromServer(updatedAfter, idsToDownload, numberOfUploadedRecords(recordsToUpload));
         }
     }
 
@@ -55,10 +57,10 @@ public class SyncAllDataAsyncTask<T extends BaseModel> extends SynchronisationAs
         return formSectionProgress + recordsToUpload.size();
     }
 
-    private void downloadRecordsFromServer(List<String> idsToDownload, int startProgressForDownloadingRecords)
+    private void downloadRecordsFromServer(DateTime updatedAfter, List<String> idsToDownload, int startProgressForDownloadingRecords)
             throws IOException, JSONException, HttpException {
         getFormSections();
-        saveIncomingRecords(idsToDownload, startProgressForDownloadingRecords);
+        saveIncomingRecords(updatedAfter, idsToDownload, startProgressForDownloadingRecords);
         setProgressAndNotify(context.getString(R.string.sync_complete), maxProgress);
     }
 }
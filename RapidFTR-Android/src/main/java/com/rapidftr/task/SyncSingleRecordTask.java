@@ -10,6 +10,8 @@ import com.rapidftr.model.User;
 import com.rapidftr.repository.Repository;
 import com.rapidftr.service.SyncService;
 
+import java.io.IOException;
+
 import static com.rapidftr.RapidFtrApplication.APP_IDENTIFIER;
 
 public class SyncSingleRecordTask extends AsyncTaskWithDialog<BaseModel, Void, Boolean> {
@@ -25,6 +27,14 @@ public class SyncSingleRecordTask extends AsyncTaskWithDialog<BaseModel, Void, B
         this.currentUser = currentUser;
     }
 
+    /*
+     * The repository the service syncs through is closed, releasing its database lease, once the sync is over.
+     */
+    public SyncSingleRecordTask(SyncService service, Repository repository, User currentUser) {
+        this(service, currentUser);
+        this.repository = repository;
+    }
+
     @Override
     public Boolean doInBackground(BaseModel... params) {
         try {
@@ -34,6 +44,18 @@ public class SyncSingleRecordTask extends AsyncTaskWithDialog<BaseModel, Void, B
             Log.e(APP_IDENTIFIER, "Error syncing one child record", e);
             ((RapidFtrApplication) activity.getApplication()).showNotification(service.getNotificationId(), service.getNotificationTitle(), e.getMessage());
             return false;
+        } finally {
+            closeRepository();
+        }
+    }
+
+    protected void closeRepository() {
+        if (repository != null) {
+            try {
+                repository.close();
+            } catch (IOException e) {
+                Log.e(APP_IDENTIFIER, "Error closing repository after sync", e);
+            }
         }
     }
 
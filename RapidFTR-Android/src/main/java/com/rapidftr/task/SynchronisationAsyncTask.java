@@ -3,6 +3,7 @@ package com.rapidftr.task;
 import android.app.Notification;
 import android.app.NotificationManager;
 import android.os.AsyncTask;
+import android.text.format.Formatter;
 import android.util.Log;
 import android.widget.Toast;
 import com.rapidftr.R;
@@ -12,9 +13,12 @@ import com.rapidftr.model.BaseModel;
 import com.rapidftr.model.User;
 import com.rapidftr.repository.Repository;
 import com.rapidftr.service.FormService;
+import com.rapidftr.service.MediaManifest;
 import com.rapidftr.service.SyncService;
+import com.rapidftr.utils.http.ContentCompression;
 import lombok.Setter;
 import org.apache.http.HttpException;
+import org.joda.time.DateTime;
 import org.json.JSONException;
 
 import java.io.IOException;
@@ -50,6 +54,8 @@ public abstract class SynchronisationAsyncTask<T extends BaseModel> extends Asyn
     @Override
     protected void onPreExecute() {
         RapidFtrApplication.getApplicationInstance().setSyncTask(this);
+        MediaManifest.resetStatistics();
+        ContentCompression.resetCounters();
         toggleMenu(CANCEL_SYNC_ALL);
     }
 
@@ -99,15 +105,19 @@ public abstract class SynchronisationAsyncTask<T extends BaseModel> extends Asyn
     protected void onPostExecute(Boolean result) {
         toggleMenu(SYNC_ALL);
         RapidFtrApplication.getApplicationInstance().setSyncTask(null);
+        Log.i("SyncAllDataTask", String.format("Received and sent %d bytes on the wire for %d bytes of content",
+                ContentCompression.getWireBytes(), ContentCompression.getLogicalBytes()));
         if (result) {
+            String message = successMessage + mediaStatistics();
             RapidFtrApplication.getApplicationInstance().showNotification(recordSyncService.getNotificationId(),
                     recordSyncService.getNotificationTitle(),
-                    successMessage);
-            Toast.makeText(RapidFtrApplication.getApplicationInstance(), successMessage, Toast.LENGTH_LONG).show();
+                    message);
+            Toast.makeText(RapidFtrApplication.getApplicationInstance(), message, Toast.LENGTH_LONG).show();
         } else {
             Toast.makeText(RapidFtrApplication.getApplicationInstance(),
                     RapidFtrApplication.getApplicationInstance().getString(R.string.sync_error), Toast.LENGTH_LONG).show();
         }
+        release();
     }
 
     @Override
@@ -115,6 +125,32 @@ public abstract class SynchronisationAsyncTask<T extends BaseModel> extends Asyn
         toggleMenu(SYNC_ALL);
         RapidFtrApplication.getApplicationInstance().cancelNotification(recordSyncService.getNotificationId());
         RapidFtrApplication.getApplicationInstance().setSyncTask(null);
+        release();
+    }
+
+    // Both hold database leases for the whole sync, which ends here whether or not it was cancelled
+    protected void release() {
+        try {
+            try {
+                repository.close();
+            } finally {
+                recordSyncService.close();
+            }
+        } catch (IOException e) {
+            Log.e("SyncAllDataTask", "Error releasing the database after sync", e);
+        }
+    }
+
+    private String mediaStatistics() {
+        int files = MediaManifest.getFilesNotResent();
+        if (files == 0) {
+            return "";
+        }
+        RapidFtrApplication application = RapidFtrApplication.getApplicationInstance();
+        String statistics = application.getString(R.string.sync_media_not_resent, files,
+                Formatter.formatShortFileSize(application, MediaManifest.getBytesNotResent()));
+        Log.i("SyncAllDataTask", statistics);
+        return " " + statistics;
     }
 
     private void toggleMenu(String showMenu) {
@@ -145,25 +181,40 @@ public abstract class SynchronisationAsyncTask<T extends BaseModel> extends Asyn
     }
 
     protected void saveIncomingRecords(List<String> idsToDownload, int startProgress) throws IOException, JSONException, HttpException {
-        String subStatusFormat = "Downloading Record %s of" + idsToDownload.size();
-        int counter = 0;
         setProgressAndNotify(context.getString(R.string.synchronize_step_3), startProgress);
+        createDownloadPipeline().download(idsToDownload, downloadListener(idsToDownload, startProgress));
+    }
 
-        for (String idToDownload : idsToDownload) {
-            T incomingRecord = recordSyncService.getRecord(idToDownload);
-            if (isCancelled()) {
-                break;
+    protected void saveIncomingRecords(DateTime updatedAfter, List<String> idsToDownload, int startProgress) throws IOException, JSONException, HttpException {
+        setProgressAndNotify(context.getString(R.string.synchronize_step_3), startProgress);
+        createDownloadPipeline().download(updatedAfter, idsToDownload, downloadListener(idsToDownload, startProgress));
+    }
+
+    private RecordDownloadPipeline.Listener<T> downloadListener(List<String> idsToDownload, final int startProgress) {
+        final String subStatusFormat = "Downloading Record %s of" + idsToDownload.size();
+        return new RecordDownloadPipeline.Listener<T>() {
+            @Override
+            public boolean isCancelled() {
+                return SynchronisationAsyncTask.this.isCancelled();
             }
-            try {
-                repository.createOrUpdateWithoutHistory(incomingRecord);
-                recordSyncService.setMedia(incomingRecord);
-                setProgressAndNotify(String.format(subStatusFormat, ++counter), startProgress);
-                startProgress += 1;
-            } catch (Exception e) {
-                Log.e("SyncAllDataTask", "Error syncing record", e);
-                throw new RuntimeException(e);
+
+            @Override
+            public void onRecordFetched(T record, int recordsFetched) {
+                setProgressAndNotify(String.format(subStatusFormat, recordsFetched), startProgress + recordsFetched - 1);
             }
-        }
+        };
+    }
+
+    protected RecordDownloadPipeline<T> createDownloadPipeline() {
+        return new RecordDownloadPipeline<T>(recordSyncService, repository, getDownloadConcurrency(), getDownloadBatchSize());
+    }
+
+    protected int getDownloadConcurrency() {
+        return RapidFtrApplication.getApplicationInstance().getResources().getInteger(R.integer.sync_download_concurrency);
+    }
+
+    protected int getDownloadBatchSize() {
+        return RapidFtrApplication.getApplicationInstance().getResources().getInteger(R.integer.sync_batch_size);
     }
 
     public void setContext(RapidFtrActivity context) {
@@ -0,0 +1,181 @@
+package com.rapidftr.task;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.ImageView;
+import com.rapidftr.RapidFtrApplication;
+import com.rapidftr.utils.PhotoCaptureHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Decodes list thumbnails on a small pool of its own rather than one AsyncTask per row on the shared AsyncTask executor.
+ *   - the most recently requested photo is decoded first, so rows that are visible now win over rows already scrolled past
+ *   - image views showing the same photo key share one request
+ *   - rebinding an image view to another key cancels its old request; a decode in progress is interrupted mid-read
+ * Methods are called from the UI thread; bitmaps are assigned back on the UI thread.
+ */
+public class ThumbnailLoader {
+
+    public static final int THREADS = 2;
+
+    private static ThumbnailLoader instance;
+
+    private final PhotoCaptureHelper photoCaptureHelper;
+    private final Handler mainThread;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Request> requests = new HashMap<String, Request>();
+    private final Map<ImageView, String> boundKeys = new WeakHashMap<ImageView, String>();
+    private long sequence;
+
+    public static synchronized ThumbnailLoader getInstance() {
+        if (instance == null) {
+            instance = new ThumbnailLoader(new PhotoCaptureHelper(RapidFtrApplication.getApplicationInstance()),
+                    new Handler(Looper.getMainLooper()), THREADS);
+        }
+        return instance;
+    }
+
+    public ThumbnailLoader(PhotoCaptureHelper photoCaptureHelper, Handler mainThread, int threads) {
+        this.photoCaptureHelper = photoCaptureHelper;
+        this.mainThread = mainThread;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThumbnailThreadFactory());
+    }
+
+    public synchronized void load(String photoKey, ImageView imageView) {
+        String previousKey = boundKeys.put(imageView, photoKey);
+        if (previousKey != null && !previousKey.equals(photoKey)) {
+            cancelIfUnwanted(previousKey);
+        }
+
+        Bitmap cached = photoCaptureHelper.getCachedThumbnail(photoKey);
+        if (cached != null) {
+            boundKeys.remove(imageView);
+            imageView.setImageBitmap(cached);
+            return;
+        }
+
+        imageView.setImageDrawable(new ColorDrawable(Color.BLACK));
+        Request request = requests.get(photoKey);
+        if (request == null) {
+            request = new Request(photoKey, ++sequence);
+            requests.put(photoKey, request);
+            executor.execute(request);
+        } else if (executor.remove(request)) {
+            request.sequence = ++sequence;
+            executor.execute(request);
+        }
+    }
+
+    private void cancelIfUnwanted(String photoKey) {
+        if (!boundKeys.containsValue(photoKey)) {
+            Request request = requests.remove(photoKey);
+            if (request != null) {
+                executor.remove(request);
+                request.cancel();
+            }
+        }
+    }
+
+    private synchronized void finished(Request request) {
+        if (requests.get(request.photoKey) == request) {
+            requests.remove(request.photoKey);
+        }
+    }
+
+    private synchronized void assign(String photoKey, Bitmap bitmap) {
+        List<ImageView> imageViews = new ArrayList<ImageView>();
+        for (Map.Entry<ImageView, String> boundKey : boundKeys.entrySet()) {
+            if (photoKey.equals(boundKey.getValue())) {
+                imageViews.add(boundKey.getKey());
+            }
+        }
+        for (ImageView imageView : imageViews) {
+            boundKeys.remove(imageView);
+            imageView.setImageBitmap(bitmap);
+        }
+    }
+
+    private class Request implements Runnable, Comparable<Request> {
+        private final String photoKey;
+        private long sequence;
+        private boolean cancelled;
+        private Thread runner;
+
+        Request(String photoKey, long sequence) {
+            this.photoKey = photoKey;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+
+            try {
+                final Bitmap bitmap = photoCaptureHelper.getThumbnailOrDefault(photoKey);
+                finished(this);
+                mainThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        assign(photoKey, bitmap);
+                    }
+                });
+            } catch (RuntimeException e) {
+                finished(this);
+                if (!isCancelled()) {
+                    Log.e("ThumbnailLoader", "Error while loading thumbnail " + photoKey, e);
+                }
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                Thread.interrupted();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            return sequence == other.sequence ? 0 : (sequence > other.sequence ? -1 : 1);
+        }
+    }
+
+    private static class ThumbnailThreadFactory implements ThreadFactory {
+        private int count;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "thumbnail-" + (++count));
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
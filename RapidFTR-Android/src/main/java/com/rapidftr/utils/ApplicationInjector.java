@@ -10,7 +10,7 @@ import com.google.inject.name.Named;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.database.DatabaseHelper;
 import com.rapidftr.database.DatabaseSession;
-import com.rapidftr.database.SQLCipherHelper;
+import com.rapidftr.database.SQLCipherConnections;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.Enquiry;
 import com.rapidftr.model.PotentialMatch;
@@ -32,7 +32,6 @@ public class ApplicationInjector extends AbstractModule {
     @Override
     protected void configure() {
         bind(Context.class).to(RapidFtrApplication.class);
-        bind(DatabaseHelper.class).to(SQLCipherHelper.class);
         bind(new TypeLiteral<Repository<Child>>() {
         }).to(ChildRepository.class);
         bind(new TypeLiteral<Repository<Enquiry>>() {
@@ -66,6 +65,11 @@ public class ApplicationInjector extends AbstractModule {
         return RapidFtrApplication.getApplicationInstance();
     }
 
+    @Provides
+    public DatabaseHelper getDatabaseHelper(User user, Context context) {
+        return SQLCipherConnections.lease(user, context);
+    }
+
     @Provides
     public DatabaseSession getDatabaseSession(DatabaseHelper helper) {
         return helper.getSession();
@@ -0,0 +1,39 @@
+package com.rapidftr.utils;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/*
+ * Decrypted photos and thumbnails, keyed by file name without extension and bounded by their size in bytes.
+ * Saves a list row or photo grid cell from re-reading, decrypting and decoding its image every time it scrolls back into view.
+ * PhotoCaptureHelper invalidates a key whenever it rewrites the file, and LogOutService clears the cache on logout.
+ */
+public class BitmapCache {
+
+    public static final int MAX_BYTES = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+
+    private static final LruCache<String, Bitmap> bitmaps = new LruCache<String, Bitmap>(MAX_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+
+    public static Bitmap get(String key) {
+        return bitmaps.get(key);
+    }
+
+    public static void put(String key, Bitmap bitmap) {
+        if (bitmap != null) {
+            bitmaps.put(key, bitmap);
+        }
+    }
+
+    public static void invalidate(String key) {
+        bitmaps.remove(key);
+    }
+
+    public static void clear() {
+        bitmaps.evictAll();
+    }
+}
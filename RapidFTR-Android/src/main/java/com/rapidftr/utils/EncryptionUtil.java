@@ -1,6 +1,7 @@
 package com.rapidftr.utils;
 
 import android.util.Base64;
+import lombok.Cleanup;
 
 import javax.crypto.*;
 import javax.crypto.spec.IvParameterSpec;
@@ -9,6 +10,8 @@ import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
 import java.security.GeneralSecurityException;
 import java.security.spec.KeySpec;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class EncryptionUtil {
 
@@ -17,18 +20,30 @@ public class EncryptionUtil {
     public static final String SECRET_KEY_FACTORY_ALGORITHM = "PBKDF2WithHmacSHA1";
     public static final String SECRET_KEY_ALGORITHM = "AES";
     public static final String CIPHER_ALGORITHM = "AES/CBC/PKCS5Padding";
+    public static final int KEY_CACHE_SIZE = 64;
+
+    /*
+     * File ciphers use the file name as salt, so without this every photo or thumbnail read costs a full key derivation.
+     * Keys are cached per (password, salt) and the cache is cleared on logout, so derived keys never outlive the user's session.
+     */
+    private static final Map<String, SecretKey> derivedKeys = new LinkedHashMap<String, SecretKey>(KEY_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SecretKey> eldest) {
+            return size() > KEY_CACHE_SIZE;
+        }
+    };
+    private static int keyCacheHits;
+    private static int keyCacheMisses;
 
     /**
      * Reference: http://nelenkov.blogspot.in/2012/04/using-password-based-encryption-on.html
      * NOTE: Using the seed as both Salt & IV, since we have no space to store the Salt & IV in the encrypted data
      */
     public static Cipher getCipher(String password, String seed, int mode) throws IOException, GeneralSecurityException {
-        byte salt[] = seed.getBytes();
-        KeySpec keySpec = new PBEKeySpec(password.toCharArray(), salt, KEY_ITERATION_COUNT, KEY_LENGTH);
-        SecretKeyFactory keyFactory = SecretKeyFactory.getInstance(SECRET_KEY_FACTORY_ALGORITHM);
-        byte[] keyBytes = keyFactory.generateSecret(keySpec).getEncoded();
-        SecretKey key = new SecretKeySpec(keyBytes, SECRET_KEY_ALGORITHM);
+        return getCipher(deriveKey(password, seed), seed, mode);
+    }
 
+    private static Cipher getCipher(SecretKey key, String seed, int mode) throws GeneralSecurityException {
         Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
         byte[] iv = paddedByteArray(seed, cipher.getBlockSize());
         IvParameterSpec ivSpec = new IvParameterSpec(iv);
@@ -47,11 +62,82 @@ public class EncryptionUtil {
     }
 
     public static OutputStream getCipherOutputStream(File file, String password) throws GeneralSecurityException, IOException {
-        return new CipherOutputStream(new FileOutputStream(file), getCipher(password, file.getName(), Cipher.ENCRYPT_MODE));
+        return new CipherOutputStream(new FileOutputStream(file), getCipher(cachedKey(password, file.getName()), file.getName(), Cipher.ENCRYPT_MODE));
     }
 
     public static InputStream getCipherInputStream(File file, String password) throws GeneralSecurityException, IOException {
-        return new CipherInputStream(new FileInputStream(file), getCipher(password, file.getName(), Cipher.DECRYPT_MODE));
+        return new CipherInputStream(new FileInputStream(file), getCipher(cachedKey(password, file.getName()), file.getName(), Cipher.DECRYPT_MODE));
+    }
+
+    /*
+     * The plain text length of a file written by getCipherOutputStream. Only the last block is decrypted, to read its padding.
+     */
+    public static long getDecryptedLength(File file, String password) throws GeneralSecurityException, IOException {
+        Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+        int blockSize = cipher.getBlockSize();
+        long length = file.length();
+        if (length == 0 || length % blockSize != 0) {
+            throw new IOException("Not an encrypted file " + file.getName());
+        }
+
+        byte[] iv = paddedByteArray(file.getName(), blockSize);
+        byte[] lastBlock = new byte[blockSize];
+        @Cleanup RandomAccessFile in = new RandomAccessFile(file, "r");
+        if (length >= 2 * blockSize) {
+            in.seek(length - 2 * blockSize);
+            in.readFully(iv);
+        }
+        in.seek(length - blockSize);
+        in.readFully(lastBlock);
+
+        cipher.init(Cipher.DECRYPT_MODE, cachedKey(password, file.getName()), new IvParameterSpec(iv));
+        return length - blockSize + cipher.doFinal(lastBlock).length;
+    }
+
+    public static void clearKeyCache() {
+        synchronized (derivedKeys) {
+            derivedKeys.clear();
+            keyCacheHits = 0;
+            keyCacheMisses = 0;
+        }
+    }
+
+    public static int getKeyCacheHits() {
+        synchronized (derivedKeys) {
+            return keyCacheHits;
+        }
+    }
+
+    public static int getKeyCacheMisses() {
+        synchronized (derivedKeys) {
+            return keyCacheMisses;
+        }
+    }
+
+    private static SecretKey cachedKey(String password, String seed) throws GeneralSecurityException {
+        String cacheKey = password + '\0' + seed;
+        synchronized (derivedKeys) {
+            SecretKey key = derivedKeys.get(cacheKey);
+            if (key != null) {
+                keyCacheHits++;
+                return key;
+            }
+            keyCacheMisses++;
+        }
+
+        SecretKey key = deriveKey(password, seed);
+        synchronized (derivedKeys) {
+            derivedKeys.put(cacheKey, key);
+        }
+        return key;
+    }
+
+    private static SecretKey deriveKey(String password, String seed) throws GeneralSecurityException {
+        byte salt[] = seed.getBytes();
+        KeySpec keySpec = new PBEKeySpec(password.toCharArray(), salt, KEY_ITERATION_COUNT, KEY_LENGTH);
+        SecretKeyFactory keyFactory = SecretKeyFactory.getInstance(SECRET_KEY_FACTORY_ALGORITHM);
+        byte[] keyBytes = keyFactory.generateSecret(keySpec).getEncoded();
+        return new SecretKeySpec(keyBytes, SECRET_KEY_ALGORITHM);
     }
 
     public static byte[] paddedByteArray(String str, int size) {
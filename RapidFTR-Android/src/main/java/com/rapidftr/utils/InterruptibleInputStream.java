@@ -0,0 +1,40 @@
+package com.rapidftr.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/*
+ * Stops a read as soon as the reading thread is interrupted, so a cancelled image decode does not decrypt the rest of the file.
+ */
+public class InterruptibleInputStream extends FilterInputStream {
+
+    public InterruptibleInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkInterrupted();
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        checkInterrupted();
+        return super.read(buffer, offset, count);
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        checkInterrupted();
+        return super.skip(count);
+    }
+
+    private void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Read interrupted");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.rapidftr.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.Cleanup;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Reads JSON straight off a response stream with Jackson's streaming parser, building the org.json objects the models use
+ * token by token. The raw body is never held as a String next to its parsed tree, which matters for large records on low memory devices.
+ */
+public class JSONStreams {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public static JSONObject readObject(InputStream in) throws IOException, JSONException {
+        @Cleanup JsonParser parser = JSON_FACTORY.createParser(in);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JSONException("Expected a JSON object");
+        }
+        return readObject(parser);
+    }
+
+    public static List<JSONObject> readObjects(InputStream in) throws IOException, JSONException {
+        @Cleanup JsonParser parser = JSON_FACTORY.createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JSONException("Expected a JSON array");
+        }
+
+        List<JSONObject> objects = new ArrayList<JSONObject>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            objects.add(readObject(parser));
+        }
+        return objects;
+    }
+
+    /*
+     * Collects one string field from each object of a top level array, skipping over everything else without building it.
+     */
+    public static List<String> readFieldOfEach(InputStream in, String fieldName) throws IOException, JSONException {
+        @Cleanup JsonParser parser = JSON_FACTORY.createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JSONException("Expected a JSON array");
+        }
+
+        List<String> values = new ArrayList<String>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String value = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean wanted = fieldName.equals(parser.getCurrentName());
+                parser.nextToken();
+                if (wanted) {
+                    value = parser.getValueAsString();
+                }
+                parser.skipChildren();
+            }
+            if (value == null) {
+                throw new JSONException("No value for " + fieldName);
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static JSONObject readObject(JsonParser parser) throws IOException, JSONException {
+        JSONObject object = new JSONObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            object.put(name, readValue(parser));
+        }
+        return object;
+    }
+
+    private static JSONArray readArray(JsonParser parser) throws IOException, JSONException {
+        JSONArray array = new JSONArray();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            array.put(readValue(parser));
+        }
+        return array;
+    }
+
+    private static Object readValue(JsonParser parser) throws IOException, JSONException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                return readObject(parser);
+            case START_ARRAY:
+                return readArray(parser);
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return readInteger(parser);
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return JSONObject.NULL;
+            default:
+                throw new JSONException("Unexpected token " + parser.getCurrentToken());
+        }
+    }
+
+    private static Object readInteger(JsonParser parser) throws IOException {
+        switch (parser.getNumberType()) {
+            case INT:
+                return parser.getIntValue();
+            case LONG:
+                return parser.getLongValue();
+            default:
+                return parser.getDoubleValue();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Matrix;
 import android.media.ExifInterface;
+import android.os.Build;
 import android.provider.BaseColumns;
 import android.provider.MediaStore;
 import android.util.Log;
@@ -30,6 +31,11 @@ public class PhotoCaptureHelper extends CaptureHelper {
 	public static final int PHOTO_WIDTH = 475;
 	public static final int PHOTO_HEIGHT = 635;
     public static final int QUALITY = 85;
+    private static final int KITKAT = 19;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // The last capture, kept after it has been saved so that the next capture can decode into its memory
+    private static Bitmap reusableCapture;
     private Bitmap defaultThumbNail;
 
     public PhotoCaptureHelper(RapidFtrApplication context) {
@@ -51,8 +57,69 @@ public class PhotoCaptureHelper extends CaptureHelper {
         application.getSharedPreferences().edit().putLong("capture_start_time", Calendar.getInstance().getTimeInMillis()).commit();
     }
 
+    /*
+     * Decodes the camera frame subsampled to the smallest power of two that still covers PHOTO_WIDTH x PHOTO_HEIGHT,
+     * rather than allocating the full frame only to scale it down in savePhoto.
+     */
     public Bitmap getCapture() throws IOException {
-        return BitmapFactory.decodeFile(getTempCaptureFile().getAbsolutePath());
+        String path = getTempCaptureFile().getAbsolutePath();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, options);
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSizeFor(options.outWidth, options.outHeight, PHOTO_WIDTH, PHOTO_HEIGHT);
+        options.inMutable = true;
+        options.inBitmap = takeReusableCapture(options);
+        try {
+            return BitmapFactory.decodeFile(path, options);
+        } catch (IllegalArgumentException e) {
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(path, options);
+        }
+    }
+
+    /*
+     * Called once a capture has been saved, in place of recycling it.
+     */
+    public void releaseCapture(Bitmap capture) {
+        synchronized (PhotoCaptureHelper.class) {
+            if (reusableCapture != null && reusableCapture != capture) {
+                reusableCapture.recycle();
+            }
+            reusableCapture = capture;
+        }
+    }
+
+    private static synchronized Bitmap takeReusableCapture(BitmapFactory.Options options) {
+        Bitmap candidate = reusableCapture;
+        reusableCapture = null;
+        if (candidate != null && !candidate.isRecycled() && candidate.isMutable() && canDecodeInto(candidate, options)) {
+            return candidate;
+        }
+        if (candidate != null) {
+            candidate.recycle();
+        }
+        return null;
+    }
+
+    private static boolean canDecodeInto(Bitmap candidate, BitmapFactory.Options options) {
+        if (Build.VERSION.SDK_INT >= KITKAT) {
+            long width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+            long height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+            return candidate.getByteCount() >= width * height * BYTES_PER_PIXEL;
+        }
+        // Before KitKat a bitmap can only be reused for an image of exactly its size, decoded without subsampling
+        return options.inSampleSize == 1 && candidate.getWidth() == options.outWidth && candidate.getHeight() == options.outHeight;
+    }
+
+    protected static int sampleSizeFor(int width, int height, int maxWidth, int maxHeight) {
+        double scaleRatio = scaleRatio(width, height, maxWidth, maxHeight);
+        int sampleSize = 1;
+        while (sampleSize * 2 * scaleRatio <= 1) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
     }
 
     public void deleteCaptures() {
@@ -103,11 +170,12 @@ public class PhotoCaptureHelper extends CaptureHelper {
     }
 
     public void savePhoto(Bitmap original, int rotationDegree, String fileNameWithoutExtension) throws IOException, GeneralSecurityException {
-	    Bitmap scaled = scaleImageTo(original, PHOTO_WIDTH, PHOTO_HEIGHT);
-	    Bitmap rotated = rotateBitmap(scaled, rotationDegree);
-	    save(rotated, fileNameWithoutExtension, QUALITY, application.getCurrentUser().getDbKey());
-	    scaled.recycle();
-	    rotated.recycle();
+	    double scaleRatio = scaleRatio(original.getWidth(), original.getHeight(), PHOTO_WIDTH, PHOTO_HEIGHT);
+	    Bitmap transformed = scaleAndRotate(original, (int) (original.getWidth() * scaleRatio), (int) (original.getHeight() * scaleRatio), rotationDegree);
+	    save(transformed, fileNameWithoutExtension, QUALITY, application.getCurrentUser().getDbKey());
+	    if (transformed != original) {
+		    transformed.recycle();
+	    }
     }
 
     protected Bitmap resizeImageTo(Bitmap image, int width, int height) {
@@ -115,7 +183,11 @@ public class PhotoCaptureHelper extends CaptureHelper {
     }
 
 	protected Bitmap scaleImageTo(Bitmap image, int maxWidth, int maxHeight) {
-		double givenWidth = image.getWidth(), givenHeight = image.getHeight();
+		double scaleRatio = scaleRatio(image.getWidth(), image.getHeight(), maxWidth, maxHeight);
+		return resizeImageTo(image, (int) (image.getWidth() * scaleRatio), (int) (image.getHeight() * scaleRatio));
+	}
+
+	protected static double scaleRatio(double givenWidth, double givenHeight, int maxWidth, int maxHeight) {
 		double scaleRatio = 1.0;
 
 		if (givenWidth > maxWidth || givenHeight > maxHeight) {
@@ -125,8 +197,17 @@ public class PhotoCaptureHelper extends CaptureHelper {
 				scaleRatio = maxHeight / givenHeight;
 			}
 		}
+		return scaleRatio;
+	}
 
-		return resizeImageTo(image, (int) (givenWidth * scaleRatio), (int) (givenHeight * scaleRatio));
+	/*
+	 * Scales and rotates with a single matrix, so only one new bitmap is allocated.
+	 */
+	protected Bitmap scaleAndRotate(Bitmap image, int width, int height, int rotationDegree) {
+		Matrix matrix = new Matrix();
+		matrix.postScale((float) width / image.getWidth(), (float) height / image.getHeight());
+		matrix.postRotate(rotationDegree);
+		return Bitmap.createBitmap(image, 0, 0, image.getWidth(), image.getHeight(), matrix, true);
 	}
 
     protected void save(Bitmap bitmap, String fileNameWithoutExtension, int quality, String key) throws IOException, GeneralSecurityException {
@@ -134,8 +215,16 @@ public class PhotoCaptureHelper extends CaptureHelper {
         File file = new File(getDir(), fileNameWithoutExtension);
         if (!file.exists())
             file.createNewFile();
-        @Cleanup OutputStream outputStream = getCipherOutputStream(file, key);
-        saveImage(bitmap, outputStream, quality);
+        // Invalidated again once the file is written, in case a load cached the old photo while it was being rewritten
+        String cacheKey = fileNameWithoutExtension.replace(".jpg", "");
+        BitmapCache.invalidate(cacheKey);
+        OutputStream outputStream = getCipherOutputStream(file, key);
+        try {
+            saveImage(bitmap, outputStream, quality);
+        } finally {
+            outputStream.close();
+            BitmapCache.invalidate(cacheKey);
+        }
     }
 
 
@@ -144,18 +233,28 @@ public class PhotoCaptureHelper extends CaptureHelper {
     }
 
     public void saveThumbnail(Bitmap original, int rotationDegree, String fileNameWithoutExtension) throws IOException, GeneralSecurityException {
-	    Bitmap scaled = resizeImageTo(original, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT);
-	    Bitmap rotated = rotateBitmap(scaled, rotationDegree);
-        save(rotated, fileNameWithoutExtension + "_thumb", QUALITY, application.getCurrentUser().getDbKey());
+	    Bitmap thumbnail = scaleAndRotate(original, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT, rotationDegree);
+        save(thumbnail, fileNameWithoutExtension + "_thumb", QUALITY, application.getCurrentUser().getDbKey());
     }
 
     public Bitmap loadThumbnail(String fileNameWithoutExtension) throws IOException, GeneralSecurityException {
         return loadPhoto(fileNameWithoutExtension + "_thumb");
     }
 
+    public Bitmap getCachedThumbnail(String fileNameWithoutExtension) {
+        return BitmapCache.get(fileNameWithoutExtension + "_thumb");
+    }
+
     public Bitmap loadPhoto(String fileNameWithoutExtension) throws IOException, GeneralSecurityException {
-        @Cleanup InputStream inputStream = getDecodedImageStream(fileNameWithoutExtension);
-        return decodeStreamToBitMap(inputStream);
+        Bitmap cached = BitmapCache.get(fileNameWithoutExtension);
+        if (cached != null) {
+            return cached;
+        }
+
+        @Cleanup InputStream inputStream = new InterruptibleInputStream(getDecodedImageStream(fileNameWithoutExtension));
+        Bitmap bitmap = decodeStreamToBitMap(inputStream);
+        BitmapCache.put(fileNameWithoutExtension, bitmap);
+        return bitmap;
     }
 
     public InputStream getDecodedImageStream(String fileNameWithoutExtension) throws GeneralSecurityException, IOException {
@@ -199,12 +298,6 @@ public class PhotoCaptureHelper extends CaptureHelper {
         return new ExifInterface(getTempCaptureFile().getAbsolutePath());
     }
 
-    protected Bitmap rotateBitmap(Bitmap bitmap, int rotationDegree) throws IOException {
-        Matrix matrix = new Matrix();
-        matrix.postRotate(rotationDegree);
-        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-    }
-
 
     public void convertPhoto(String photo, String existingKey, String newKey) {
         try {
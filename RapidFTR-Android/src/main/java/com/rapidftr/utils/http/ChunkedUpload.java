@@ -0,0 +1,191 @@
+package com.rapidftr.utils.http;
+
+import android.content.Context;
+import com.rapidftr.RapidFtrApplication;
+import com.rapidftr.utils.EncryptionUtil;
+import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ByteArrayEntity;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.rapidftr.utils.http.FluentRequest.http;
+
+/*
+ * Uploads a media file to /media_uploads/<key> in chunks, each a PUT with a Content-Range header. The server answers
+ * 308 with a Range header covering the bytes it holds so far, or 2xx once it has the whole file. Every upload first
+ * asks for that offset with an empty "bytes * /<length>" PUT, so a chunk lost with the connection is simply sent again.
+ * The journal remembers which version of the file a partial upload belongs to; a file changed since starts over.
+ * Servers without the endpoint answer 404, and upload returns false so the caller can attach the file as before;
+ * such a server is not asked again until logout.
+ */
+public class ChunkedUpload {
+
+    public static final String UPLOADS_PATH = "/media_uploads/";
+    public static final int CHUNK_SIZE = 64 * 1024;
+    private static final int SC_RESUME_INCOMPLETE = 308;
+    private static final String JOURNAL_PREFIX = "upload:";
+
+    private static final Set<String> serversWithoutUploads = Collections.synchronizedSet(new HashSet<String>());
+
+    private final TransferJournal journal;
+
+    public ChunkedUpload(Context context) {
+        this(new TransferJournal(context));
+    }
+
+    public ChunkedUpload(TransferJournal journal) {
+        this.journal = journal;
+    }
+
+    /*
+     * Uploads the file as stored when password is null, otherwise decrypts it on the way out.
+     */
+    public boolean upload(String key, File file, String password) throws IOException, HttpException, GeneralSecurityException {
+        long length = password == null ? file.length() : EncryptionUtil.getDecryptedLength(file, password);
+        if (length == 0) {
+            return false;
+        }
+
+        String server = serverUrl();
+        if (serversWithoutUploads.contains(server)) {
+            return false;
+        }
+
+        String path = UPLOADS_PATH + key;
+        long offset = send(path, "bytes */" + length, new byte[0], length);
+        if (offset < 0) {
+            serversWithoutUploads.add(server);
+            return false;
+        }
+        String version = length + ":" + file.lastModified();
+        if (offset < length && !version.equals(journal.get(JOURNAL_PREFIX + key))) {
+            journal.put(JOURNAL_PREFIX + key, version);
+            offset = 0;
+        }
+
+        InputStream in = null;
+        long position = 0;
+        try {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            while (offset < length) {
+                if (in == null || position != offset) {
+                    close(in);
+                    in = open(file, password);
+                    skipFully(in, offset);
+                    position = offset;
+                }
+                int size = readFully(in, chunk, (int) Math.min(CHUNK_SIZE, length - offset));
+                position += size;
+
+                long confirmed = send(path, "bytes " + offset + "-" + (position - 1) + "/" + length, Arrays.copyOf(chunk, size), length);
+                if (confirmed <= offset) {
+                    throw new IOException("Upload of " + key + " made no progress past " + offset + " bytes");
+                }
+                offset = confirmed;
+            }
+        } finally {
+            close(in);
+        }
+
+        journal.remove(JOURNAL_PREFIX + key);
+        return true;
+    }
+
+    public static void forgetServersWithoutUploads() {
+        serversWithoutUploads.clear();
+    }
+
+    protected String serverUrl() {
+        return http().getBaseUrl(RapidFtrApplication.getApplicationInstance());
+    }
+
+    protected FluentRequest request(String path) {
+        return http()
+                .context(RapidFtrApplication.getApplicationInstance())
+                .path(path);
+    }
+
+    /*
+     * Returns the number of bytes the server holds, or -1 when it has no upload endpoint.
+     */
+    private long send(String path, String contentRange, byte[] content, long length) throws IOException, HttpException {
+        FluentResponse response = request(path).header("Content-Range", contentRange).put(new ByteArrayEntity(content));
+        int status = response.getStatusLine().getStatusCode();
+        if (response.isSuccess()) {
+            consume(response);
+            return length;
+        } else if (status == SC_RESUME_INCOMPLETE) {
+            consume(response);
+            return rangeEnd(response) + 1;
+        } else if (status == HttpStatus.SC_NOT_FOUND) {
+            consume(response);
+            return -1;
+        }
+        response.ensureSuccess();
+        return -1;
+    }
+
+    private void consume(FluentResponse response) throws IOException {
+        if (response.getEntity() != null) {
+            response.getEntity().consumeContent();
+        }
+    }
+
+    private long rangeEnd(FluentResponse response) throws IOException {
+        Header range = response.getFirstHeader("Range");
+        if (range == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(range.getValue().substring(range.getValue().lastIndexOf('-') + 1).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Unexpected range " + range.getValue());
+        }
+    }
+
+    private InputStream open(File file, String password) throws IOException, GeneralSecurityException {
+        return password == null ? new FileInputStream(file) : EncryptionUtil.getCipherInputStream(file, password);
+    }
+
+    private void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private int readFully(InputStream in, byte[] buffer, int size) throws IOException {
+        int read = 0;
+        while (read < size) {
+            int count = in.read(buffer, read, size - read);
+            if (count == -1) {
+                throw new EOFException();
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    private void close(InputStream in) throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.rapidftr.utils.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/*
+ * Gzip and deflate for FluentRequest's client, which httpclient 4.0 does not do by itself.
+ *   - requests ask for gzip or deflate responses, unless they name an Accept-Encoding already; media transfers ask for
+ *     identity, so that their byte ranges and lengths stay those of the file
+ *   - compressed responses are decoded as they are read
+ *   - JSON and form bodies are sent gzipped to servers which list gzip in an Accept-Encoding response header
+ *     (RFC 7694), compressed up front so they go with a Content-Length; a 415 Unsupported Media Type or 411 Length
+ *     Required answer turns that off again for the server. Multipart bodies carry media which is compressed already,
+ *     and servers commonly parse them before any content decoding, so they are always sent as they are
+ *   - bodies in both directions are counted, as bytes on the wire against bytes before compression
+ */
+public class ContentCompression implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    private static final String GZIPPED_REQUEST = "rapidftr.gzipped-request";
+
+    private static final AtomicLong wireBytes = new AtomicLong();
+    private static final AtomicLong logicalBytes = new AtomicLong();
+
+    private final Set<String> gzipRequestHosts = Collections.synchronizedSet(new HashSet<String>());
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+        if (!request.containsHeader(ACCEPT_ENCODING)) {
+            request.addHeader(ACCEPT_ENCODING, GZIP + ", " + DEFLATE);
+        }
+
+        HttpEntity entity = request instanceof HttpEntityEnclosingRequest ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+        if (entity == null || entity instanceof CountingEntity) {
+            return;
+        }
+        boolean gzip = entity.getContentEncoding() == null && isText(entity) && gzipRequestHosts.contains(hostOf(context));
+        ((HttpEntityEnclosingRequest) request).setEntity(new CountingEntity(entity, gzip));
+        context.setAttribute(GZIPPED_REQUEST, gzip);
+    }
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
+        String host = hostOf(context);
+        Header acceptEncoding = response.getFirstHeader(ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.getValue().toLowerCase().contains(GZIP)) {
+            gzipRequestHosts.add(host);
+        } else if (isRejectedGzip(response.getStatusLine().getStatusCode())
+                && Boolean.TRUE.equals(context.getAttribute(GZIPPED_REQUEST))) {
+            gzipRequestHosts.remove(host);
+        }
+
+        if (response.getEntity() != null) {
+            response.setEntity(new DecodingEntity(response.getEntity()));
+        }
+    }
+
+    public static long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    public static long getLogicalBytes() {
+        return logicalBytes.get();
+    }
+
+    public static void resetCounters() {
+        wireBytes.set(0);
+        logicalBytes.set(0);
+    }
+
+    private String hostOf(HttpContext context) {
+        HttpHost host = (HttpHost) context.getAttribute(ExecutionContext.HTTP_TARGET_HOST);
+        return host == null ? "" : host.toHostString();
+    }
+
+    private boolean isText(HttpEntity entity) {
+        String contentType = entity.getContentType() == null ? "" : entity.getContentType().getValue().toLowerCase();
+        return contentType.startsWith("application/json") || contentType.startsWith("application/x-www-form-urlencoded");
+    }
+
+    private boolean isRejectedGzip(int status) {
+        return status == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE || status == HttpStatus.SC_LENGTH_REQUIRED;
+    }
+
+    private static class CountingEntity extends HttpEntityWrapper {
+        private final byte[] gzipped;
+        private final long uncompressedLength;
+
+        CountingEntity(HttpEntity entity, boolean gzip) throws IOException {
+            super(entity);
+            if (gzip) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                AtomicLong length = new AtomicLong();
+                GZIPOutputStream compressed = new GZIPOutputStream(buffer);
+                entity.writeTo(new CountingOutputStream(compressed, length));
+                compressed.close();
+                this.gzipped = buffer.toByteArray();
+                this.uncompressedLength = length.get();
+            } else {
+                this.gzipped = null;
+                this.uncompressedLength = 0;
+            }
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return gzipped != null ? new BasicHeader("Content-Encoding", GZIP) : super.getContentEncoding();
+        }
+
+        @Override
+        public long getContentLength() {
+            return gzipped != null ? gzipped.length : super.getContentLength();
+        }
+
+        @Override
+        public boolean isChunked() {
+            return gzipped == null && super.isChunked();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return gzipped != null || super.isRepeatable();
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return gzipped != null ? new ByteArrayInputStream(gzipped) : super.getContent();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            OutputStream wire = new CountingOutputStream(out, wireBytes);
+            if (gzipped != null) {
+                wire.write(gzipped);
+                logicalBytes.addAndGet(uncompressedLength);
+            } else {
+                wrappedEntity.writeTo(new CountingOutputStream(wire, logicalBytes));
+            }
+            wire.flush();
+        }
+    }
+
+    private static class DecodingEntity extends HttpEntityWrapper {
+        private InputStream content;
+
+        DecodingEntity(HttpEntity entity) {
+            super(entity);
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (content == null) {
+                InputStream wire = new CountingInputStream(wrappedEntity.getContent(), wireBytes);
+                String encoding = isEncoded() ? wrappedEntity.getContentEncoding().getValue().trim().toLowerCase() : "";
+                if (encoding.equals(GZIP) || encoding.equals("x-gzip")) {
+                    wire = new GZIPInputStream(wire);
+                } else if (encoding.equals(DEFLATE)) {
+                    wire = new InflaterInputStream(wire);
+                }
+                content = new CountingInputStream(wire, logicalBytes);
+            }
+            return content;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return isEncoded() ? null : super.getContentEncoding();
+        }
+
+        @Override
+        public long getContentLength() {
+            return isEncoded() ? -1 : super.getContentLength();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            InputStream in = getContent();
+            try {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        private boolean isEncoded() {
+            return wrappedEntity.getContentEncoding() != null;
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                counter.incrementAndGet();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                counter.addAndGet(read);
+            }
+            return read;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong counter;
+
+        CountingOutputStream(OutputStream out, AtomicLong counter) {
+            super(out);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            counter.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            counter.addAndGet(length);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.rapidftr.utils.http;
+
+import com.rapidftr.utils.EncryptionUtil;
+import lombok.Cleanup;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+
+/*
+ * A multipart body which decrypts its file straight into the request as it is written, so an upload never holds
+ * a whole attachment in memory, however many photos a record has.
+ */
+public class EncryptedFileBody extends AbstractContentBody {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final File file;
+    private final String password;
+    private final String filename;
+    private Long contentLength;
+
+    public EncryptedFileBody(File file, String password, String mimeType, String filename) {
+        super(mimeType);
+        this.file = file;
+        this.password = password;
+        this.filename = filename;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        @Cleanup InputStream in = openDecrypted();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        out.flush();
+    }
+
+    @Override
+    public String getCharset() {
+        return null;
+    }
+
+    @Override
+    public String getTransferEncoding() {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength() {
+        if (contentLength == null) {
+            try {
+                contentLength = EncryptionUtil.getDecryptedLength(file, password);
+            } catch (Exception e) {
+                contentLength = -1L;
+            }
+        }
+        return contentLength;
+    }
+
+    private InputStream openDecrypted() throws IOException {
+        try {
+            return EncryptionUtil.getCipherInputStream(file, password);
+        } catch (GeneralSecurityException e) {
+            throw (IOException) new IOException(e.getMessage()).initCause(e);
+        }
+    }
+}
@@ -9,18 +9,21 @@ import com.rapidftr.model.BaseModel;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.Enquiry;
 import com.rapidftr.utils.AudioCaptureHelper;
-import com.rapidftr.utils.IOUtils;
 import com.rapidftr.utils.PhotoCaptureHelper;
 import lombok.Getter;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.*;
 import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntity;
-import org.apache.http.entity.mime.content.ByteArrayBody;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.entity.mime.content.StringBody;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
@@ -32,7 +35,6 @@ import org.json.JSONArray;
 import org.json.JSONException;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
@@ -44,6 +46,9 @@ import static com.rapidftr.RapidFtrApplication.SERVER_URL_PREF;
 
 public class FluentRequest {
 
+    public static final int MAX_CONNECTIONS_PER_ROUTE = 8;
+    public static final String UPLOADED_MEDIA_PREFIX = "uploaded_";
+
     private static @Getter(lazy = true) final DefaultHttpClient httpClient = createHttpClient();
 
     protected Map<String, String> headers;
@@ -51,6 +56,7 @@ public class FluentRequest {
     protected Map<String, Object> configs;
     protected Uri.Builder uri;
     protected Context context;
+    protected HttpValidators validators;
 
     public static FluentRequest http() {
         return new FluentRequest();
@@ -99,6 +105,14 @@ public class FluentRequest {
         return this;
     }
 
+    /*
+     * Makes GET requests conditional on the validators saved for their URL; see FluentResponse.saveValidators.
+     */
+    public FluentRequest validators(HttpValidators validators) {
+        this.validators = validators;
+        return this;
+    }
+
     public FluentRequest context(Context context) {
         this.context = context;
         host(getBaseUrl(context));
@@ -123,6 +137,12 @@ public class FluentRequest {
         return executeMultiPart(new HttpPut(uri.build().toString()));
     }
 
+    public FluentResponse put(HttpEntity entity) throws IOException {
+        HttpPut request = new HttpPut(uri.build().toString());
+        request.setEntity(entity);
+        return execute(request);
+    }
+
     public FluentResponse delete() throws IOException {
         return executeUnenclosed(new HttpDelete(uri.build().toString()));
     }
@@ -137,6 +157,8 @@ public class FluentRequest {
                     addPhoto(multipartEntity, modelType, modelParam);
                 }else if(modelParam.getKey().equals("recorded_audio")){
                     addAudio(multipartEntity, modelParam);
+                }else if(modelParam.getKey().startsWith(UPLOADED_MEDIA_PREFIX)){
+                    multipartEntity.addPart(modelParam.getKey(), new StringBody(modelParam.getValue(), Charset.defaultCharset()));
                 }else{
                     modelType = modelParam.getKey();
                     addTextFields(multipartEntity, modelType, modelParam);
@@ -164,9 +186,8 @@ public class FluentRequest {
 
     private void addAudio(MultipartEntity multipartEntity, Map.Entry<String, String> modelParam) {
         try {
-            multipartEntity.addPart("[audio]",
-                    new ByteArrayBody(IOUtils.toByteArray(new FileInputStream(new File(new AudioCaptureHelper((RapidFtrApplication) context).getCompleteFileName(modelParam.getValue())))),
-                            "audio/amr", modelParam.getValue()+".amr"));
+            File audio = new File(new AudioCaptureHelper((RapidFtrApplication) context).getCompleteFileName(modelParam.getValue()));
+            multipartEntity.addPart("[audio]", new FileBody(audio, modelParam.getValue() + ".amr", "audio/amr", null));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -187,9 +208,10 @@ public class FluentRequest {
         }
     }
 
-    protected ByteArrayBody attachPhoto(String fileName) throws IOException, GeneralSecurityException {
-        return new ByteArrayBody(IOUtils.toByteArray(new PhotoCaptureHelper((RapidFtrApplication) context).getDecodedImageStream(fileName)),
-                        "image/jpg", fileName+".jpg");
+    protected ContentBody attachPhoto(String fileName) throws IOException, GeneralSecurityException {
+        RapidFtrApplication application = (RapidFtrApplication) context;
+        File photo = new PhotoCaptureHelper(application).getFile(fileName, ".jpg");
+        return new EncryptedFileBody(photo, application.getCurrentUser().getDbKey(), "image/jpg", fileName + ".jpg");
     }
 
     protected FluentResponse executeUnenclosed(HttpRequestBase request) throws IOException {
@@ -225,8 +247,14 @@ public class FluentRequest {
         for (Map.Entry<String, String> header : headers.entrySet())
             request.setHeader(header.getKey(), header.getValue());
 
+        HttpValidators validators = request instanceof HttpGet ? this.validators : null;
+        String url = request.getURI().toString();
+        if (validators != null) {
+            validators.addConditions(request, url);
+        }
+
         reset();
-        return new FluentResponse(getHttpClient().execute(request));
+        return new FluentResponse(getHttpClient().execute(request)).withValidators(validators, url);
     }
 
     public void reset() {
@@ -235,6 +263,7 @@ public class FluentRequest {
         configs = new HashMap<String, Object>();
         uri = new Uri.Builder();
         context = null;
+        validators = null;
 
         header("Accept", "application/json");
         scheme("http"); // TODO: Default scheme should be https, but how to specify URL in Login Screen?
@@ -256,9 +285,15 @@ public class FluentRequest {
             registry.register(new Scheme("https", new SelfSignedSSLSocketFactory(), 443));
 
             HttpParams params = new BasicHttpParams();
+            ConnManagerParams.setMaxTotalConnections(params, MAX_CONNECTIONS_PER_ROUTE);
+            ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(MAX_CONNECTIONS_PER_ROUTE));
             ClientConnectionManager connectionManager = new ThreadSafeClientConnManager(params, registry);
 
-            return new DefaultHttpClient(connectionManager, params);
+            DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager, params);
+            ContentCompression compression = new ContentCompression();
+            httpClient.addRequestInterceptor(compression, 0);
+            httpClient.addResponseInterceptor(compression);
+            return httpClient;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
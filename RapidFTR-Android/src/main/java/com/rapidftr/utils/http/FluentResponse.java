@@ -7,6 +7,7 @@ import lombok.Delegate;
 import lombok.RequiredArgsConstructor;
 import org.apache.http.HttpException;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -18,11 +19,33 @@ public class FluentResponse implements HttpResponse {
     @Delegate
     final HttpResponse response;
 
+    private HttpValidators validators;
+    private String url;
+
+    FluentResponse withValidators(HttpValidators validators, String url) {
+        this.validators = validators;
+        this.url = url;
+        return this;
+    }
+
     public boolean isSuccess() {
         int statusCode = response.getStatusLine().getStatusCode();
         return statusCode >= 200 && statusCode < 300;
     }
 
+    public boolean isNotModified() {
+        return response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
+    }
+
+    /*
+     * Call once the content of a successful conditional GET has been stored, so the next request for it can be answered 304.
+     */
+    public void saveValidators() {
+        if (validators != null && isSuccess()) {
+            validators.save(url, response);
+        }
+    }
+
     public FluentResponse ensureSuccess() throws HttpException {
         if (this.isSuccess()) {
             return this;
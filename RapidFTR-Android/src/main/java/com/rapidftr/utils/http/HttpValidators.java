@@ -0,0 +1,54 @@
+package com.rapidftr.utils.http;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+
+/*
+ * ETag and Last-Modified validators of GET responses whose content is already stored, keyed by URL and kept in their
+ * own shared preferences file. A request sent with them lets the server answer 304 Not Modified instead of the content.
+ */
+public class HttpValidators {
+
+    public static final String PREFERENCES_NAME = "http_validators";
+
+    private static final String ETAG_PREFIX = "etag ";
+    private static final String LAST_MODIFIED_PREFIX = "last-modified ";
+
+    private final SharedPreferences preferences;
+
+    public HttpValidators(Context context) {
+        this.preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    public void addConditions(HttpRequest request, String url) {
+        String eTag = preferences.getString(ETAG_PREFIX + url, null);
+        if (eTag != null) {
+            request.setHeader("If-None-Match", eTag);
+        }
+        String lastModified = preferences.getString(LAST_MODIFIED_PREFIX + url, null);
+        if (lastModified != null) {
+            request.setHeader("If-Modified-Since", lastModified);
+        }
+    }
+
+    public void save(String url, HttpResponse response) {
+        Header eTag = response.getFirstHeader("ETag");
+        Header lastModified = response.getFirstHeader("Last-Modified");
+
+        SharedPreferences.Editor editor = preferences.edit().remove(ETAG_PREFIX + url).remove(LAST_MODIFIED_PREFIX + url);
+        if (eTag != null) {
+            editor.putString(ETAG_PREFIX + url, eTag.getValue());
+        }
+        if (lastModified != null) {
+            editor.putString(LAST_MODIFIED_PREFIX + url, lastModified.getValue());
+        }
+        editor.commit();
+    }
+
+    public void clear() {
+        preferences.edit().clear().commit();
+    }
+}
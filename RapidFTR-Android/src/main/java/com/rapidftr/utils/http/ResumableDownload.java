@@ -0,0 +1,186 @@
+package com.rapidftr.utils.http;
+
+import android.content.Context;
+import com.rapidftr.RapidFtrApplication;
+import com.rapidftr.utils.EncryptionUtil;
+import com.rapidftr.utils.IOUtils;
+import lombok.Cleanup;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.rapidftr.utils.http.FluentRequest.http;
+
+/*
+ * Downloads a photo or audio resource into partial files in private storage. The journal keeps the response's
+ * validator (a strong ETag, or Last-Modified), so a download cut off part way is resumed on the next attempt with a
+ * Range request for the bytes it is missing. If-Range makes the server send the whole resource again when it has
+ * changed since, and a body shorter than its Content-Length counts as a dropped connection, not a complete file.
+ * Media is never on disk in the clear: each attempt appends a segment encrypted with the file cipher, and the complete
+ * download is read back through it.
+ */
+public class ResumableDownload {
+
+    public static final String PARTS_DIRECTORY = "transfers";
+    private static final String PART_SUFFIX = ".part";
+    private static final String JOURNAL_PREFIX = "download:";
+
+    private final TransferJournal journal;
+    private final File partsDir;
+
+    public ResumableDownload(Context context) {
+        this(new TransferJournal(context), context.getDir(PARTS_DIRECTORY, Context.MODE_PRIVATE));
+    }
+
+    public ResumableDownload(TransferJournal journal, File partsDir) {
+        this.journal = journal;
+        this.partsDir = partsDir;
+    }
+
+    /*
+     * Returns the complete resource, decrypted as it is read; closing the stream deletes the partial files.
+     */
+    public InputStream download(String key, String resourcePath, String password) throws IOException, HttpException, GeneralSecurityException {
+        String validator = journal.get(JOURNAL_PREFIX + key);
+        long offset = validator == null ? 0 : downloadedLength(key, password);
+
+        FluentRequest request = request(resourcePath).header(ContentCompression.ACCEPT_ENCODING, "identity");
+        if (offset > 0) {
+            request.header("Range", "bytes=" + offset + "-").header("If-Range", validator);
+        }
+        FluentResponse response = request.get();
+        HttpEntity entity = response.getEntity();
+        if (response.getStatusLine().getStatusCode() == HttpStatus.SC_PARTIAL_CONTENT) {
+            if (offset == 0 || rangeStart(response) != offset) {
+                entity.consumeContent();
+                throw new IOException("Unexpected range " + response.getFirstHeader("Content-Range") + " for " + key);
+            }
+        } else {
+            response.ensureSuccess();
+            offset = 0;
+        }
+        if (offset == 0) {
+            discard(key);
+        }
+
+        String newValidator = validatorOf(response);
+        if (newValidator != null) {
+            journal.put(JOURNAL_PREFIX + key, newValidator);
+        } else {
+            journal.remove(JOURNAL_PREFIX + key);
+        }
+
+        long expectedLength = entity.getContentLength() < 0 ? -1 : offset + entity.getContentLength();
+        long length = offset + append(key, entity, password);
+        if (expectedLength >= 0 && length != expectedLength) {
+            throw new IOException("Download of " + key + " stopped at " + length + " of " + expectedLength + " bytes");
+        }
+
+        journal.remove(JOURNAL_PREFIX + key);
+        return read(key, password);
+    }
+
+    /*
+     * Deletes every partial download and forgets their progress.
+     */
+    public void discardAll() {
+        File[] parts = partsDir.listFiles();
+        if (parts != null) {
+            for (File part : parts) {
+                part.delete();
+            }
+        }
+        journal.removeAll(JOURNAL_PREFIX);
+    }
+
+    private void discard(String key) {
+        for (File segment : segments(key)) {
+            segment.delete();
+        }
+    }
+
+    // A segment cut off before its last block was written can't be read back, so the download starts over
+    private long downloadedLength(String key, String password) {
+        long length = 0;
+        try {
+            for (File segment : segments(key)) {
+                length += EncryptionUtil.getDecryptedLength(segment, password);
+            }
+        } catch (Exception e) {
+            discard(key);
+            return 0;
+        }
+        return length;
+    }
+
+    private long append(String key, HttpEntity entity, String password) throws IOException, GeneralSecurityException {
+        File segment = new File(partsDir, key + PART_SUFFIX + segments(key).size());
+        @Cleanup InputStream in = entity.getContent();
+        @Cleanup OutputStream out = EncryptionUtil.getCipherOutputStream(segment, password);
+        return IOUtils.copyLarge(in, out);
+    }
+
+    private InputStream read(final String key, String password) throws IOException, GeneralSecurityException {
+        List<InputStream> segments = new ArrayList<InputStream>();
+        for (File segment : segments(key)) {
+            segments.add(EncryptionUtil.getCipherInputStream(segment, password));
+        }
+        return new SequenceInputStream(Collections.enumeration(segments)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    discard(key);
+                }
+            }
+        };
+    }
+
+    private List<File> segments(String key) {
+        List<File> segments = new ArrayList<File>();
+        for (int i = 0; new File(partsDir, key + PART_SUFFIX + i).exists(); i++) {
+            segments.add(new File(partsDir, key + PART_SUFFIX + i));
+        }
+        return segments;
+    }
+
+    protected FluentRequest request(String resourcePath) {
+        return http()
+                .context(RapidFtrApplication.getApplicationInstance())
+                .path(resourcePath);
+    }
+
+    private String validatorOf(FluentResponse response) {
+        Header eTag = response.getFirstHeader("ETag");
+        if (eTag != null && !eTag.getValue().startsWith("W/")) {
+            return eTag.getValue();
+        }
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        return lastModified == null ? null : lastModified.getValue();
+    }
+
+    private long rangeStart(FluentResponse response) {
+        Header contentRange = response.getFirstHeader("Content-Range");
+        if (contentRange == null) {
+            return -1;
+        }
+        String range = contentRange.getValue().trim();
+        try {
+            return Long.parseLong(range.substring(range.indexOf(' ') + 1, range.indexOf('-')).trim());
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
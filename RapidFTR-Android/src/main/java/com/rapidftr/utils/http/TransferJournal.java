@@ -0,0 +1,41 @@
+package com.rapidftr.utils.http;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/*
+ * Persisted progress of media transfers, one entry per file, kept in its own shared preferences file so that a
+ * transfer cut off by a dropped connection (or the app being killed) is resumed on the next sync.
+ */
+public class TransferJournal {
+
+    public static final String PREFERENCES_NAME = "media_transfers";
+
+    private final SharedPreferences preferences;
+
+    public TransferJournal(Context context) {
+        this.preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    public String get(String key) {
+        return preferences.getString(key, null);
+    }
+
+    public void put(String key, String value) {
+        preferences.edit().putString(key, value).commit();
+    }
+
+    public void remove(String key) {
+        preferences.edit().remove(key).commit();
+    }
+
+    public void removeAll(String keyPrefix) {
+        SharedPreferences.Editor editor = preferences.edit();
+        for (String key : preferences.getAll().keySet()) {
+            if (key.startsWith(keyPrefix)) {
+                editor.remove(key);
+            }
+        }
+        editor.commit();
+    }
+}
@@ -11,13 +11,34 @@ import com.rapidftr.forms.FormField;
 import com.rapidftr.forms.FormSection;
 import com.rapidftr.model.BaseModel;
 import com.rapidftr.view.fields.BaseView;
+import com.rapidftr.view.fields.FieldLayouts;
 
+import java.util.List;
+
+/*
+ * Fields are inflated a screenful at a time: the first batch when the section is initialized, and each further batch
+ * in its own message on the UI thread, so opening a long section doesn't block on inflating every field in it.
+ */
 public class DefaultFormSectionView extends ScrollView implements FormSectionView {
 
+    public static final int FIELDS_PER_BATCH = 8;
+
     private FormSection formSection;
 
     private BaseModel model;
 
+    private int inflatedFields;
+    private boolean batchScheduled;
+    private Boolean fieldsEnabled;
+
+    private final Runnable inflateNextBatch = new Runnable() {
+        @Override
+        public void run() {
+            batchScheduled = false;
+            inflateFields();
+        }
+    };
+
     public DefaultFormSectionView(Context context) {
         super(context);
         inflateView(context);
@@ -63,15 +84,44 @@ public class DefaultFormSectionView extends ScrollView implements FormSectionVie
     protected void initialize() {
         getLabel().setText(formSection.getLocalizedName());
         getHelpText().setText(formSection.getLocalizedHelpText());
-        for (FormField field : formSection.getFields()) {
-            BaseView fieldView = createFormField(field);
-            if (fieldView != null)
+        inflateFields();
+    }
+
+    private void inflateFields() {
+        List<FormField> fields = formSection.getFields();
+        for (int end = Math.min(inflatedFields + FIELDS_PER_BATCH, fields.size()); inflatedFields < end; inflatedFields++) {
+            BaseView fieldView = createFormField(fields.get(inflatedFields));
+            if (fieldView != null) {
+                if (fieldsEnabled != null)
+                    fieldView.setEnabled(fieldsEnabled);
                 getContainer().addView(fieldView);
+            }
+        }
+        scheduleNextBatch();
+    }
+
+    private void scheduleNextBatch() {
+        if (!batchScheduled && formSection != null && inflatedFields < formSection.getFields().size()) {
+            batchScheduled = true;
+            post(inflateNextBatch);
         }
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        scheduleNextBatch();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeCallbacks(inflateNextBatch);
+        batchScheduled = false;
+        super.onDetachedFromWindow();
+    }
+
     protected int getFieldLayoutId(String fieldType) {
-        return getResources().getIdentifier("form_" + fieldType, "layout", getContext().getPackageName());
+        return FieldLayouts.getLayoutId(getContext(), fieldType);
     }
 
     protected BaseView createFormField(FormField field) {
@@ -90,6 +140,7 @@ public class DefaultFormSectionView extends ScrollView implements FormSectionVie
     @Override
     public void setEnabled(boolean enabled) {
         super.setEnabled(enabled);
+        fieldsEnabled = enabled;
 
         LinearLayout container = getContainer();
         for (int i = 0, j = container.getChildCount(); i < j; i++)
@@ -5,10 +5,6 @@ import android.content.Context;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
-import com.google.common.base.Function;
-import com.google.common.base.Predicates;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.rapidftr.R;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.activity.CollectionActivity;
@@ -18,19 +14,19 @@ import com.rapidftr.adapter.HighlightedFieldsViewAdapter;
 import com.rapidftr.model.BaseModel;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.Enquiry;
-import com.rapidftr.repository.ChildRepository;
-import com.rapidftr.repository.EnquiryRepository;
+import com.rapidftr.repository.MatchedRecords;
 import com.rapidftr.repository.PotentialMatchRepository;
 import lombok.Cleanup;
 import org.json.JSONException;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class PotentialMatchesViewAdapter<T extends BaseModel> extends HighlightedFieldsViewAdapter<T> {
 
-    private List<String> confirmedModels;
+    private Set<String> confirmedIds = new HashSet<String>();
 
     public PotentialMatchesViewAdapter(Context context, List<T> allModels, String formName, Class<CollectionActivity> activityToLaunch) {
         super(context, allModels, formName, activityToLaunch);
@@ -40,7 +36,7 @@ public class PotentialMatchesViewAdapter<T extends BaseModel> extends Highlighte
     public View getView(int position, View convertView, ViewGroup parent) {
         View row = super.getView(position, convertView, parent);
         ImageView imageView = (ImageView) row.findViewById(R.id.confirmation_tick);
-        if(confirmedModels.contains(uniqueIdFor(position))) {
+        if(confirmedIds.contains(uniqueIdFor(position))) {
             imageView.setVisibility(View.VISIBLE);
         } else {
             imageView.setVisibility(View.GONE);
@@ -57,22 +53,8 @@ public class PotentialMatchesViewAdapter<T extends BaseModel> extends Highlighte
         }
     }
 
-    public void setConfirmedModels(List<T> confirmedModels) {
-        this.confirmedModels = collectUniqueIds(confirmedModels);
-    }
-
-    private List<String> collectUniqueIds(List<T> confirmedModels) {
-        Iterable<String> uniqueIds = Iterables.transform(confirmedModels, new Function<T, String>() {
-            @Override
-            public String apply(T t) {
-                try {
-                    return t.getUniqueId();
-                } catch (JSONException e) {
-                    return null;
-                }
-            }
-        });
-        return Lists.newArrayList(Iterables.filter(uniqueIds,Predicates.notNull()));
+    public void setConfirmedIds(Set<String> confirmedIds) {
+        this.confirmedIds = confirmedIds;
     }
 
     public static class Builder {
@@ -101,21 +83,15 @@ public class PotentialMatchesViewAdapter<T extends BaseModel> extends Highlighte
 
         public PotentialMatchesViewAdapter build() {
             @Cleanup PotentialMatchRepository potentialMatchRepository = RapidFtrApplication.getApplicationInstance().getBean(PotentialMatchRepository.class);
-            @Cleanup ChildRepository childRepository = RapidFtrApplication.getApplicationInstance().getBean(ChildRepository.class);
-            @Cleanup EnquiryRepository enquiryRepository = RapidFtrApplication.getApplicationInstance().getBean(EnquiryRepository.class);
 
-            List<BaseModel> confirmedMatches = model.getConfirmedMatchingModels(potentialMatchRepository, childRepository, enquiryRepository);
-            List<BaseModel> potentialMatches = new ArrayList<BaseModel>();
+            MatchedRecords<? extends BaseModel> matches = new MatchedRecords<BaseModel>();
             try {
-                potentialMatches = model.getPotentialMatchingModels(potentialMatchRepository, childRepository, enquiryRepository);
+                matches = model.getMatches(potentialMatchRepository);
             } catch (JSONException e) {
                 e.printStackTrace();
             }
-            List<BaseModel> allModels = new ArrayList<BaseModel>();
-            allModels.addAll(confirmedMatches);
-            allModels.addAll(potentialMatches);
-            PotentialMatchesViewAdapter adapter = new PotentialMatchesViewAdapter(context, allModels, formName, activityToLaunch);
-            adapter.setConfirmedModels(confirmedMatches);
+            PotentialMatchesViewAdapter adapter = new PotentialMatchesViewAdapter(context, new ArrayList<BaseModel>(matches.getAll()), formName, activityToLaunch);
+            adapter.setConfirmedIds(matches.getConfirmedIds());
             return adapter;
         }
     }
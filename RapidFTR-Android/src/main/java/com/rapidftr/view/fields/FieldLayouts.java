@@ -0,0 +1,45 @@
+package com.rapidftr.view.fields;
+
+import android.content.Context;
+import com.rapidftr.R;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Layout of each form field type, so showing a form no longer looks up form_<type> by name for every field.
+ * A type missing below is looked up by name the first time it is seen, and remembered whether or not it has a layout.
+ */
+public class FieldLayouts {
+
+    private static final Map<String, Integer> layoutIds = new ConcurrentHashMap<String, Integer>();
+
+    static {
+        layoutIds.put("audio_upload_box", R.layout.form_audio_upload_box);
+        layoutIds.put("check_boxes", R.layout.form_check_boxes);
+        layoutIds.put("date_field", R.layout.form_date_field);
+        layoutIds.put("list_record_field", R.layout.form_list_record_field);
+        layoutIds.put("numeric_field", R.layout.form_numeric_field);
+        layoutIds.put("photo_upload_box", R.layout.form_photo_upload_box);
+        layoutIds.put("radio_button", R.layout.form_radio_button);
+        layoutIds.put("select_box", R.layout.form_select_box);
+        layoutIds.put("textarea", R.layout.form_textarea);
+        layoutIds.put("text_field", R.layout.form_text_field);
+    }
+
+    /*
+     * 0 when the field type has no layout.
+     */
+    public static int getLayoutId(Context context, String fieldType) {
+        if (fieldType == null) {
+            return 0;
+        }
+
+        Integer layoutId = layoutIds.get(fieldType);
+        if (layoutId == null) {
+            layoutId = context.getResources().getIdentifier("form_" + fieldType, "layout", context.getPackageName());
+            layoutIds.put(fieldType, layoutId);
+        }
+        return layoutId;
+    }
+}
@@ -13,8 +13,6 @@ import com.rapidftr.activity.ViewChildActivity;
 import com.rapidftr.adapter.HighlightedFieldsViewAdapter;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.Enquiry;
-import com.rapidftr.model.PotentialMatch;
-import com.rapidftr.repository.ChildRepository;
 import com.rapidftr.repository.PotentialMatchRepository;
 import com.rapidftr.utils.ApplicationInjector;
 import lombok.Cleanup;
@@ -45,11 +43,9 @@ public class ListRecordField extends BaseView {
         Enquiry enquiry=(Enquiry) model;
         Injector inject = Guice.createInjector(new ApplicationInjector());
 
-        @Cleanup ChildRepository childRepo = inject.getInstance(ChildRepository.class);
         @Cleanup PotentialMatchRepository potentialMatchRepo = inject.getInstance(PotentialMatchRepository.class);
 
-        List<PotentialMatch> potentialMatches = potentialMatchRepo.getPotentialMatchesFor(enquiry);
-        List<Child> children = childRepo.getAllWithInternalIds(Child.idsFromMatches(potentialMatches));
+        List<Child> children = potentialMatchRepo.getMatchingChildren(enquiry).getAll();
 
         HighlightedFieldsViewAdapter highlightedFieldsViewAdapter = new HighlightedFieldsViewAdapter(getContext(), children, Child.CHILD_FORM_NAME, ViewChildActivity.class);
         ListView childListView = (ListView) findViewById(R.id.list_records);
@@ -1,10 +1,13 @@
 package com.rapidftr;
 
+import com.rapidftr.forms.FormSection;
 import com.rapidftr.service.FormService;
 import org.junit.Ignore;
 import org.robolectric.TestLifecycleApplication;
 
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
 
 @Ignore
 public class TestRapidFtrApplication_ extends RapidFtrApplication implements TestLifecycleApplication {
@@ -20,7 +23,7 @@ public class TestRapidFtrApplication_ extends RapidFtrApplication implements Tes
     public void beforeTest(Method method) {
         try {
             getSharedPreferences().edit().putString(SERVER_URL_PREF, "http://1.2.3.4:5");
-            formService.setFormSections(CustomTestRunner.formSectionSeed);
+            formService.setFormSections(new HashMap<String, List<FormSection>>());
 
             setCurrentUser(CustomTestRunner.createUser());
         } catch (Exception e) {
@@ -6,12 +6,8 @@ import com.google.inject.Injector;
 import com.rapidftr.CustomTestRunner;
 import com.rapidftr.R;
 import com.rapidftr.RapidFtrApplication;
-import com.rapidftr.forms.FormField;
-import com.rapidftr.forms.FormSection;
-import com.rapidftr.forms.FormSectionTest;
 import com.rapidftr.model.Child;
 import com.rapidftr.repository.ChildRepository;
-import com.rapidftr.service.FormService;
 import com.rapidftr.utils.SpyActivityController;
 import org.json.JSONException;
 import org.junit.Before;
@@ -37,11 +33,7 @@ public class SearchActivityTest {
     @Mock
     private ChildRepository childRepository;
 
-    @Mock
-    private FormService formService;
-
     private RapidFtrApplication application;
-    private List<FormField> highLightedFields;
 
     @Before
     public void setUp() throws IOException {
@@ -53,13 +45,7 @@ public class SearchActivityTest {
 
         Injector mockInjector = mock(Injector.class);
         doReturn(mockInjector).when(activity).getInjector();
-        doReturn(formService).when(mockInjector).getInstance(FormService.class);
         doReturn(childRepository).when(mockInjector).getInstance(ChildRepository.class);
-        highLightedFields = new ArrayList<FormField>();
-        List<FormSection> formSections = FormSectionTest.loadFormSectionsFromClassPathResource();
-        for (FormSection formSection : formSections) {
-            highLightedFields.addAll(formSection.getOrderedHighLightedFields());
-        }
     }
 
     @Test
@@ -69,7 +55,6 @@ public class SearchActivityTest {
         searchResults.add(new Child("id1", "user1", "{ \"name\" : \"child1\", \"test2\" : 0, \"test3\" : [ \"1\", 2, \"3\" ] }"));
         String searchString = "Hild";
         when(childRepository.getFirstPageOfChildrenMatchingString(eq(searchString))).thenReturn(searchResults);
-        when(formService.getHighlightedFields(anyString())).thenReturn(highLightedFields);
 
         activityController.create();
         TextView textView = (TextView) activity.findViewById(R.id.search_text);
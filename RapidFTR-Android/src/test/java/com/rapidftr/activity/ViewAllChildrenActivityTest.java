@@ -5,7 +5,7 @@ import com.google.inject.Injector;
 import com.rapidftr.CustomTestRunner;
 import com.rapidftr.R;
 import com.rapidftr.RapidFtrApplication;
-import com.rapidftr.model.Child;
+import com.rapidftr.model.ChildSummary;
 import com.rapidftr.repository.ChildRepository;
 import com.rapidftr.service.FormService;
 import com.rapidftr.utils.SpyActivityController;
@@ -48,9 +48,9 @@ public class ViewAllChildrenActivityTest {
 
     @Test
     public void shouldListChildrenCreatedByTheLoggedInUser() throws JSONException {
-        List<Child> children = new ArrayList<Child>();
-        children.add(new Child("id1", "user1", "{ \"name\" : \"child1\", \"test2\" : 0, \"test3\" : [ \"1\", 2, \"3\" ] }"));
-        when(childRepository.getRecordsForFirstPage()).thenReturn(children);
+        List<ChildSummary> children = new ArrayList<ChildSummary>();
+        children.add(new ChildSummary("{ \"unique_identifier\" : \"id1\", \"name\" : \"child1\" }", false));
+        when(childRepository.getSummariesForFirstPage()).thenReturn(children);
 
         activityController.create();
         ListView listView = (ListView) activity.findViewById(R.id.child_list);
@@ -60,8 +60,8 @@ public class ViewAllChildrenActivityTest {
 
     @Test
     public void shouldShowNoChildMessageWhenNoChildrenPresent() throws JSONException {
-        List<Child> children = new ArrayList<Child>();
-        when(childRepository.allCreatedByCurrentUser()).thenReturn(children);
+        List<ChildSummary> children = new ArrayList<ChildSummary>();
+        when(childRepository.getSummariesForFirstPage()).thenReturn(children);
 
         activityController.create();
         ListView listView = (ListView) activity.findViewById(R.id.child_list);
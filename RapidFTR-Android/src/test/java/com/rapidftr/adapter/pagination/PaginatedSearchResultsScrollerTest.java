@@ -32,7 +32,7 @@ public class PaginatedSearchResultsScrollerTest {
 
     @Test
     public void shouldLoadRecordsForNextPage() throws JSONException {
-        childSearch = new ChildSearch("", repository, null);
+        childSearch = new ChildSearch("", repository);
         scroller = spy(new PaginatedSearchResultsScroller(childSearch, highlightedFieldsViewAdapter));
         List<Child> children = Arrays.asList(new Child("id", "user", "{\"name\": \"Foo Bar\"}"));
         when(repository.getChildrenMatchingStringBetween(anyString(), anyInt(), anyInt())).thenReturn(children);
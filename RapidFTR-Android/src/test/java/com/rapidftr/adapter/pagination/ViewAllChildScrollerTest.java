@@ -2,7 +2,7 @@ package com.rapidftr.adapter.pagination;
 
 import com.rapidftr.CustomTestRunner;
 import com.rapidftr.adapter.HighlightedFieldsViewAdapter;
-import com.rapidftr.model.Child;
+import com.rapidftr.model.ChildSummary;
 import com.rapidftr.repository.ChildRepository;
 import org.json.JSONException;
 import org.junit.Before;
@@ -13,13 +13,14 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 @RunWith(CustomTestRunner.class)
 public class ViewAllChildScrollerTest {
 
     private ChildRepository repository;
-    private HighlightedFieldsViewAdapter<Child> highlightedFieldsViewAdapter;
+    private HighlightedFieldsViewAdapter<ChildSummary> highlightedFieldsViewAdapter;
     private ViewAllChildScroller scroller;
 
     @Before
@@ -31,23 +32,34 @@ public class ViewAllChildScrollerTest {
 
     @Test
     public void shouldLoadRecordsForNextPage() throws JSONException {
-        List<Child> children = Arrays.asList(new Child("id", "user", "{\"name\": \"Foo Bar\"}"));
-        when(repository.getRecordsBetween(anyInt(), anyInt())).thenReturn(children);
+        List<ChildSummary> children = Arrays.asList(new ChildSummary("{\"unique_identifier\": \"id\", \"name\": \"Foo Bar\"}", false));
+        when(repository.getSummariesAfter(anyString(), anyInt())).thenReturn(children);
         doReturn(true).when(scroller).shouldQueryForMoreData();
 
         scroller.loadRecordsForNextPage();
 
-        verify(repository, atLeastOnce()).getRecordsBetween(anyInt(), anyInt());
+        verify(repository, atLeastOnce()).getSummariesAfter(anyString(), anyInt());
         verify(highlightedFieldsViewAdapter, atLeastOnce()).addAll(children);
     }
 
+    @Test
+    public void shouldLoadNextPageAfterLastChildInAdapter() throws JSONException {
+        when(highlightedFieldsViewAdapter.getCount()).thenReturn(2);
+        when(highlightedFieldsViewAdapter.getItem(1)).thenReturn(new ChildSummary("{\"unique_identifier\": \"id2\"}", false));
+        doReturn(true).when(scroller).shouldQueryForMoreData();
+
+        scroller.loadRecordsForNextPage();
+
+        verify(repository).getSummariesAfter("id2", ViewAllChildrenPaginatedScrollListener.DEFAULT_PAGE_SIZE);
+    }
+
     @Test
     public void shouldNotLoadRecordsForNextPage() throws JSONException {
         doReturn(false).when(scroller).shouldQueryForMoreData();
 
         scroller.loadRecordsForNextPage();
 
-        verify(repository, times(0)).getRecordsBetween(anyInt(), anyInt());
+        verify(repository, times(0)).getSummariesAfter(anyString(), anyInt());
         verify(highlightedFieldsViewAdapter, times(0)).addAll(anyList());
     }
 
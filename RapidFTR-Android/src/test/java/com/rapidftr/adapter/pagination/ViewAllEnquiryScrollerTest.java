@@ -13,6 +13,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 @RunWith(CustomTestRunner.class)
@@ -32,12 +33,12 @@ public class ViewAllEnquiryScrollerTest {
     @Test
     public void shouldLoadRecordsForNextPage() throws JSONException {
         List<Enquiry> enquiries = Arrays.asList(new Enquiry("{\"name\": \"Foo Bar\"}"));
-        when(repository.getRecordsBetween(anyInt(), anyInt())).thenReturn(enquiries);
+        when(repository.getRecordsAfter(anyString(), anyInt())).thenReturn(enquiries);
         doReturn(true).when(scroller).shouldQueryForMoreData();
 
         scroller.loadRecordsForNextPage();
 
-        verify(repository, atLeastOnce()).getRecordsBetween(anyInt(), anyInt());
+        verify(repository, atLeastOnce()).getRecordsAfter(anyString(), anyInt());
         verify(highlightedFieldsViewAdapter, atLeastOnce()).addAll(enquiries);
     }
 
@@ -47,7 +48,7 @@ public class ViewAllEnquiryScrollerTest {
 
         scroller.loadRecordsForNextPage();
 
-        verify(repository, times(0)).getRecordsBetween(anyInt(), anyInt());
+        verify(repository, times(0)).getRecordsAfter(anyString(), anyInt());
         verify(highlightedFieldsViewAdapter, times(0)).addAll(anyList());
     }
 
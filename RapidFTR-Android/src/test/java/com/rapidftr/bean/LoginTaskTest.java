@@ -125,9 +125,11 @@ public class LoginTaskTest {
         doNothing().when(loginTask).migrateIfVerified(user);
         doNothing().when(loginTask).cacheForOffline(user);
         doNothing().when(loginTask).loadFormSections();
+        doNothing().when(loginTask).rebuildUpgradedChildren();
 
         boolean result = loginTask.loginOnline("test1", "test2", "test3");
         assertTrue(result);
+        verify(loginTask).rebuildUpgradedChildren();
         verify(loginTask).notifyToast(R.string.login_online_success);
     }
 
@@ -159,9 +161,11 @@ public class LoginTaskTest {
         User user = mock(User.class);
         doReturn(user).when(loginTask).loadOffline("test1", "test2");
         doNothing().when(loginTask).cacheForOffline(user);
+        doNothing().when(loginTask).rebuildUpgradedChildren();
 
         boolean result = loginTask.loginOffline("test1", "test2");
         assertTrue(result);
+        verify(loginTask).rebuildUpgradedChildren();
         verify(loginTask).notifyToast(R.string.login_offline_success);
     }
 
@@ -0,0 +1,137 @@
+package com.rapidftr.database;
+
+import android.database.Cursor;
+import com.rapidftr.CustomTestRunner;
+import com.rapidftr.model.Child;
+import com.rapidftr.model.Enquiry;
+import com.rapidftr.repository.ChildRepository;
+import com.rapidftr.repository.EnquiryRepository;
+import com.rapidftr.repository.PotentialMatchRepository;
+import lombok.Cleanup;
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Explains the queries the repositories actually run, as recorded from their session, so a query which stops using
+ * an index fails here rather than going unnoticed.
+ */
+@RunWith(CustomTestRunner.class)
+public class QueryPlanTest {
+
+    private DatabaseSession session;
+    private final List<String> queries = new ArrayList<String>();
+    private final List<String[]> queryArguments = new ArrayList<String[]>();
+
+    private ChildRepository childRepository;
+    private EnquiryRepository enquiryRepository;
+    private PotentialMatchRepository potentialMatchRepository;
+
+    @Before
+    public void setUp() {
+        session = new ShadowSQLiteHelper("test_database").getSession();
+        DatabaseSession recordingSession = recording(session);
+        childRepository = new ChildRepository("user1", recordingSession);
+        enquiryRepository = new EnquiryRepository("user1", recordingSession);
+        potentialMatchRepository = new PotentialMatchRepository("user1", recordingSession);
+    }
+
+    @Test
+    public void shouldLookUpChildrenByOwnerUsingAnIndex() throws JSONException {
+        childRepository.getRecordsForFirstPage();
+        childRepository.getRecordsAfter("id1", 30);
+        childRepository.getSummariesForFirstPage();
+        childRepository.getSummariesAfter("id1", 30);
+        childRepository.getRecordIdsByOwner();
+        childRepository.size();
+
+        assertRecordedQueriesUseIndexes();
+    }
+
+    @Test
+    public void shouldLookUpChildrenToBeSyncedUsingAnIndex() throws JSONException {
+        childRepository.toBeSynced();
+        childRepository.currentUsersUnsyncedRecords();
+
+        assertRecordedQueriesUseIndexes();
+    }
+
+    @Test
+    public void shouldLookUpEnquiriesUsingAnIndex() throws JSONException {
+        enquiryRepository.getRecordsForFirstPage();
+        enquiryRepository.getRecordsAfter("id1", 30);
+        enquiryRepository.toBeSynced();
+
+        assertRecordedQueriesUseIndexes();
+    }
+
+    @Test
+    public void shouldLookUpPotentialMatchesUsingAnIndex() throws JSONException {
+        Child child = new Child("{\"_id\":\"child1\"}");
+        Enquiry enquiry = new Enquiry("{\"_id\":\"enquiry1\"}");
+        potentialMatchRepository.getMatchingEnquiries(child);
+        potentialMatchRepository.getMatchingChildren(enquiry);
+
+        assertRecordedQueriesUseIndexes();
+    }
+
+    private void assertRecordedQueriesUseIndexes() {
+        assertFalse("No queries were recorded", queries.isEmpty());
+        for (int i = 0; i < queries.size(); i++) {
+            if (queries.get(i).trim().toUpperCase().startsWith("SELECT")) {
+                assertUsesIndex(queries.get(i), queryArguments.get(i));
+            }
+        }
+    }
+
+    private void assertUsesIndex(String sql, String... arguments) {
+        List<String> plan = queryPlan(sql, arguments);
+        assertFalse("No query plan for " + sql, plan.isEmpty());
+        for (String step : plan) {
+            assertTrue("Full table scan in \"" + step + "\" for " + sql, !step.startsWith("SCAN TABLE") || step.contains("INDEX"));
+        }
+    }
+
+    private List<String> queryPlan(String sql, String... arguments) {
+        @Cleanup Cursor cursor = session.rawQuery("EXPLAIN QUERY PLAN " + sql, arguments);
+        List<String> plan = new ArrayList<String>();
+        while (cursor.moveToNext()) {
+            plan.add(cursor.getString(cursor.getColumnIndex("detail")));
+        }
+        return plan;
+    }
+
+    // Statements are compiled before their values are bound, so they are explained with placeholder values
+    private DatabaseSession recording(final DatabaseSession session) {
+        return (DatabaseSession) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DatabaseSession.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+                if (method.getName().equals("rawQuery")) {
+                    queries.add((String) arguments[0]);
+                    queryArguments.add(arguments[1] == null ? new String[0] : (String[]) arguments[1]);
+                } else if (method.getName().equals("compileStatement")) {
+                    String sql = (String) arguments[0];
+                    queries.add(sql);
+                    queryArguments.add(Collections.nCopies(sql.length() - sql.replace("?", "").length(), "1").toArray(new String[0]));
+                }
+                try {
+                    return method.invoke(session, arguments);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+}
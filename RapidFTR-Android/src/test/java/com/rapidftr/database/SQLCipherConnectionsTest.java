@@ -0,0 +1,100 @@
+package com.rapidftr.database;
+
+import com.rapidftr.CustomTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@RunWith(CustomTestRunner.class)
+public class SQLCipherConnectionsTest {
+
+    private DatabaseHelper helper;
+    private SQLCipherConnections.Opener opener;
+
+    @Before
+    public void setUp() {
+        SQLCipherConnections.closeAll();
+        helper = mock(DatabaseHelper.class);
+        given(helper.getSession()).willReturn(mock(DatabaseSession.class));
+        opener = mock(SQLCipherConnections.Opener.class);
+        given(opener.open()).willReturn(helper);
+    }
+
+    @After
+    public void tearDown() {
+        SQLCipherConnections.closeAll();
+    }
+
+    @Test
+    public void shouldShareOneConnectionBetweenLeases() throws Exception {
+        DatabaseHelper first = SQLCipherConnections.lease("db", opener);
+        DatabaseHelper second = SQLCipherConnections.lease("db", opener);
+
+        first.getSession().rawQuery("SELECT 1", null);
+        second.getSession().rawQuery("SELECT 2", null);
+
+        verify(opener, times(1)).open();
+        verify(helper.getSession()).rawQuery("SELECT 1", null);
+        verify(helper.getSession()).rawQuery("SELECT 2", null);
+    }
+
+    @Test
+    public void shouldNotCloseConnectionWhenLeasesAreReleasedDuringSession() throws Exception {
+        SQLCipherConnections.lease("db", opener).close();
+        SQLCipherConnections.lease("db", opener).getSession().close();
+
+        verify(opener, times(1)).open();
+        verify(helper, never()).close();
+    }
+
+    @Test
+    public void shouldCloseUnusedConnectionsOnLogout() throws Exception {
+        SQLCipherConnections.lease("db", opener).close();
+
+        SQLCipherConnections.closeAll();
+
+        verify(helper).close();
+    }
+
+    @Test
+    public void shouldCloseRetiredConnectionOnceItsLastLeaseIsReleased() throws Exception {
+        DatabaseHelper first = SQLCipherConnections.lease("db", opener);
+        DatabaseHelper second = SQLCipherConnections.lease("db", opener);
+
+        SQLCipherConnections.closeAll();
+        first.close();
+        first.close();
+        verify(helper, never()).close();
+
+        second.getSession().close();
+        verify(helper).close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRefuseToUseSessionAfterItsLeaseIsReleased() throws Exception {
+        DatabaseHelper lease = SQLCipherConnections.lease("db", opener);
+        DatabaseSession session = lease.getSession();
+        lease.close();
+
+        session.rawQuery("SELECT 1", null);
+    }
+
+    @Test
+    public void shouldOpenNewConnectionAfterLogout() throws Exception {
+        SQLCipherConnections.lease("db", opener).close();
+        SQLCipherConnections.closeAll();
+
+        DatabaseHelper newHelper = mock(DatabaseHelper.class);
+        DatabaseSession newSession = mock(DatabaseSession.class);
+        given(newHelper.getSession()).willReturn(newSession);
+        given(opener.open()).willReturn(newHelper);
+        SQLCipherConnections.lease("db", opener).getSession().execSQL("SELECT 1");
+
+        verify(newSession).execSQL("SELECT 1");
+        verify(helper, times(1)).close();
+    }
+}
@@ -4,6 +4,7 @@ package com.rapidftr.database;
 import android.app.Activity;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import com.rapidftr.database.migration.Migrations;
 import lombok.Delegate;
 import lombok.Getter;
@@ -28,28 +29,49 @@ public class ShadowSQLiteHelper extends SQLiteOpenHelper implements DatabaseHelp
     @RequiredArgsConstructor(suppressConstructorProperties = true)
     public static class ShadowSQLiteSession implements DatabaseSession {
 
-        @Delegate(types = DatabaseSession.class)
+        @Delegate(types = DatabaseSession.class, excludes = StatementCompiler.class)
         private final SQLiteDatabase database;
 
+        @Override
+        public CompiledStatement compileStatement(String sql) {
+            return new ShadowSQLiteStatement(database.compileStatement(sql));
+        }
+
+    }
+
+    @RequiredArgsConstructor(suppressConstructorProperties = true)
+    public static class ShadowSQLiteStatement implements CompiledStatement {
+
+        @Delegate(types = CompiledStatement.class)
+        private final SQLiteStatement statement;
+
     }
 
     private @Getter DatabaseSession session;
 
+    private final int version;
+
     public ShadowSQLiteHelper(String dbName) {
-        super(new Activity(), dbName, null, 2);
+        this(dbName, 3);
+    }
+
+    // A database created as it was at an earlier version, to be upgraded from there
+    public ShadowSQLiteHelper(String dbName, int version) {
+        super(new Activity(), dbName, null, version);
+        this.version = version;
         session = new ShadowSQLiteSession(getWritableDatabase());
     }
 
     @Override
     public void onCreate(SQLiteDatabase database) {
-        for (Migrations migration : Migrations.values()) {
+        for (Migrations migration : Migrations.upgrading(0, version)) {
             database.execSQL(migration.getSql());
         }
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        for (Migrations migration : Migrations.forVersion(newVersion)) {
+        for (Migrations migration : Migrations.upgrading(oldVersion, newVersion)) {
             db.execSQL(migration.getSql());
         }
     }
@@ -0,0 +1,96 @@
+package com.rapidftr.database;
+
+import android.content.ContentValues;
+import com.rapidftr.CustomTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(CustomTestRunner.class)
+public class StatementCacheTest {
+
+    @Mock
+    private StatementCompiler compiler;
+    @Mock
+    private CompiledStatement statement;
+
+    private StatementCache statements;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        given(compiler.compileStatement(anyString())).willReturn(statement);
+        statements = new StatementCache(compiler);
+    }
+
+    @Test
+    public void shouldCompileEachSqlTemplateOnlyOnce() {
+        statements.execute("DELETE FROM children WHERE id = ?", "id1");
+        statements.execute("DELETE FROM children WHERE id = ?", "id2");
+
+        verify(compiler, times(1)).compileStatement("DELETE FROM children WHERE id = ?");
+        verify(statement, times(2)).clearBindings();
+        verify(statement).bindString(1, "id1");
+        verify(statement).bindString(1, "id2");
+        verify(statement, times(2)).execute();
+    }
+
+    @Test
+    public void shouldBindArgumentsByType() {
+        given(statement.simpleQueryForLong()).willReturn(3L);
+
+        long count = statements.queryForLong("SELECT COUNT(1) FROM children WHERE a = ? AND b = ? AND c = ? AND d = ?", "x", 5, true, null);
+
+        assertEquals(3L, count);
+        verify(statement).bindString(1, "x");
+        verify(statement).bindLong(2, 5);
+        verify(statement).bindLong(3, 1);
+        verify(statement).bindNull(4);
+    }
+
+    @Test
+    public void shouldInsertContentValuesWithColumnsInStableOrder() {
+        ContentValues values = new ContentValues();
+        values.put("id", "id1");
+        values.put("child_json", "{}");
+        values.put("synced", false);
+
+        statements.insertOrReplace("children", values);
+
+        verify(compiler).compileStatement("INSERT OR REPLACE INTO children(child_json, id, synced) VALUES (?, ?, ?)");
+        verify(statement).bindString(1, "{}");
+        verify(statement).bindString(2, "id1");
+        verify(statement).bindLong(3, 0);
+        verify(statement).executeInsert();
+    }
+
+    @Test
+    public void shouldCloseLeastRecentlyUsedStatementWhenFull() {
+        CompiledStatement eldest = mock(CompiledStatement.class);
+        given(compiler.compileStatement("SELECT 0")).willReturn(eldest);
+
+        for (int i = 0; i <= StatementCache.MAX_STATEMENTS; i++) {
+            statements.execute("SELECT " + i);
+        }
+
+        verify(eldest).close();
+        verify(statement, never()).close();
+    }
+
+    @Test
+    public void shouldCloseAllStatementsOnClose() {
+        statements.execute("SELECT 1");
+        statements.execute("SELECT 2");
+
+        statements.close();
+
+        verify(statement, times(2)).close();
+    }
+}
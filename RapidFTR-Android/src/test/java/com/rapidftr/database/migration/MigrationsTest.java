@@ -0,0 +1,35 @@
+package com.rapidftr.database.migration;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.rapidftr.CustomTestRunner;
+import com.rapidftr.database.SQLCipherHelper;
+import com.rapidftr.database.ShadowSQLiteHelper;
+import lombok.Cleanup;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+@RunWith(CustomTestRunner.class)
+public class MigrationsTest {
+
+    @Test
+    public void shouldUpgradeFromTheFirstVersionOneVersionAtATime() {
+        ShadowSQLiteHelper helper = new ShadowSQLiteHelper("upgraded_database", 1);
+        SQLiteDatabase database = helper.getWritableDatabase();
+
+        helper.onUpgrade(database, 1, SQLCipherHelper.DB_VERSION);
+
+        assertTrue(exists(database, "table", "potential_match"));
+        assertTrue(exists(database, "index", "potential_match_child_id_idx"));
+        assertTrue(exists(database, "index", "potential_match_enquiry_id_idx"));
+        assertTrue(exists(database, "table", "children_search"));
+    }
+
+    private boolean exists(SQLiteDatabase database, String type, String name) {
+        @Cleanup Cursor cursor = database.rawQuery("SELECT name FROM sqlite_master WHERE type = ? AND name = ?", new String[]{type, name});
+        return cursor.moveToNext();
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.rapidftr.forms;
+
+import com.rapidftr.model.Child;
+import com.rapidftr.model.Enquiry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FormSchemaStoreTest {
+
+    private File file;
+    private FormSchemaStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile(UUID.randomUUID().toString(), ".bin");
+        store = new FormSchemaStore(file);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void shouldReadBackEachStoredForm() throws Exception {
+        List<FormSection> childSections = FormSectionTest.loadFormSectionsFromClassPathResource();
+        Map<String, List<FormSection>> forms = new HashMap<String, List<FormSection>>();
+        forms.put(Child.CHILD_FORM_NAME, childSections);
+        forms.put(Enquiry.ENQUIRY_FORM_NAME, new ArrayList<FormSection>());
+
+        store.write(forms);
+
+        assertEquals(childSections, store.read(Child.CHILD_FORM_NAME));
+        assertEquals(0, store.read(Enquiry.ENQUIRY_FORM_NAME).size());
+        assertNull(store.read("Unknown"));
+    }
+
+    @Test
+    public void shouldReplaceStoredFormsOnWrite() throws Exception {
+        Map<String, List<FormSection>> forms = new HashMap<String, List<FormSection>>();
+        forms.put(Child.CHILD_FORM_NAME, FormSectionTest.loadFormSectionsFromClassPathResource());
+        store.write(forms);
+
+        forms.remove(Child.CHILD_FORM_NAME);
+        forms.put(Enquiry.ENQUIRY_FORM_NAME, FormSectionTest.loadFormSectionsFromClassPathResource().subList(0, 1));
+        store.write(forms);
+
+        assertNull(store.read(Child.CHILD_FORM_NAME));
+        assertEquals(1, store.read(Enquiry.ENQUIRY_FORM_NAME).size());
+        assertEquals(false, new File(file.getPath() + ".tmp").exists());
+    }
+}
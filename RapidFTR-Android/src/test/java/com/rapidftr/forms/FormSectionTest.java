@@ -10,6 +10,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class FormSectionTest {
 
@@ -39,6 +41,18 @@ public class FormSectionTest {
         assertEquals(FTR_STATUS_FIELD_ID, formFields.get(3).getId());
     }
 
+    @Test
+    public void shouldOrderHighlightedFieldsOnceUntilFieldsChange() {
+        FormSection formSection = formSections.get(0);
+        List<FormField> formFields = formSection.getOrderedHighLightedFields();
+
+        assertSame(formFields, formSection.getOrderedHighLightedFields());
+
+        formSection.setFields(Arrays.asList(formFields.get(1), formFields.get(0)));
+        assertEquals(Arrays.asList(formFields.get(0), formFields.get(1)), formSection.getOrderedHighLightedFields());
+        assertNotSame(formFields, formSection.getOrderedHighLightedFields());
+    }
+
     public static List<FormSection> loadFormSectionsFromClassPathResource() throws IOException {
         String json = ResourceLoader.loadResourceAsStringFromClasspath("form_sections.json");
         return Arrays.asList(new ObjectMapper().readValue(json, FormSection[].class));
@@ -226,7 +226,7 @@ public class ChildTest {
         potentialMatchRepository.createOrUpdate(new PotentialMatch("enquiry_id_1", "child_id_1", "potential_match_id_1"));
         potentialMatchRepository.createOrUpdate(new PotentialMatch("enquiry_id_2", "child_id_2", "potential_match_id_2"));
 
-        List<BaseModel> enquiries = child.getPotentialMatchingModels(potentialMatchRepository, null, enquiryRepository);
+        List<BaseModel> enquiries = child.getPotentialMatchingModels(potentialMatchRepository);
 
         assertThat(enquiries.size(), is(1));
         assertEquals(enquiry.getUniqueId(), enquiries.get(0).getUniqueId());
@@ -254,7 +254,7 @@ public class ChildTest {
         potentialMatchRepository.createOrUpdate(new PotentialMatch("enquiry_id_1", "child_id_1", "potential_match_id_1"));
         potentialMatchRepository.createOrUpdate(new PotentialMatch("enquiry_id_2", "child_id_1", "potential_match_id_2", true));
 
-        List<BaseModel> enquiries = child.getPotentialMatchingModels(potentialMatchRepository, null, enquiryRepository);
+        List<BaseModel> enquiries = child.getPotentialMatchingModels(potentialMatchRepository);
 
         assertThat(enquiries.size(), is(1));
         assertEquals(enquiry.getUniqueId(), enquiries.get(0).getUniqueId());
@@ -282,7 +282,7 @@ public class ChildTest {
         potentialMatchRepository.createOrUpdate(new PotentialMatch("enquiry_id_1", "child_id_1", "potential_match_id_1"));
         potentialMatchRepository.createOrUpdate(new PotentialMatch("enquiry_id_2", "child_id_1", "potential_match_id_2", true));
 
-        List<BaseModel> enquiries = child.getConfirmedMatchingModels(potentialMatchRepository, null, enquiryRepository);
+        List<BaseModel> enquiries = child.getConfirmedMatchingModels(potentialMatchRepository);
 
         assertEquals(1, enquiries.size());
         assertEquals(enquiry.getUniqueId(), enquiries.get(0).getUniqueId());
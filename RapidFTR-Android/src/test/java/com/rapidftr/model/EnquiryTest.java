@@ -65,7 +65,7 @@ public class EnquiryTest {
                 "\"created_by\":\"some guy\"" +
                 "}";
         Enquiry enquiry = new Enquiry(enquiryJSON);
-        List<BaseModel> children = enquiry.getPotentialMatchingModels(potentialMatchRepository, childRepository, null);
+        List<BaseModel> children = enquiry.getPotentialMatchingModels(potentialMatchRepository);
 
         assertEquals(2, children.size());
         assertTrue(children.contains(child1));
@@ -87,7 +87,7 @@ public class EnquiryTest {
                 "\"created_by\":\"some guy\"" +
                 "}";
         Enquiry enquiry = new Enquiry(enquiryJSON);
-        List<BaseModel> children = enquiry.getPotentialMatchingModels(potentialMatchRepository, childRepository, null);
+        List<BaseModel> children = enquiry.getPotentialMatchingModels(potentialMatchRepository);
 
         assertEquals(1, children.size());
         assertTrue(children.contains(child1));
@@ -108,7 +108,7 @@ public class EnquiryTest {
                 "\"created_by\":\"some guy\"" +
                 "}";
         Enquiry enquiry = new Enquiry(enquiryJSON);
-        List<BaseModel> children = enquiry.getConfirmedMatchingModels(potentialMatchRepository, childRepository, null);
+        List<BaseModel> children = enquiry.getConfirmedMatchingModels(potentialMatchRepository);
 
         assertEquals(1, children.size());
         assertTrue(children.contains(child2));
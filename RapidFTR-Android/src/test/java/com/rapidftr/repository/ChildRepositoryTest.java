@@ -10,8 +10,11 @@ import com.rapidftr.forms.FormField;
 import com.rapidftr.forms.FormSection;
 import com.rapidftr.forms.FormSectionTest;
 import com.rapidftr.model.Child;
+import com.rapidftr.model.ChildSummary;
 import com.rapidftr.model.History;
 import com.rapidftr.model.User;
+import com.rapidftr.service.FormService;
+import lombok.Cleanup;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -25,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 
 import static com.rapidftr.CustomTestRunner.createUser;
+import static java.util.Arrays.asList;
 import static com.rapidftr.model.History.HISTORIES;
 import static com.rapidftr.utils.JSONMatcher.equalJSONIgnoreOrder;
 import static org.hamcrest.CoreMatchers.is;
@@ -65,8 +69,7 @@ public class ChildRepositoryTest {
     @Test
     public void shouldCreateChildRecordAndSetCreatedAt() throws Exception {
         repository.createOrUpdate(new Child("id1", "user1", "{ 'test1' : 'value1' }"));
-        JSONObject childJsonValues = repository.get("id1").values();
-        JSONArray histories = (JSONArray) childJsonValues.get(History.HISTORIES);
+        JSONArray histories = repository.getHistories("id1");
         JSONObject changes = (JSONObject) ((JSONObject) histories.get(0)).get("changes");
         assert(((JSONObject) changes.get("child")).has(History.CREATED));
     }
@@ -94,13 +97,67 @@ public class ChildRepositoryTest {
     public void shouldUpdateChildRecordWithHistory() throws Exception {
         repository.createOrUpdate(new Child("idx", "user1", "{ 'test1' : 'value1', 'test2' : 0, 'test3' : [ '1', 2, '3' ] }"));
         Child child = repository.get("idx");
-        JSONObject childJsonValues = child.values();
-        assertEquals(1, childJsonValues.getJSONArray(History.HISTORIES).length());
+        assertEquals(1, repository.getHistories("idx").length());
 
         child.put("test1", "value2");
         repository.createOrUpdate(child);
-        childJsonValues = repository.get("idx").values();
-        assertEquals(2, childJsonValues.getJSONArray(History.HISTORIES).length());
+        assertEquals(2, repository.getHistories("idx").length());
+        assertFalse(repository.get("idx").has(HISTORIES));
+    }
+
+    @Test
+    public void shouldMoveHistoriesInChildJsonToHistoryTable() throws JSONException {
+        Child child = new Child("id1", "user1", "{ 'name' : 'child1', 'histories' : [{ 'changes' : { 'name' : { 'from' : '', 'to' : 'child1' } } }] }", true);
+
+        repository.createOrUpdateWithoutHistory(child);
+
+        assertFalse(repository.get("id1").has(HISTORIES));
+        assertEquals(1, repository.getHistories("id1").length());
+    }
+
+    @Test
+    public void shouldAttachHistoriesToChildrenToBeSynced() throws JSONException {
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'child1' }"));
+        Child child = repository.get("id1");
+        child.put("name", "child2");
+        repository.createOrUpdate(child);
+
+        List<Child> children = repository.toBeSynced();
+
+        assertEquals(1, children.size());
+        assertEquals(2, children.get(0).getJSONArray(HISTORIES).length());
+    }
+
+    @Test
+    public void shouldClearHistoriesWhenChildIsSavedWithEmptyHistories() throws JSONException {
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'child1' }"));
+        Child syncedChild = repository.toBeSynced().get(0);
+
+        syncedChild.put(HISTORIES, new JSONArray());
+        repository.createOrUpdateWithoutHistory(syncedChild);
+
+        assertEquals(0, repository.getHistories("id1").length());
+    }
+
+    @Test
+    public void shouldKeepHistoriesWhenChildIsSavedWithoutThem() throws JSONException {
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'child1' }"));
+        Child child = repository.get("id1");
+
+        child.setSyncLog("failed");
+        repository.createOrUpdateWithoutHistory(child);
+
+        assertEquals(1, repository.getHistories("id1").length());
+    }
+
+    @Test
+    public void shouldAttachHistoriesToChildLoadedForSync() throws JSONException {
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'child1' }"));
+        Child child = repository.get("id1");
+
+        repository.attachHistories(child);
+
+        assertEquals(1, child.getJSONArray(HISTORIES).length());
     }
 
     @Test
@@ -205,20 +262,119 @@ public class ChildRepositoryTest {
 
         repository.getRecordsForFirstPage();
 
-        String sql = "SELECT child_json, synced FROM children WHERE child_owner='user1' ORDER BY id LIMIT 30";
-        verify(session, times(1)).rawQuery(sql, null);
+        String sql = "SELECT child_json, synced FROM children WHERE child_owner = ? ORDER BY id LIMIT ?";
+        verify(session, times(1)).rawQuery(sql, new String[]{"user1", "30"});
     }
 
     @Test
-    public void shouldReturnRecordsBetweenSpecifiedLimits() throws JSONException {
+    public void shouldReturnRecordsAfterSpecifiedId() throws JSONException {
         session = mock(DatabaseSession.class);
         repository = spy(new ChildRepository("user1", session));
         doReturn(new ArrayList<Child>()).when(repository).toChildren(any(Cursor.class));
 
-        repository.getRecordsBetween(1, 10);
+        repository.getRecordsAfter("id30", 30);
+
+        String sql = "SELECT child_json, synced FROM children WHERE child_owner = ? AND id > ? ORDER BY id LIMIT ?";
+        verify(session, times(1)).rawQuery(sql, new String[]{"user1", "id30", "30"});
+    }
+
+    @Test
+    public void shouldPageThroughChildrenByLastSeenId() throws JSONException {
+        for (int i = 1; i <= 5; i++) {
+            repository.createOrUpdate(new Child("id" + i, "user1", null));
+        }
+        repository.createOrUpdate(new Child("id0", "user2", null));
+
+        List<Child> firstPage = repository.getRecordsAfter(null, 2);
+        List<Child> secondPage = repository.getRecordsAfter(firstPage.get(1).getUniqueId(), 2);
+        List<Child> lastPage = repository.getRecordsAfter(secondPage.get(1).getUniqueId(), 2);
 
-        String sql = "SELECT child_json, synced FROM children WHERE child_owner='user1' ORDER BY id LIMIT 9 OFFSET 1";
-        verify(session, times(1)).rawQuery(sql, null);
+        assertEquals("id1", firstPage.get(0).getUniqueId());
+        assertEquals("id3", secondPage.get(0).getUniqueId());
+        assertEquals("id4", secondPage.get(1).getUniqueId());
+        assertEquals(1, lastPage.size());
+        assertEquals("id5", lastPage.get(0).getUniqueId());
+    }
+
+    @Test
+    public void shouldListChildSummariesWithoutChildJson() throws JSONException {
+        repository = new ChildRepository("user1", session, summaryFormService());
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'Foo Bar', 'age' : '5', 'current_photo_key' : 'photo1', 'nickname' : 'Foo' }"));
+
+        session.execSQL("UPDATE children SET child_json = '{}'");
+        List<ChildSummary> summaries = repository.getSummariesForFirstPage();
+
+        assertEquals(1, summaries.size());
+        assertEquals("id1", summaries.get(0).getUniqueId());
+        assertEquals("Foo Bar", summaries.get(0).optString("name"));
+        assertEquals("5", summaries.get(0).optString("age"));
+        assertEquals("photo1", summaries.get(0).optString("current_photo_key"));
+        assertFalse(summaries.get(0).has("nickname"));
+    }
+
+    @Test
+    public void shouldRebuildSummariesFromChildJson() throws JSONException {
+        repository = new ChildRepository("user1", session, summaryFormService());
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'Foo Bar' }"));
+        repository.createOrUpdate(new Child("id2", "user1", "{ 'name' : 'Baz' }"));
+        session.execSQL("UPDATE children SET summary = NULL");
+
+        repository.rebuildSummaries();
+        session.execSQL("UPDATE children SET child_json = '{}'");
+        List<ChildSummary> summaries = repository.getSummariesAfter("id1", 10);
+
+        assertEquals(1, summaries.size());
+        assertEquals("Baz", summaries.get(0).optString("name"));
+    }
+
+    @Test
+    public void shouldSummarizeAndIndexChildrenSavedBeforeTheUpgrade() throws JSONException {
+        repository = new ChildRepository("user1", session, summaryFormService());
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'Foo Bar', 'age' : '5' }"));
+        session.execSQL("UPDATE children SET summary = NULL");
+        session.execSQL("DELETE FROM children_search");
+
+        repository.rebuildIfUpgraded();
+
+        @Cleanup Cursor cursor = session.rawQuery("SELECT summary FROM children WHERE id = ?", new String[]{"id1"});
+        assertTrue(cursor.moveToNext());
+        assertNotNull(cursor.getString(0));
+        @Cleanup Cursor searchIndex = session.rawQuery("SELECT docid FROM children_search", new String[]{});
+        assertTrue(searchIndex.moveToNext());
+    }
+
+    @Test
+    public void shouldNotRebuildOnceEveryChildHasASummary() throws JSONException {
+        repository = spy(new ChildRepository("user1", session, summaryFormService()));
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'Foo Bar' }"));
+
+        repository.rebuildIfUpgraded();
+
+        verify(repository, never()).rebuildSummaries();
+        verify(repository, never()).rebuildSearchIndex();
+    }
+
+    @Test
+    public void shouldNotStoreSummariesWhileListingChildren() throws JSONException {
+        repository = new ChildRepository("user1", session, summaryFormService());
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'Foo Bar' }"));
+        session.execSQL("UPDATE children SET summary = NULL");
+
+        List<ChildSummary> summaries = repository.getSummariesForFirstPage();
+
+        assertEquals("Foo Bar", summaries.get(0).optString("name"));
+        @Cleanup Cursor cursor = session.rawQuery("SELECT summary FROM children WHERE id = ?", new String[]{"id1"});
+        assertTrue(cursor.moveToNext());
+        assertNull(cursor.getString(0));
+    }
+
+    private FormService summaryFormService() {
+        FormField nameField = new FormField("name", null, true, true, "text_field", new HashMap<String, String>(), new HashMap<String, String>(), null, null);
+        FormField ageField = new FormField("age", null, false, true, "text_field", new HashMap<String, String>(), new HashMap<String, String>(), null, null);
+        FormService formService = mock(FormService.class);
+        when(formService.getTitleFields(Child.CHILD_FORM_NAME)).thenReturn(asList(nameField));
+        when(formService.getHighlightedFields(Child.CHILD_FORM_NAME)).thenReturn(asList(ageField));
+        return formService;
     }
 
     @Test
@@ -232,7 +388,7 @@ public class ChildRepositoryTest {
         PaginatedSearchQueryBuilder queryBuilder = new PaginatedSearchQueryBuilder(
                 RapidFtrApplication.getApplicationInstance(), "john");
         String sql = queryBuilder.queryForMatchingChildrenFirstPage();
-        verify(session, times(1)).rawQuery(sql, null);
+        verify(session, times(1)).rawQuery(sql, queryBuilder.argumentsForFirstPage());
     }
 
     @Test
@@ -245,8 +401,8 @@ public class ChildRepositoryTest {
 
         PaginatedSearchQueryBuilder queryBuilder = new PaginatedSearchQueryBuilder(
                 RapidFtrApplication.getApplicationInstance(), "john");
-        String sql = queryBuilder.queryForMatchingChildrenBetweenPages(1, 10);
-        verify(session, times(1)).rawQuery(sql, null);
+        String sql = queryBuilder.queryForMatchingChildrenBetweenPages();
+        verify(session, times(1)).rawQuery(sql, queryBuilder.argumentsBetweenPages(1, 10));
     }
 
     @Test
@@ -346,66 +502,8 @@ public class ChildRepositoryTest {
         Child updatedChild = new Child("id", "user1", "{'name' : 'updatedname'}");
         repository.createOrUpdate(updatedChild);
 
-        Child savedChild = repository.get(updatedChild.getUniqueId());
-        assertTrue(savedChild.get(HISTORIES).toString().matches(".*\"changes\":\\{.*\"name\":\\{\"to\":\"updatedname\",\"from\":\"oldname\"\\}.*"));
-    }
-
-    @Test
-    public void shouldReturnChildrenWithTheGivenInternalIds() throws JSONException {
-        Child child1 = new Child("id1", "user1", "{ 'name' : 'child1', 'test2' : 0, '_id' : 'ae0fc' }");
-        Child child2 = new Child("id2", "user1", "{ 'name' : 'child2', 'test2' : 0, '_id' : 'b32fa' }");
-
-        repository.createOrUpdate(child1);
-        repository.createOrUpdate(child2);
-
-        List<String> internalIds = new ArrayList<String>();
-        internalIds.add("ae0fc");
-        internalIds.add("b32fa");
-
-        List<Child> children = repository.getAllWithInternalIds(internalIds);
-
-        assertEquals(2, children.size());
-        assertTrue(children.contains(child1));
-        assertTrue(children.contains(child2));
-    }
-
-    @Test
-    public void shouldNotReturnAnyChildGivenInternalIdsDontMatch() throws JSONException {
-        Child child1 = new Child("id1", "user1", "{ 'name' : 'child1', 'test2' : 0, '_id' : 'ae0fc' }");
-        Child child2 = new Child("id2", "user1", "{ 'name' : 'child2', 'test2' : 0, '_id' : 'b32fa' }");
-
-        repository.createOrUpdate(child1);
-        repository.createOrUpdate(child2);
-
-        List<String> internalIds = new ArrayList<String>();
-        internalIds.add("000fc");
-        internalIds.add("1243fa");
-
-        List<Child> children = repository.getAllWithInternalIds(internalIds);
-
-        assertEquals(0, children.size());
-    }
-
-    @Test
-    public void shouldOnlyReturnChildrenWithMatchingInternalIds() throws JSONException {
-        Child child1 = new Child("id1", "user1", "{ 'name' : 'child1', 'test2' : 0, '_id' : 'ae0fc' }");
-        Child child2 = new Child("id2", "user1", "{ 'name' : 'child2', 'test2' : 0, '_id' : 'b32fa' }");
-        Child child3 = new Child("id3", "user1", "{ 'name' : 'child3', 'test2' : 0, '_id' : 'c42fa' }");
-
-        repository.createOrUpdate(child1);
-        repository.createOrUpdate(child2);
-        repository.createOrUpdate(child3);
-
-        List<String> internalIds = new ArrayList<String>();
-        internalIds.add("ae0fc");
-        internalIds.add("1443fa");
-        internalIds.add("c42fa");
-
-        List<Child> children = repository.getAllWithInternalIds(internalIds);
-
-        assertEquals(2, children.size());
-        assertTrue(children.contains(child1));
-        assertTrue(children.contains(child3));
+        JSONArray histories = repository.getHistories(updatedChild.getUniqueId());
+        assertTrue(histories.toString().matches(".*\"changes\":\\{.*\"name\":\\{\"to\":\"updatedname\",\"from\":\"oldname\"\\}.*"));
     }
 
     @Test
@@ -456,6 +554,23 @@ public class ChildRepositoryTest {
         assertFalse(savedChild.has(HISTORIES));
     }
 
+    @Test
+    public void shouldCreateOrUpdateAllChildrenInBatchedTransactions() throws JSONException {
+        DatabaseSession session = spy(this.session);
+        ChildRepository repository = new ChildRepository("user1", session);
+        repository.setBatchSize(2);
+
+        repository.createOrUpdateAll(asList(new Child("id1", "user1", null, true),
+                new Child("id2", "user1", null, true),
+                new Child("id3", "user1", null, true)));
+
+        verify(session, times(2)).beginTransaction();
+        verify(session, times(2)).setTransactionSuccessful();
+        verify(session, times(2)).endTransaction();
+        assertEquals(3, repository.size());
+        assertFalse(repository.get("id3").has(HISTORIES));
+    }
+
     @Test
     public void shouldUpdateExistingChildWithoutHistory() throws JSONException {
         Child child = new Child("syncedID", "user1", null, true);
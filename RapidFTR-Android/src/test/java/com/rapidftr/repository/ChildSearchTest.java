@@ -7,6 +7,7 @@ import com.rapidftr.forms.FormField;
 import com.rapidftr.forms.FormSection;
 import com.rapidftr.forms.FormSectionTest;
 import com.rapidftr.model.Child;
+import com.rapidftr.service.FormService;
 import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Test;
@@ -18,6 +19,8 @@ import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 
 @RunWith(CustomTestRunner.class)
 public class ChildSearchTest {
@@ -30,12 +33,14 @@ public class ChildSearchTest {
     @Before
     public void setUp() throws IOException {
         session = new ShadowSQLiteHelper("test_database").getSession();
-        repository = new ChildRepository("user1", session);
         highlightedFormFields = new ArrayList<FormField>();
         List<FormSection> formSections = FormSectionTest.loadFormSectionsFromClassPathResource();
         for (FormSection formSection : formSections) {
             highlightedFormFields.addAll(formSection.getOrderedHighLightedFields());
         }
+        FormService formService = mock(FormService.class);
+        given(formService.getHighlightedFields(Child.CHILD_FORM_NAME)).willReturn(highlightedFormFields);
+        repository = new ChildRepository("user1", session, formService);
     }
 
     @Test
@@ -52,7 +57,7 @@ public class ChildSearchTest {
         repository.createOrUpdate(child4);
         repository.createOrUpdate(child5);
 
-        childSearch = new ChildSearch("chåld", repository, highlightedFormFields);
+        childSearch = new ChildSearch("chåld", repository);
         List<Child> children = childSearch.getRecordsForFirstPage();
         assertEquals(2, children.size());
     }
@@ -64,12 +69,12 @@ public class ChildSearchTest {
         String childShortId = "jklmnop";
         Child child1 = new Child(childId, "user1", "{ 'name' : 'first second', 'test2' : 0, 'test3' : [ '1', 2, '3' ] }");
         repository.createOrUpdate(child1);
-        childSearch = new ChildSearch(childId, repository, highlightedFormFields);
+        childSearch = new ChildSearch(childId, repository);
 
         List<Child> children = childSearch.getRecordsForFirstPage();
         assertEquals(0, children.size());
 
-        childSearch = new ChildSearch(childShortId, repository, highlightedFormFields);
+        childSearch = new ChildSearch(childShortId, repository);
         children = childSearch.getRecordsForFirstPage();
         assertEquals(1, children.size());
     }
@@ -86,7 +91,7 @@ public class ChildSearchTest {
         repository.createOrUpdate(child2);
         repository.createOrUpdate(child3);
         repository.createOrUpdate(child4);
-        childSearch = new ChildSearch("hiLd1", repository, highlightedFormFields);
+        childSearch = new ChildSearch("hiLd1", repository);
 
         List<Child> children = childSearch.getRecordsForFirstPage();
         assertEquals(2, children.size());
@@ -106,16 +111,16 @@ public class ChildSearchTest {
         repository.createOrUpdate(child4);
         repository.createOrUpdate(child5);
 
-        childSearch = new ChildSearch("child3", repository, highlightedFormFields);
+        childSearch = new ChildSearch("child3", repository);
         assertEquals(1, childSearch.getRecordsForFirstPage().size());
 
-        childSearch = new ChildSearch("hiLd", repository, highlightedFormFields);
+        childSearch = new ChildSearch("hiLd", repository);
         assertEquals(5, childSearch.getRecordsForFirstPage().size());
 
-        childSearch = new ChildSearch("hiLd1", repository, highlightedFormFields);
+        childSearch = new ChildSearch("hiLd1", repository);
         assertEquals(2, childSearch.getRecordsForFirstPage().size());
 
-        childSearch = new ChildSearch("developer", repository, highlightedFormFields);
+        childSearch = new ChildSearch("developer", repository);
         assertEquals(1, childSearch.getRecordsForFirstPage().size());
     }
 
@@ -126,7 +131,7 @@ public class ChildSearchTest {
         repository.createOrUpdate(child1);
         repository.createOrUpdate(child2);
 
-        childSearch = new ChildSearch("first second", repository, highlightedFormFields);
+        childSearch = new ChildSearch("first second", repository);
         List<Child> children = childSearch.getRecordsForFirstPage();
 
         assertEquals(1, children.size());
@@ -139,7 +144,7 @@ public class ChildSearchTest {
         repository.createOrUpdate(child1);
         repository.createOrUpdate(child2);
 
-        childSearch = new ChildSearch("first john", repository, highlightedFormFields);
+        childSearch = new ChildSearch("first john", repository);
         List<Child> children = childSearch.getRecordsForFirstPage();
 
         assertEquals(2, children.size());
@@ -152,7 +157,7 @@ public class ChildSearchTest {
         repository.createOrUpdate(child1);
         repository.createOrUpdate(child2);
 
-        childSearch = new ChildSearch("second first", repository, highlightedFormFields);
+        childSearch = new ChildSearch("second first", repository);
         List<Child> children = childSearch.getRecordsForFirstPage();
 
         assertEquals(1, children.size());
@@ -165,10 +170,55 @@ public class ChildSearchTest {
         repository.createOrUpdate(child1);
         repository.createOrUpdate(child2);
 
-        childSearch = new ChildSearch("sam", repository, highlightedFormFields);
+        childSearch = new ChildSearch("sam", repository);
         List<Child> children = childSearch.getRecordsForFirstPage();
 
         assertEquals(0, children.size());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldRankMatchesAtTheStartOfAWordFirst() throws JSONException {
+        Child child1 = new Child("id1", "user1", "{ 'name' : 'michael' }");
+        Child child2 = new Child("id2", "user1", "{ 'name' : 'chloe' }");
+        repository.createOrUpdate(child1);
+        repository.createOrUpdate(child2);
+
+        childSearch = new ChildSearch("ch", repository);
+        List<Child> children = childSearch.getRecordsForFirstPage();
+
+        assertEquals(2, children.size());
+        assertEquals("id2", children.get(0).getUniqueId());
+        assertEquals("id1", children.get(1).getUniqueId());
+    }
+
+    @Test
+    public void shouldReindexChildWhenItIsUpdated() throws JSONException {
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'first second' }"));
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'john smith' }"));
+
+        assertEquals(0, new ChildSearch("first", repository).getRecordsForFirstPage().size());
+        assertEquals(1, new ChildSearch("smith", repository).getRecordsForFirstPage().size());
+    }
+
+    @Test
+    public void shouldRebuildIndexFromHighlightedFieldsOnly() throws JSONException {
+        repository.createOrUpdate(new Child("id1", "user1", "{ 'name' : 'john smith', 'nickname' : 'johnny' }"));
+        session.execSQL("DELETE FROM children_search");
+        session.execSQL("UPDATE children SET child_json = '{ \"unique_identifier\" : \"id1\", \"name\" : \"sam smith\", \"nickname\" : \"johnny\" }'");
+
+        repository.rebuildSearchIndex();
+
+        assertEquals(1, new ChildSearch("mith", repository).getRecordsForFirstPage().size());
+        assertEquals(1, new ChildSearch("sam", repository).getRecordsForFirstPage().size());
+        assertEquals(0, new ChildSearch("johnny", repository).getRecordsForFirstPage().size());
+        assertEquals(0, new ChildSearch("nickname", repository).getRecordsForFirstPage().size());
+    }
+
+    @Test
+    public void shouldIgnoreSearchSyntaxInSearchTerm() throws JSONException {
+        repository.createOrUpdate(new Child("id1", "user1", "{ \"name\" : \"o'brien\" }"));
+
+        assertEquals(1, new ChildSearch("O'Brien*", repository).getRecordsForFirstPage().size());
+    }
+
+}
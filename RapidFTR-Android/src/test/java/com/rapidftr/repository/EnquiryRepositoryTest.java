@@ -65,8 +65,7 @@ public class EnquiryRepositoryTest {
     public void shouldCreateChildRecordAndSetCreatedAtHistory() throws Exception {
         Enquiry enquiry = new Enquiry("{\"age\":14,\"name\":\"Subhas\"}", user);
         enquiryRepository.createOrUpdate(enquiry);
-        JSONObject enquiryJsonValues = enquiryRepository.get(enquiry.getUniqueId()).values();
-        JSONArray histories = (JSONArray) enquiryJsonValues.get(History.HISTORIES);
+        JSONArray histories = enquiryRepository.getHistories(enquiry.getUniqueId());
         JSONObject changes = (JSONObject) ((JSONObject) histories.get(0)).get("changes");
         assert(((JSONObject) changes.get("enquiry")).has(History.CREATED));
     }
@@ -214,8 +213,8 @@ public class EnquiryRepositoryTest {
         enquiry.put("enquirer_name", "New Reporter Name");
         enquiryRepository.createOrUpdate(enquiry);
 
-        JSONObject enquiryJsonValues = enquiryRepository.get(enquiry.getUniqueId()).values();
-        assertTrue(enquiryJsonValues.has(History.HISTORIES));
+        assertEquals(2, enquiryRepository.getHistories(enquiry.getUniqueId()).length());
+        assertFalse(enquiryRepository.get(enquiry.getUniqueId()).has(History.HISTORIES));
     }
 
     @Test
@@ -231,8 +230,8 @@ public class EnquiryRepositoryTest {
         enquiry.put("enquirer_name", "New Reporter Name");
         enquiryRepository.createOrUpdate(enquiry);
 
-        JSONObject enquiryJsonValues = enquiryRepository.get(enquiry.getUniqueId()).values();
-        assertTrue(enquiryJsonValues.has(History.HISTORIES));
+        assertEquals(2, enquiryRepository.getHistories(enquiry.getUniqueId()).length());
+        assertFalse(enquiryRepository.get(enquiry.getUniqueId()).has(History.HISTORIES));
     }
 
     @Test(expected = android.database.SQLException.class)
@@ -256,58 +255,6 @@ public class EnquiryRepositoryTest {
         enquiryRepository1.createOrUpdate(enquiry);
     }
 
-    @Test
-    public void shouldAnEnquiryUsingInternalIds() throws JSONException {
-        String enquiryJSON = "{\n" +
-                "\"synced\":\"true\",\n" +
-                "\"_id\":\"enquiry_id_1\",\n" +
-                "\"created_by\":\"some guy\"" +
-                "}";
-        Enquiry enquiry = new Enquiry(enquiryJSON);
-        enquiryRepository.createOrUpdate(enquiry);
-
-        List<String> ids = new ArrayList<String>();
-        ids.add("enquiry_id_1");
-        List<Enquiry> enquiries = enquiryRepository.getAllWithInternalIds(ids);
-        assertThat(enquiries.size(), is(1));
-        assertThat(enquiries.get(0).getUniqueId(), is(enquiry.getUniqueId()));
-    }
-
-    @Test
-    public void shouldReturnAllWithInternalIds() throws JSONException {
-        String enquiryJSON = "{\n" +
-                "\"synced\":\"true\",\n" +
-                "\"_id\":\"enquiry_id_1\",\n" +
-                "\"created_by\":\"some guy\"" +
-                "}";
-        Enquiry enquiry1 = new Enquiry(enquiryJSON);
-        enquiryRepository.createOrUpdate(enquiry1);
-
-        String enquiryJSON2 = "{\n" +
-                "\"synced\":\"true\",\n" +
-                "\"_id\":\"enquiry_id_2\",\n" +
-                "\"created_by\":\"some guy\"" +
-                "}";
-        Enquiry enquiry2 = new Enquiry(enquiryJSON2);
-        enquiryRepository.createOrUpdate(enquiry2);
-
-        String enquiryJSON3 = "{\n" +
-                "\"synced\":\"true\",\n" +
-                "\"_id\":\"enquiry_id_3\",\n" +
-                "\"created_by\":\"some guy\"" +
-                "}";
-        Enquiry enquiry3 = new Enquiry(enquiryJSON3);
-        enquiryRepository.createOrUpdate(enquiry3);
-
-        List<String> ids = new ArrayList<String>();
-        ids.add("enquiry_id_1");
-        ids.add("enquiry_id_3");
-        List<Enquiry> enquiries = enquiryRepository.getAllWithInternalIds(ids);
-        assertThat(enquiries.size(), is(2));
-        assertThat(enquiries.get(0).getUniqueId(), is(enquiry1.getUniqueId()));
-        assertThat(enquiries.get(1).getUniqueId(), is(enquiry3.getUniqueId()));
-    }
-
     @Test
     public void shouldCreateNewEnquiryWithoutHistory() throws JSONException {
         Enquiry enquiry = new Enquiry("{\n" +
@@ -348,19 +295,19 @@ public class EnquiryRepositoryTest {
 
         enquiryRepository.getRecordsForFirstPage();
 
-        String sql = "SELECT enquiry_json, synced FROM enquiry WHERE created_by ='user1' ORDER BY id LIMIT 30";
-        verify(session, times(1)).rawQuery(sql, null);
+        String sql = "SELECT enquiry_json, synced FROM enquiry WHERE created_by = ? ORDER BY id LIMIT ?";
+        verify(session, times(1)).rawQuery(sql, new String[]{"user1", "30"});
     }
 
     @Test
-    public void shouldReturnRecordsBetweenSpecifiedLimits() throws JSONException {
+    public void shouldReturnRecordsAfterSpecifiedId() throws JSONException {
         session = mock(DatabaseSession.class);
         enquiryRepository = spy(new EnquiryRepository("user1", session));
         doReturn(new ArrayList<Child>()).when(enquiryRepository).toEnquiries(any(Cursor.class));
 
-        enquiryRepository.getRecordsBetween(1, 10);
+        enquiryRepository.getRecordsAfter("id30", 30);
 
-        String sql = "SELECT enquiry_json, synced FROM enquiry WHERE created_by='user1' ORDER BY id LIMIT 9 OFFSET 10";
-        verify(session, times(1)).rawQuery(sql, null);
+        String sql = "SELECT enquiry_json, synced FROM enquiry WHERE created_by = ? AND id > ? ORDER BY id LIMIT ?";
+        verify(session, times(1)).rawQuery(sql, new String[]{"user1", "id30", "30"});
     }
 }
@@ -8,6 +8,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
@@ -19,6 +20,9 @@ public class PaginatedSearchQueryBuilderTest {
     private RapidFtrApplication applicationContext;
     private PaginatedSearchQueryBuilder queryBuilder;
 
+    private static final String SEARCH_QUERY = "SELECT children.child_json, children.synced FROM children_search " +
+            "JOIN children ON children.rowid = children_search.docid ";
+
     @Before
     public void setUp() throws Exception {
         user = spy(new User("user1"));
@@ -33,9 +37,10 @@ public class PaginatedSearchQueryBuilderTest {
 
         String actualQuery = queryBuilder.queryForMatchingChildrenFirstPage();
 
-        String expectQuery = "SELECT child_json, synced " +
-                "FROM children WHERE ( child_owner = 'user1' AND child_json LIKE '%john%' OR id LIKE '%john%') LIMIT 30";
+        String expectQuery = SEARCH_QUERY + "WHERE children_search MATCH ? AND children.child_owner = ? " +
+                "ORDER BY " + ChildSearchIndex.RANK + " DESC, children.id LIMIT ?";
         assertEquals(expectQuery, actualQuery);
+        assertArrayEquals(new String[]{"john*", "user1", "30"}, queryBuilder.argumentsForFirstPage());
     }
 
     @Test
@@ -45,36 +50,26 @@ public class PaginatedSearchQueryBuilderTest {
 
         String actualQuery = queryBuilder.queryForMatchingChildrenFirstPage();
 
-        String expectQuery = "SELECT child_json, synced " +
-                "FROM children WHERE (child_json LIKE '%john%' OR id LIKE '%john%') LIMIT 30";
+        String expectQuery = SEARCH_QUERY + "WHERE children_search MATCH ? " +
+                "ORDER BY " + ChildSearchIndex.RANK + " DESC, children.id LIMIT ?";
         assertEquals(expectQuery, actualQuery);
+        assertArrayEquals(new String[]{"john*", "30"}, queryBuilder.argumentsForFirstPage());
     }
 
     @Test
-    public void shouldReturnQueryForFirstThirtyMatchesWithAllTwoSubQueries() throws JSONException {
+    public void shouldMatchAnyOfTwoSubQueries() throws JSONException {
         doReturn(true).when(user).isVerified();
         PaginatedSearchQueryBuilder queryBuilder = new PaginatedSearchQueryBuilder(applicationContext, "john doe");
 
-        String actualQuery = queryBuilder.queryForMatchingChildrenFirstPage();
-
-        String expectQuery = "SELECT child_json, synced " +
-                "FROM children WHERE (child_json LIKE '%john%' OR id LIKE '%john%' " +
-                "OR child_json LIKE '%doe%' OR id LIKE '%doe%') LIMIT 30";
-        assertEquals(expectQuery, actualQuery);
+        assertArrayEquals(new String[]{"john* OR doe*", "30"}, queryBuilder.argumentsForFirstPage());
     }
 
     @Test
-    public void shouldReturnQueryForFirstThirtyMatchesWithMoreThanTwoSubQueries() throws JSONException {
+    public void shouldMatchAnyOfMoreThanTwoSubQueries() throws JSONException {
         doReturn(true).when(user).isVerified();
         PaginatedSearchQueryBuilder queryBuilder = new PaginatedSearchQueryBuilder(applicationContext, "john doe foo");
 
-        String actualQuery = queryBuilder.queryForMatchingChildrenFirstPage();
-
-        String expectQuery = "SELECT child_json, synced " +
-                "FROM children WHERE (child_json LIKE '%john%' OR id LIKE '%john%' " +
-                "OR child_json LIKE '%doe%' OR id LIKE '%doe%' " +
-                "OR child_json LIKE '%foo%' OR id LIKE '%foo%') LIMIT 30";
-        assertEquals(expectQuery, actualQuery);
+        assertArrayEquals(new String[]{"john* OR doe* OR foo*", "30"}, queryBuilder.argumentsForFirstPage());
     }
 
     @Test
@@ -82,13 +77,31 @@ public class PaginatedSearchQueryBuilderTest {
         doReturn(true).when(user).isVerified();
         PaginatedSearchQueryBuilder queryBuilder = new PaginatedSearchQueryBuilder(applicationContext, "john doe foo");
 
-        String actualQuery = queryBuilder.queryForMatchingChildrenBetweenPages(1, 10);
+        String actualQuery = queryBuilder.queryForMatchingChildrenBetweenPages();
 
-        String expectQuery = "SELECT child_json, synced " +
-                "FROM children WHERE (child_json LIKE '%john%' OR id LIKE '%john%' " +
-                "OR child_json LIKE '%doe%' OR id LIKE '%doe%' " +
-                "OR child_json LIKE '%foo%' OR id LIKE '%foo%') LIMIT 9 OFFSET 10";
+        String expectQuery = SEARCH_QUERY + "WHERE children_search MATCH ? " +
+                "ORDER BY " + ChildSearchIndex.RANK + " DESC, children.id LIMIT ? OFFSET ?";
         assertEquals(expectQuery, actualQuery);
+        assertArrayEquals(new String[]{"john* OR doe* OR foo*", "9", "10"}, queryBuilder.argumentsBetweenPages(1, 10));
+    }
+
+    @Test
+    public void shouldStripQuotesAndSearchOperatorsFromSearchKey() throws JSONException {
+        doReturn(true).when(user).isVerified();
+        PaginatedSearchQueryBuilder queryBuilder = new PaginatedSearchQueryBuilder(applicationContext, "O'Brien* -(john)");
+
+        assertArrayEquals(new String[]{"o* OR brien* OR john*", "30"}, queryBuilder.argumentsForFirstPage());
+    }
+
+    @Test
+    public void shouldListAllChildrenOfCurrentUserWhenSearchKeyHasNoTerms() throws JSONException {
+        doReturn(false).when(user).isVerified();
+        PaginatedSearchQueryBuilder queryBuilder = new PaginatedSearchQueryBuilder(applicationContext, " ");
+
+        String actualQuery = queryBuilder.queryForMatchingChildrenFirstPage();
+
+        assertEquals("SELECT child_json, synced FROM children WHERE children.child_owner = ? ORDER BY id LIMIT ?", actualQuery);
+        assertArrayEquals(new String[]{"user1", "30"}, queryBuilder.argumentsForFirstPage());
     }
 
 }
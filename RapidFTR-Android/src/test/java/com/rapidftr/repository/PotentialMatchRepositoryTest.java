@@ -13,7 +13,8 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
@@ -46,47 +47,55 @@ public class PotentialMatchRepositoryTest {
     }
 
     @Test
-    public void shouldReturnEmptyListIfEnquiryDoesNotHaveInternalId() throws JSONException, SQLException {
+    public void shouldReturnNoMatchingChildrenIfEnquiryDoesNotHaveInternalId() throws JSONException, SQLException {
         String enquiryJSON = "{\"name\":\"foo bar\", \"nationality\":\"ugandan\"}";
         Enquiry enquiry = new Enquiry(enquiryJSON);
-        List<PotentialMatch> matches = repository.getPotentialMatchesFor(enquiry);
-        assertThat(matches.size(), is(0));
+        MatchedRecords<Child> children = repository.getMatchingChildren(enquiry);
+        assertThat(children.getAll().size(), is(0));
     }
 
     @Test
-    public void shouldReturnPotentialMatchesByEnquiry() throws JSONException, SQLException {
-        String enquiryJSON = "{\"_id\":\"enquiry_id\", \"name\":\"foo bar\", \"nationality\":\"ugandan\"}";
-        Enquiry enquiry = new Enquiry(enquiryJSON);
-        PotentialMatch potentialMatch = new PotentialMatch("enquiry_id", "child_id", "unique_id_2");
-        repository.createOrUpdate(potentialMatch);
-        repository.createOrUpdate(new PotentialMatch("not_matching", "child_id", "unique_id_1"));
-
-        List<PotentialMatch> matches = repository.getPotentialMatchesFor(enquiry);
-
-        assertThat(matches.size(), is(1));
-        assertThat(matches.get(0).getEnquiryId(), is("enquiry_id"));
-    }
-
-    @Test
-    public void shouldReturnEmptyListIfChildDoesNotHaveInternalId() throws JSONException, SQLException {
+    public void shouldReturnNoMatchingEnquiriesIfChildDoesNotHaveInternalId() throws JSONException, SQLException {
         String childJSON = "{\"name\":\"foo bar\", \"nationality\":\"ugandan\"}";
         Child child = new Child(childJSON);
-        List<PotentialMatch> matches = repository.getPotentialMatchesFor(child);
-        assertThat(matches.size(), is(0));
+        MatchedRecords<Enquiry> enquiries = repository.getMatchingEnquiries(child);
+        assertThat(enquiries.getAll().size(), is(0));
     }
 
     @Test
-    public void shouldReturnPotentialMatchesByChild() throws JSONException, SQLException {
-        String childJSON = "{\"_id\":\"child_id\", \"name\":\"foo bar\", \"nationality\":\"ugandan\"}";
-        Child child = new Child(childJSON);
-        PotentialMatch potentialMatch = new PotentialMatch("enquiry_id", "child_id", "unique_id_1");
-        repository.createOrUpdate(potentialMatch);
-        repository.createOrUpdate(new PotentialMatch("enquiry_id", "not_matching", "unique_id_2"));
-
-        List<PotentialMatch> matches = repository.getPotentialMatchesFor(child);
+    public void shouldReturnMatchingChildrenWithConfirmedOnesFirst() throws JSONException, SQLException {
+        ChildRepository childRepository = new ChildRepository("user1", session);
+        Child child1 = new Child("id1", "user1", "{ 'name' : 'child1', '_id' : 'child_id_1' }");
+        Child child2 = new Child("id2", "user1", "{ 'name' : 'child2', '_id' : 'child_id_2' }");
+        childRepository.createOrUpdate(child1);
+        childRepository.createOrUpdate(child2);
+        repository.createOrUpdate(new PotentialMatch("enquiry_id", "child_id_1", "unique_id_1"));
+        repository.createOrUpdate(new PotentialMatch("enquiry_id", "child_id_2", "unique_id_2", true));
+        repository.createOrUpdate(new PotentialMatch("not_matching", "child_id_1", "unique_id_3", true));
+
+        MatchedRecords<Child> children = repository.getMatchingChildren(new Enquiry("{\"_id\":\"enquiry_id\"}"));
+
+        assertThat(children.getAll(), is(Arrays.asList(child2, child1)));
+        assertThat(children.getConfirmedIds(), is(Collections.singleton("id2")));
+    }
 
-        assertThat(matches.size(), is(1));
-        assertThat(matches.get(0).getChildId(), is("child_id"));
+    @Test
+    public void shouldReturnMatchingEnquiriesByConfirmationStatus() throws JSONException, SQLException {
+        EnquiryRepository enquiryRepository = new EnquiryRepository("user1", session);
+        Enquiry enquiry1 = new Enquiry("{\"_id\":\"enquiry_id_1\", \"created_by\":\"user1\"}");
+        Enquiry enquiry2 = new Enquiry("{\"_id\":\"enquiry_id_2\", \"created_by\":\"user1\"}");
+        enquiryRepository.createOrUpdate(enquiry1);
+        enquiryRepository.createOrUpdate(enquiry2);
+        repository.createOrUpdate(new PotentialMatch("enquiry_id_1", "child_id", "unique_id_1", true));
+        repository.createOrUpdate(new PotentialMatch("enquiry_id_2", "child_id", "unique_id_2"));
+
+        MatchedRecords<Enquiry> enquiries = repository.getMatchingEnquiries(new Child("{\"_id\":\"child_id\"}"));
+
+        assertThat(enquiries.getConfirmed().size(), is(1));
+        assertThat(enquiries.getConfirmed().get(0).getUniqueId(), is(enquiry1.getUniqueId()));
+        assertThat(enquiries.getUnconfirmed().size(), is(1));
+        assertThat(enquiries.getUnconfirmed().get(0).getUniqueId(), is(enquiry2.getUniqueId()));
+        assertThat(enquiries.getConfirmedIds(), is(Collections.singleton(enquiry1.getUniqueId())));
     }
 
     @Test
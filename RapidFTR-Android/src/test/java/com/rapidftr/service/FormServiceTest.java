@@ -5,17 +5,21 @@ import android.content.res.Resources;
 import android.net.Uri;
 import com.rapidftr.RapidFtrApplication;
 import com.rapidftr.forms.FormField;
+import com.rapidftr.forms.FormSchemaStore;
+import com.rapidftr.forms.FormSection;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.Enquiry;
 import com.rapidftr.utils.ResourceLoader;
 import com.rapidftr.utils.http.FluentRequest;
 import com.rapidftr.utils.http.FluentResponse;
+import com.rapidftr.utils.http.HttpValidators;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.ProtocolVersion;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHttpResponse;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -24,10 +28,15 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
@@ -41,6 +50,9 @@ public class FormServiceTest {
     private SharedPreferences.Editor editor;
 
     private String jsonResponse = null;
+    private FormSchemaStore store;
+    private HttpValidators validators;
+    private File storeFile;
     private FormService formService;
 
     @Before
@@ -56,33 +68,75 @@ public class FormServiceTest {
 
         when(sharedPreferences.edit()).thenReturn(editor);
         when(editor.putString(anyString(), anyString())).thenReturn(editor);
+        when(editor.remove(anyString())).thenReturn(editor);
         when(editor.commit()).thenReturn(true);
         when(application.getSharedPreferences()).thenReturn(sharedPreferences);
 
-        formService = new FormService(application);
+        validators = mock(HttpValidators.class);
+        storeFile = File.createTempFile(UUID.randomUUID().toString(), ".bin");
+        storeFile.delete();
+        store = new FormSchemaStore(storeFile);
+        formService = new FormService(application, store, validators);
+    }
+
+    @After
+    public void tearDown() {
+        storeFile.delete();
     }
 
     @Test
-    public void shouldDownloadAndSaveFormSections() throws Exception {
+    public void shouldDownloadAndStoreFormSections() throws Exception {
         FluentRequest request = Mockito.mock(FluentRequest.class);
 
         PowerMockito.mockStatic(FluentRequest.class);
         when(FluentRequest.http()).thenReturn(request);
         when(request.context(any(RapidFtrApplication.class))).thenReturn(request);
         when(request.path(anyString())).thenReturn(request);
+        when(request.validators(validators)).thenReturn(request);
         when(request.get()).thenReturn(new FluentResponse(buildResponse()));
-        when(sharedPreferences.getString(FormService.FORM_SECTIONS_PREF, null)).thenReturn(jsonResponse);
 
         formService.downloadPublishedFormSections();
 
-        verify(editor, times(1)).putString(eq(FormService.FORM_SECTIONS_PREF), eq(jsonResponse));
-        verify(editor, times(1)).commit();
+        verify(editor, never()).putString(eq(FormService.FORM_SECTIONS_PREF), anyString());
+        assertEquals(10, formService.getFormSections(Child.CHILD_FORM_NAME).size());
+        List<FormSection> storedSections = new FormService(application, new FormSchemaStore(storeFile), validators).getFormSections(Child.CHILD_FORM_NAME);
+        assertEquals(formService.getFormSections(Child.CHILD_FORM_NAME), storedSections);
+    }
+
+    @Test
+    public void shouldKeepStoredFormSectionsWhenNotModified() throws Exception {
+        FluentRequest request = Mockito.mock(FluentRequest.class);
+
+        PowerMockito.mockStatic(FluentRequest.class);
+        when(FluentRequest.http()).thenReturn(request);
+        when(request.context(any(RapidFtrApplication.class))).thenReturn(request);
+        when(request.path(anyString())).thenReturn(request);
+        when(request.validators(validators)).thenReturn(request);
+        when(request.get()).thenReturn(new FluentResponse(new BasicHttpResponse(new ProtocolVersion("HTTP", 1, 1), HttpStatus.SC_NOT_MODIFIED, "")));
+        String state = store.getState();
+
+        formService.downloadPublishedFormSections();
+
+        assertEquals(state, store.getState());
+        assertEquals(10, formService.getFormSections(Child.CHILD_FORM_NAME).size());
+    }
+
+    @Test
+    public void shouldMoveFormSectionsOutOfSharedPreferences() throws IOException {
+        storeFile.delete();
+        when(sharedPreferences.getString(FormService.FORM_SECTIONS_PREF, null)).thenReturn(jsonResponse);
+
+        formService = new FormService(application, store, validators);
+
+        verify(editor).remove(FormService.FORM_SECTIONS_PREF);
+        assertTrue(storeFile.exists());
+        assertEquals(10, formService.getFormSections(Child.CHILD_FORM_NAME).size());
     }
 
     @Test
     public void shouldLoadDefaultFormSections() throws IOException {
         when(sharedPreferences.getString(FormService.FORM_SECTIONS_PREF, null)).thenReturn(null);
-        formService = new FormService(application);
+        formService = new FormService(application, store, validators);
 
         int noOfChildFormSectionsBeforeDownload = 10, noOfEnquiryFormSectionsBeforeDownload = 7;
         assertEquals(noOfChildFormSectionsBeforeDownload, formService.getFormSections(Child.CHILD_FORM_NAME).size());
@@ -92,13 +146,22 @@ public class FormServiceTest {
     @Test
     public void shouldReturnHighlightedFieldsForChildForm() throws IOException {
         when(sharedPreferences.getString(FormService.FORM_SECTIONS_PREF, null)).thenReturn(null);
-        formService = new FormService(application);
+        formService = new FormService(application, store, validators);
 
         List<FormField> formFields = formService.getHighlightedFields(Child.CHILD_FORM_NAME);
         int expectedNoOfHighlightedFields = 4;
         assertEquals(expectedNoOfHighlightedFields, formFields.size());
     }
 
+    @Test
+    public void shouldShareSchemaCompiledFromSameFormSections() throws IOException {
+        FormService first = new FormService(application, store, validators), second = new FormService(application, new FormSchemaStore(storeFile), validators);
+
+        assertSame(first.getHighlightedFields(Child.CHILD_FORM_NAME), second.getHighlightedFields(Child.CHILD_FORM_NAME));
+        assertSame(first.getFormSections(Child.CHILD_FORM_NAME).get(0), second.getFormSections(Child.CHILD_FORM_NAME).get(0));
+        assertNotSame(first.getFormSections(Child.CHILD_FORM_NAME), second.getFormSections(Child.CHILD_FORM_NAME));
+    }
+
     private HttpResponse buildResponse() throws IOException {
 
         BasicHttpResponse httpResponse =
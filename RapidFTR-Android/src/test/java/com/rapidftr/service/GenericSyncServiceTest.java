@@ -11,22 +11,29 @@ import com.rapidftr.model.User;
 import com.rapidftr.repository.ChildRepository;
 import com.rapidftr.utils.AudioCaptureHelper;
 import com.rapidftr.utils.PhotoCaptureHelper;
+import com.rapidftr.utils.http.ChunkedUpload;
 import com.rapidftr.utils.http.FluentRequest;
+import com.rapidftr.utils.http.ResumableDownload;
 import org.apache.http.HttpException;
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Matchers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.robolectric.tester.org.apache.http.FakeHttpLayer;
 import org.robolectric.tester.org.apache.http.TestHttpResponse;
 
 import javax.xml.ws.http.HTTPException;
 import java.io.*;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +44,7 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
@@ -67,7 +75,8 @@ public class GenericSyncServiceTest {
                 ChildSyncService.CHILDREN_API_PARAMETER);
         given(currentUser.isVerified()).willReturn(true);
         fluentRequest = new FluentRequest();
-        mediaSyncHelper = new MediaSyncHelper(childHttpDao, mockContext());
+        RapidFtrApplication context = mockContext();
+        mediaSyncHelper = new MediaSyncHelper(context, new ResumableDownload(context), mock(ChunkedUpload.class), new MediaManifest(context));
         genericSyncService = new GenericSyncService<Child>(mediaSyncHelper, childHttpDao, repository);
     }
 
@@ -223,7 +232,7 @@ public class GenericSyncServiceTest {
     public void shouldSetMediaIfNotAlreadyExistingOnTheMobile() throws JSONException, IOException {
         RapidFtrApplication context = mockContext();
         String response = "{\"recorded_audio\":\"audio-12321\",\"photo_keys\": [\"photo-998\",\"photo-888\", \"photo-777\"],\"_id\":\"abcd\",\"current_photo_key\": \"photo-888\",\"separation_place\":\"\",\"wishes_address_3\":\"\",\"care_arrangments_name\":\"\",\"other_family\":\"\",\"care_arrangements_knowsfamily\":\"\",\"created_at\":\"2012-12-14 10:57:39UTC\",\"wishes_contacted_details\":\"\",\"posted_from\":\"Browser\"}";
-        MediaSyncHelper spyMediaHelper = spy(new MediaSyncHelper(childHttpDao, context));
+        MediaSyncHelper spyMediaHelper = spy(new MediaSyncHelper(context, new ResumableDownload(context), mock(ChunkedUpload.class), new MediaManifest(context)));
         GenericSyncService syncService = new GenericSyncService<Child>(spyMediaHelper, childHttpDao, repository);
         getFakeHttpLayer().setDefaultHttpResponse(200, response);
         Child child = new Child("id", "user", "{ 'name' : 'child1'}");
@@ -262,15 +271,119 @@ public class GenericSyncServiceTest {
         verify(childSpy).remove(History.HISTORIES);
     }
 
-    @Test(expected = SyncFailedException.class)
-    public void shouldNotRemoveHistoriesAfterFailedSync() throws Exception {
-        Child childSpy = spy(new Child("{\"_id\" : \"couch_id\", \"child_name\":\"subhas\",\"unique_identifier\":\"78223s4h1e468f5200edc\"}"));
-        doReturn(false).when(childSpy).isNew();
+    @Test
+    public void shouldClearStoredHistoriesOnlyOnceTheServerHasTheRecord() throws Exception {
+        Child child = new Child("{'_id' : 'couch_id', 'unique_identifier' : 'uid', 'histories' : [{'changes' : {'name' : {'to' : 'new name'}}}]}");
+        childHttpDao = mock(EntityHttpDao.class);
+        doReturn(child).when(childHttpDao).update(eq(child), anyString(), any(Map.class));
+        final List<Integer> savedHistories = new ArrayList<Integer>();
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                savedHistories.add(((Child) invocation.getArguments()[0]).getJSONArray(History.HISTORIES).length());
+                return null;
+            }
+        }).when(repository).createOrUpdateWithoutHistory(any(Child.class));
+
+        new GenericSyncService<Child>(mediaSyncHelper, childHttpDao, repository).sync(child, "");
+
+        assertEquals(Arrays.asList(0), savedHistories);
+    }
 
+    @Test
+    public void shouldNotTouchStoredHistoriesAfterFailedSync() throws Exception {
+        Child child = new Child("{'_id' : 'couch_id', 'unique_identifier' : 'uid', 'histories' : [{'changes' : {'name' : {'to' : 'new name'}}}]}");
         childHttpDao = mock(EntityHttpDao.class);
-        doThrow(new HTTPException(404)).when(childHttpDao).update(eq(childSpy), anyString(), any(Map.class));
-        new GenericSyncService<Child>(mediaSyncHelper, childHttpDao, repository).sync(childSpy, "");
-        verify(childSpy, never()).remove(History.HISTORIES);
+        doThrow(new HTTPException(404)).when(childHttpDao).update(eq(child), anyString(), any(Map.class));
+        final List<Boolean> savedWithHistories = new ArrayList<Boolean>();
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                savedWithHistories.add(((Child) invocation.getArguments()[0]).has(History.HISTORIES));
+                return null;
+            }
+        }).when(repository).createOrUpdateWithoutHistory(any(Child.class));
+
+        try {
+            new GenericSyncService<Child>(mediaSyncHelper, childHttpDao, repository).sync(child, "");
+            fail();
+        } catch (SyncFailedException e) {
+            assertEquals(Arrays.asList(false), savedWithHistories);
+            assertEquals(1, child.getJSONArray(History.HISTORIES).length());
+        }
+    }
+
+    @Test
+    public void shouldAttachStoredHistoriesToRecordLoadedWithoutThem() throws Exception {
+        getFakeHttpLayer().setDefaultHttpResponse(201, "{}");
+        Child child = new Child("id1", "user1", "{ 'name' : 'child1' }");
+
+        genericSyncService.sync(child, "");
+
+        verify(repository).attachHistories(child);
+    }
+
+    @Test
+    public void shouldSendOnlyFieldsChangedSinceLastSyncWithBaseRevision() throws Exception {
+        Child child = new Child("{'_id' : 'couch_id', '_rev' : '3-abc', 'unique_identifier' : 'uid', 'name' : 'new name', 'age' : '10', "
+                + "'histories' : [{'changes' : {'name' : {'from' : 'old name', 'to' : 'new name'}}}]}");
+        childHttpDao = mock(EntityHttpDao.class);
+        doReturn(child).when(childHttpDao).updateFields(any(JSONObject.class), anyString(), any(Map.class));
+
+        new GenericSyncService<Child>(mediaSyncHelper, childHttpDao, repository).sync(child, "/api/children/couch_id");
+
+        ArgumentCaptor<JSONObject> fields = ArgumentCaptor.forClass(JSONObject.class);
+        verify(childHttpDao).updateFields(fields.capture(), eq("/api/children/couch_id"), any(Map.class));
+        verify(childHttpDao, never()).update(any(Child.class), anyString(), any(Map.class));
+        assertThat(fields.getValue().getString("name"), is("new name"));
+        assertThat(fields.getValue().getString("_rev"), is("3-abc"));
+        assertThat(fields.getValue().getString("unique_identifier"), is("uid"));
+        assertThat(fields.getValue().has("age"), is(false));
+    }
+
+    @Test
+    public void shouldSendOnlyChangedFieldsAgainAfterFailedSync() throws Exception {
+        Child child = new Child("{'_id' : 'couch_id', '_rev' : '3-abc', 'unique_identifier' : 'uid', 'name' : 'new name', "
+                + "'histories' : [{'changes' : {'name' : {'from' : 'old name', 'to' : 'new name'}}}]}");
+        childHttpDao = mock(EntityHttpDao.class);
+        doThrow(new HTTPException(503)).doReturn(child)
+                .when(childHttpDao).updateFields(any(JSONObject.class), anyString(), any(Map.class));
+        GenericSyncService<Child> syncService = new GenericSyncService<Child>(mediaSyncHelper, childHttpDao, repository);
+
+        try {
+            syncService.sync(child, "/api/children/couch_id");
+            fail();
+        } catch (SyncFailedException e) {
+            assertThat(child.getString("_rev"), is("3-abc"));
+        }
+        syncService.sync(child, "/api/children/couch_id");
+
+        ArgumentCaptor<JSONObject> fields = ArgumentCaptor.forClass(JSONObject.class);
+        verify(childHttpDao, times(2)).updateFields(fields.capture(), eq("/api/children/couch_id"), any(Map.class));
+        verify(childHttpDao, never()).update(any(Child.class), anyString(), any(Map.class));
+        assertThat(fields.getValue().getString("_rev"), is("3-abc"));
+    }
+
+    @Test
+    public void shouldSendWholeRecordWhenChangedFieldsConflict() throws Exception {
+        Child child = new Child("{'_id' : 'couch_id', '_rev' : '3-abc', 'name' : 'new name', "
+                + "'histories' : [{'changes' : {'name' : {'from' : 'old name', 'to' : 'new name'}}}]}");
+        childHttpDao = mock(EntityHttpDao.class);
+        doReturn(null).when(childHttpDao).updateFields(any(JSONObject.class), anyString(), any(Map.class));
+        doReturn(child).when(childHttpDao).update(eq(child), anyString(), any(Map.class));
+
+        new GenericSyncService<Child>(mediaSyncHelper, childHttpDao, repository).sync(child, "");
+
+        verify(childHttpDao).update(eq(child), anyString(), any(Map.class));
+    }
+
+    @Test
+    public void shouldReturnNoRecordWhenServerReportsConflictForChangedFields() throws Exception {
+        getFakeHttpLayer().addHttpResponseRule("http://whatever/api/children/couch_id", new TestHttpResponse(409, "conflict"));
+
+        Child updated = childHttpDao.updateFields(new JSONObject("{'name' : 'new name', '_rev' : '3-abc'}"), "/api/children/couch_id", null);
+
+        assertThat(updated, is(nullValue()));
     }
 
     private RapidFtrApplication mockContext() {
@@ -1,32 +1,38 @@
 package com.rapidftr.service;
 
+import android.graphics.BitmapFactory;
 import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
 import com.rapidftr.CustomTestRunner;
 import com.rapidftr.RapidFtrApplication;
-import com.rapidftr.database.Database;
-import com.rapidftr.model.BaseModel;
 import com.rapidftr.model.Child;
 import com.rapidftr.model.Enquiry;
-import com.rapidftr.model.User;
-import com.rapidftr.repository.ChildRepository;
-import com.rapidftr.utils.http.FluentRequest;
+import com.rapidftr.utils.AudioCaptureHelper;
+import com.rapidftr.utils.PhotoCaptureHelper;
+import com.rapidftr.utils.http.ChunkedUpload;
+import com.rapidftr.utils.http.ResumableDownload;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
 import static com.rapidftr.RapidFtrApplication.SERVER_URL_PREF;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.verify;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.robolectric.Robolectric.getFakeHttpLayer;
 
@@ -34,74 +40,97 @@ import static org.robolectric.Robolectric.getFakeHttpLayer;
 public class MediaSyncHelperTest {
 
     @Mock
-    private User currentUser;
-    private EntityHttpDao<Child> childHttpDao;
+    private ChunkedUpload upload;
     private RapidFtrApplication context;
+    private MediaSyncHelper helper;
 
     @Before
     public void setUp() throws Exception {
         initMocks(this);
-        childHttpDao = EntityHttpDaoFactory.createChildHttpDao(
-                "http://whatever",
-                ChildSyncService.CHILDREN_API_PATH,
-                ChildSyncService.CHILDREN_API_PARAMETER);
-        given(currentUser.isVerified()).willReturn(true);
         context = RapidFtrApplication.getApplicationInstance();
         context.getSharedPreferences().edit().putString(SERVER_URL_PREF, "whatever").commit();
+        helper = new MediaSyncHelper(context, new ResumableDownload(context), upload, new MediaManifest(context));
     }
 
     @Test
-    public void shouldFetchAudioFromServer() throws JSONException, IOException, GeneralSecurityException {
-        Child child = new Child("id1", "user1", "{ '_id' : '1234abcd' ,'recorded_audio' : 'audio_file_name'}");
+    public void shouldFetchAudioFromServer() throws Exception {
+        String audioName = UUID.randomUUID().toString();
+        Child child = new Child("id1", "user1", "{ '_id' : '1234abcd' ,'recorded_audio' : '" + audioName + "'}");
 
         getFakeHttpLayer().setDefaultHttpResponse(200, "audio stream");
         getFakeHttpLayer().addHttpResponseRule("http://whatever/child/1234abcd/audio", "OK");
 
-        String response = CharStreams.toString(new InputStreamReader(new MediaSyncHelper(childHttpDao, context).getAudio(child)));
-        assertEquals("OK", response);
+        helper.setAudio(child);
+
+        File audio = new AudioCaptureHelper(context).getFile(audioName, "");
+        assertEquals("OK", CharStreams.toString(new InputStreamReader(new FileInputStream(audio))));
     }
 
     @Test
     public void shouldBuildPhotoUrlFromChildModel() throws IOException {
-        EntityHttpDao<Child> spyDao = spy(new EntityHttpDao<Child>());
-        MediaSyncHelper helper = new MediaSyncHelper(spyDao, context);
         Child child = new Child();
         child.put("_id", "1234");
-        doReturn(null).when(spyDao).getResourceStream(any(String.class));
-        helper.getReSizedPhoto(child, "image");
-        verify(spyDao).getResourceStream("/child/1234/photo/image/resized/475x635");
+        assertEquals("/child/1234/photo/image/resized/475x635", helper.getReSizedPhotoPath(child, "image"));
     }
 
     @Test
     public void shouldBuildPhotoUrlFromEnquiryModel() throws IOException, JSONException {
-        EntityHttpDao<Child> spyDao = spy(new EntityHttpDao<Child>());
-        MediaSyncHelper helper = new MediaSyncHelper(spyDao, context);
         Enquiry enquiry = new Enquiry("{}");
         enquiry.put("_id", "1234");
-        doReturn(null).when(spyDao).getResourceStream(any(String.class));
-        helper.getReSizedPhoto(enquiry, "image");
-        verify(spyDao).getResourceStream("/enquiry/1234/photo/image/resized/475x635");
+        assertEquals("/enquiry/1234/photo/image/resized/475x635", helper.getReSizedPhotoPath(enquiry, "image"));
     }
 
     @Test
     public void shouldBuildAudioUrlFromChildModel() throws IOException {
-        EntityHttpDao<Child> spyDao = spy(new EntityHttpDao<Child>());
-        MediaSyncHelper helper = new MediaSyncHelper(spyDao, context);
         Child child = new Child();
         child.put("_id", "1234");
-        doReturn(null).when(spyDao).getResourceStream(any(String.class));
-        helper.getAudio(child);
-        verify(spyDao).getResourceStream("/child/1234/audio");
+        assertEquals("/child/1234/audio", helper.getAudioPath(child));
     }
 
     @Test
     public void shouldBuildAudioUrlFromEnquiryModel() throws IOException, JSONException {
-        EntityHttpDao<Child> spyDao = spy(new EntityHttpDao<Child>());
-        MediaSyncHelper helper = new MediaSyncHelper(spyDao, context);
         Enquiry enquiry = new Enquiry("{}");
         enquiry.put("_id", "1234");
-        doReturn(null).when(spyDao).getResourceStream(any(String.class));
-        helper.getAudio(enquiry);
-        verify(spyDao).getResourceStream("/enquiry/1234/audio");
+        assertEquals("/enquiry/1234/audio", helper.getAudioPath(enquiry));
+    }
+
+    @Test
+    public void shouldOnlyAttachPhotosThatCouldNotBeUploadedInChunks() throws Exception {
+        String uploadedKey = UUID.randomUUID().toString(), attachedKey = UUID.randomUUID().toString();
+        byte[] content = "Testing".getBytes();
+        PhotoCaptureHelper photoCaptureHelper = new PhotoCaptureHelper(context);
+        photoCaptureHelper.savePhoto(BitmapFactory.decodeByteArray(content, 0, content.length), 0, uploadedKey);
+        photoCaptureHelper.savePhoto(BitmapFactory.decodeByteArray(content, 0, content.length), 0, attachedKey);
+        given(upload.upload(eq(uploadedKey + ".jpg"), any(File.class), anyString())).willReturn(true);
+
+        Child child = new Child("id1", "user1", "{ 'photo_keys' : ['" + uploadedKey + "', '" + attachedKey + "', 'photo-998877'] }");
+        Map<String, String> requestParameters = new HashMap<String, String>();
+        helper.addMultiMediaFilesToTheRequestParameters(child, requestParameters);
+
+        assertEquals(new JSONArray().put(attachedKey).toString(), requestParameters.get("photo_keys"));
+        assertEquals(new JSONArray().put(uploadedKey).toString(), requestParameters.get(MediaSyncHelper.UPLOADED_PHOTO_KEYS));
+        assertFalse(requestParameters.containsKey(MediaSyncHelper.UPLOADED_AUDIO));
+    }
+
+    @Test
+    public void shouldOnlySendPhotosWhoseContentServerHasNotAcknowledged() throws Exception {
+        String photoKey = UUID.randomUUID().toString();
+        File photo = new File(new PhotoCaptureHelper(context).getDir(), photoKey + ".jpg");
+        Files.write("first".getBytes(), photo);
+        Child child = new Child("id1", "user1", "{ 'photo_keys' : ['" + photoKey + "'] }");
+        MediaManifest.resetStatistics();
+
+        Map<String, String> requestParameters = new HashMap<String, String>();
+        helper.acknowledgeSentMedia(helper.addMultiMediaFilesToTheRequestParameters(child, requestParameters));
+        assertEquals(new JSONArray().put(photoKey).toString(), requestParameters.get("photo_keys"));
+
+        helper.addMultiMediaFilesToTheRequestParameters(child, requestParameters);
+        assertEquals("[]", requestParameters.get("photo_keys"));
+        assertEquals(1, MediaManifest.getFilesNotResent());
+        assertEquals(photo.length(), MediaManifest.getBytesNotResent());
+
+        Files.write("rotated".getBytes(), photo);
+        helper.addMultiMediaFilesToTheRequestParameters(child, requestParameters);
+        assertEquals(new JSONArray().put(photoKey).toString(), requestParameters.get("photo_keys"));
     }
 }
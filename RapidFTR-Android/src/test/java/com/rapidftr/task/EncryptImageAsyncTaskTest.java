@@ -29,7 +29,7 @@ public class EncryptImageAsyncTaskTest {
         assertTrue(task.get());
         verify(photoCaptureHelper).saveThumbnail(bitmap, 90, fileName);
         verify(photoCaptureHelper).savePhoto(bitmap, 90, fileName);
-        verify(bitmap).recycle();
+        verify(photoCaptureHelper).releaseCapture(bitmap);
         verify(photoUploadBox).repaint();
     }
 
@@ -42,7 +42,7 @@ public class EncryptImageAsyncTaskTest {
         assertFalse(task.get());
         verify(photoCaptureHelper).saveThumbnail(bitmap, 180, fileName);
         verify(photoCaptureHelper,never()).savePhoto(bitmap, 180, fileName);
-        verify(bitmap).recycle();
+        verify(photoCaptureHelper).releaseCapture(bitmap);
         verify(photoUploadBox).repaint();
     }
 }
@@ -43,9 +43,7 @@ public class MigrateUnverifiedDataToVerifiedTest {
                                       new Child("3", unverifiedUser.getUserName(), "{\"name\":\"some content\"}"));
 
         doReturn(children).when(unverifiedChildRepo).allCreatedByCurrentUser();
-        doNothing().when(verifiedChildRepo).createOrUpdate(children.get(0));
-        doNothing().when(verifiedChildRepo).createOrUpdate(children.get(1));
-        doNothing().when(verifiedChildRepo).createOrUpdate(children.get(2));
+        doNothing().when(verifiedChildRepo).createOrUpdateAll(children);
 
         JSONObject mockJSONObject = mock(JSONObject.class);
         doReturn(verifiedUser.getDbKey()).when(mockJSONObject).getString("db_key");
@@ -60,9 +58,7 @@ public class MigrateUnverifiedDataToVerifiedTest {
         task.doInBackground();
 
         verify(unverifiedChildRepo).deleteChildrenByOwner();
-        verify(verifiedChildRepo).createOrUpdate(children.get(0));
-        verify(verifiedChildRepo).createOrUpdate(children.get(1));
-        verify(verifiedChildRepo).createOrUpdate(children.get(2));
+        verify(verifiedChildRepo).createOrUpdateAll(children);
     }
 
     @Test
@@ -0,0 +1,204 @@
+package com.rapidftr.task;
+
+import com.rapidftr.CustomTestRunner;
+import com.rapidftr.model.Child;
+import com.rapidftr.repository.ChildRepository;
+import com.rapidftr.service.ChildSyncService;
+import org.apache.http.HttpException;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(CustomTestRunner.class)
+public class RecordDownloadPipelineTest {
+
+    private static final int BATCH_SIZE = 5;
+
+    @Mock
+    private ChildSyncService childSyncService;
+    @Mock
+    private ChildRepository childRepository;
+
+    private RecordDownloadPipeline<Child> pipeline;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        pipeline = new RecordDownloadPipeline<Child>(childSyncService, childRepository, 3, BATCH_SIZE);
+    }
+
+    @Test
+    public void shouldFetchPersistAndDownloadMediaForEveryRecord() throws Exception {
+        List<String> urls = new ArrayList<String>();
+        List<Child> children = new ArrayList<Child>();
+        for (int i = 0; i < 10; i++) {
+            Child child = mock(Child.class);
+            urls.add("url" + i);
+            children.add(child);
+            given(childSyncService.getRecord("url" + i)).willReturn(child);
+        }
+
+        int saved = pipeline.download(urls, listener(false));
+
+        assertThat(saved, is(10));
+        ArgumentCaptor<Collection> persisted = ArgumentCaptor.forClass(Collection.class);
+        verify(childRepository).createOrUpdateAll(persisted.capture());
+        assertThat(new HashSet<Child>(persisted.getValue()), is(new HashSet<Child>(children)));
+        for (Child child : children) {
+            verify(childSyncService).setMedia(child);
+        }
+    }
+
+    @Test
+    public void shouldPersistRecordsInBatches() throws Exception {
+        List<String> urls = new ArrayList<String>();
+        for (int i = 0; i < BATCH_SIZE + 1; i++) {
+            urls.add("url" + i);
+        }
+        given(childSyncService.getRecord(anyString())).willReturn(mock(Child.class));
+
+        int saved = pipeline.download(urls, listener(false));
+
+        assertThat(saved, is(BATCH_SIZE + 1));
+        verify(childRepository, times(2)).createOrUpdateAll(anyCollectionOf(Child.class));
+    }
+
+    @Test
+    public void shouldDownloadUpdatedRecordsPageByPage() throws Exception {
+        DateTime updatedAfter = new DateTime(0);
+        List<Child> firstPage = new ArrayList<Child>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            firstPage.add(mock(Child.class));
+        }
+        Child lastChild = mock(Child.class);
+        given(childSyncService.getUpdatedRecords(updatedAfter, 1, BATCH_SIZE)).willReturn(firstPage);
+        given(childSyncService.getUpdatedRecords(updatedAfter, 2, BATCH_SIZE)).willReturn(Arrays.asList(lastChild));
+        given(childSyncService.getUpdatedRecords(updatedAfter, 3, BATCH_SIZE)).willReturn(new ArrayList<Child>());
+
+        int saved = pipeline.download(updatedAfter, Arrays.asList("url1"), listener(false));
+
+        assertThat(saved, is(BATCH_SIZE + 1));
+        verify(childRepository, times(2)).createOrUpdateAll(anyCollectionOf(Child.class));
+        verify(childSyncService).setMedia(lastChild);
+        verify(childSyncService, never()).getUpdatedRecords(updatedAfter, 4, BATCH_SIZE);
+        verify(childSyncService, never()).getRecord(anyString());
+    }
+
+    @Test
+    public void shouldKeepPagingWhenServerServesFewerRecordsPerPageThanAsked() throws Exception {
+        DateTime updatedAfter = new DateTime(0);
+        int cappedPerPage = BATCH_SIZE - 3;
+        for (int page = 1; page <= 3; page++) {
+            List<Child> records = new ArrayList<Child>();
+            for (int i = 0; i < cappedPerPage; i++) {
+                records.add(mock(Child.class));
+            }
+            given(childSyncService.getUpdatedRecords(updatedAfter, page, BATCH_SIZE)).willReturn(records);
+        }
+        given(childSyncService.getUpdatedRecords(updatedAfter, 4, BATCH_SIZE)).willReturn(new ArrayList<Child>());
+
+        int saved = pipeline.download(updatedAfter, Arrays.asList("url1"), listener(false));
+
+        assertThat(saved, is(3 * cappedPerPage));
+        verify(childRepository, times(3)).createOrUpdateAll(anyCollectionOf(Child.class));
+        verify(childSyncService, never()).getUpdatedRecords(updatedAfter, 5, BATCH_SIZE);
+    }
+
+    @Test
+    public void shouldFallBackToResourceUrlsWhenServerHasNoChangesEndpoint() throws Exception {
+        DateTime updatedAfter = new DateTime(0);
+        Child child = mock(Child.class);
+        given(childSyncService.getUpdatedRecords(updatedAfter, 1, BATCH_SIZE)).willReturn(null);
+        given(childSyncService.getRecord("url1")).willReturn(child);
+
+        int saved = pipeline.download(updatedAfter, Arrays.asList("url1"), listener(false));
+
+        assertThat(saved, is(1));
+        verify(childRepository).createOrUpdateAll(Arrays.asList(child));
+    }
+
+    @Test
+    public void shouldNotRequestAnythingWhenNoRecordsWereUpdated() throws Exception {
+        int saved = pipeline.download(new DateTime(0), new ArrayList<String>(), listener(false));
+
+        assertThat(saved, is(0));
+        verifyZeroInteractions(childSyncService, childRepository);
+    }
+
+    @Test
+    public void shouldStopPersistingRecordsWhenCancelled() throws Exception {
+        given(childSyncService.getRecord(anyString())).willReturn(mock(Child.class));
+
+        int saved = pipeline.download(Arrays.asList("url1", "url2"), listener(true));
+
+        assertThat(saved, is(0));
+        verify(childRepository, never()).createOrUpdateAll(anyCollectionOf(Child.class));
+        verify(childSyncService, never()).setMedia(any(Child.class));
+    }
+
+    @Test(expected = HttpException.class)
+    public void shouldPropagateFetchFailures() throws Exception {
+        given(childSyncService.getRecord("url1")).willThrow(new HttpException("Unauthorized"));
+
+        pipeline.download(Arrays.asList("url1"), listener(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldPropagateMediaFailures() throws Exception {
+        Child child = mock(Child.class);
+        given(childSyncService.getRecord("url1")).willReturn(child);
+        doThrow(new IOException()).when(childSyncService).setMedia(child);
+
+        pipeline.download(Arrays.asList("url1"), listener(false));
+    }
+
+    @Test
+    public void shouldReportEachRecordAsItIsFetched() throws Exception {
+        given(childSyncService.getRecord(anyString())).willReturn(mock(Child.class));
+        final List<Integer> progress = new ArrayList<Integer>();
+
+        pipeline.download(Arrays.asList("url1", "url2", "url3"), new RecordDownloadPipeline.Listener<Child>() {
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+
+            @Override
+            public void onRecordFetched(Child record, int recordsFetched) {
+                progress.add(recordsFetched);
+            }
+        });
+
+        assertThat(progress, is(Arrays.asList(1, 2, 3)));
+        verify(childRepository).createOrUpdateAll(anyCollectionOf(Child.class));
+    }
+
+    private RecordDownloadPipeline.Listener<Child> listener(final boolean cancelled) {
+        return new RecordDownloadPipeline.Listener<Child>() {
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+
+            @Override
+            public void onRecordFetched(Child record, int recordsFetched) {
+            }
+        };
+    }
+}
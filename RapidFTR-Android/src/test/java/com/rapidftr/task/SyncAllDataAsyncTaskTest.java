@@ -20,6 +20,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.robolectric.Robolectric;
@@ -28,7 +29,9 @@ import org.robolectric.annotation.Config;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.junit.Assert.assertEquals;
@@ -181,8 +184,9 @@ public class SyncAllDataAsyncTaskTest {
         syncAllDataAsyncTask.execute();
 
         verify(childSyncService).getRecord("qwerty0987");
-        verify(childRepository).createOrUpdateWithoutHistory(child1);
-        verify(childRepository).createOrUpdateWithoutHistory(child2);
+        ArgumentCaptor<Collection> persisted = ArgumentCaptor.forClass(Collection.class);
+        verify(childRepository).createOrUpdateAll(persisted.capture());
+        assertEquals(new HashSet<Child>(Arrays.asList(child1, child2)), new HashSet<Child>(persisted.getValue()));
     }
 
     @Test
@@ -210,6 +214,26 @@ public class SyncAllDataAsyncTaskTest {
         verify(cancelSyncAll).setVisible(false);
     }
 
+    @Test
+    public void shouldReleaseRepositoryAndSyncServiceWhenSyncEnds() throws IOException {
+        syncAllDataAsyncTask.setContext(rapidFtrActivity);
+
+        syncAllDataAsyncTask.onPostExecute(true);
+
+        verify(childRepository).close();
+        verify(childSyncService).close();
+    }
+
+    @Test
+    public void shouldReleaseRepositoryAndSyncServiceWhenSyncIsCancelled() throws IOException {
+        syncAllDataAsyncTask.setContext(rapidFtrActivity);
+
+        syncAllDataAsyncTask.onCancelled();
+
+        verify(childRepository).close();
+        verify(childSyncService).close();
+    }
+
     @Test
     public void shouldNotCallSetProgressAndNotifyIfCancelled() {
         syncAllDataAsyncTask.setContext(rapidFtrActivity);
@@ -3,6 +3,10 @@ package com.rapidftr.task;
 import android.app.Activity;
 import android.content.Intent;
 import com.rapidftr.CustomTestRunner;
+import com.rapidftr.model.BaseModel;
+import com.rapidftr.model.User;
+import com.rapidftr.repository.Repository;
+import com.rapidftr.service.SyncService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -26,4 +30,15 @@ public class SyncChildTaskTest {
         verify(activity).finish();
         verify(activity).startActivity(mockIntent);
     }
+
+    @Test
+    public void shouldCloseRepositoryOnceSyncIsOver() throws Exception {
+        SyncService service = mock(SyncService.class);
+        Repository repository = mock(Repository.class);
+        SyncSingleRecordTask task = new SyncSingleRecordTask(service, repository, mock(User.class));
+
+        task.doInBackground(mock(BaseModel.class));
+
+        verify(repository).close();
+    }
 }
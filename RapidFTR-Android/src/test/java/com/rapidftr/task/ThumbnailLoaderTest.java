@@ -0,0 +1,118 @@
+package com.rapidftr.task;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.widget.ImageView;
+import com.rapidftr.CustomTestRunner;
+import com.rapidftr.utils.PhotoCaptureHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@RunWith(CustomTestRunner.class)
+public class ThumbnailLoaderTest {
+
+    @Mock
+    private PhotoCaptureHelper photoCaptureHelper;
+    @Mock
+    private Handler mainThread;
+
+    private ThumbnailLoader loader;
+    private final Map<String, Bitmap> thumbnails = new HashMap<String, Bitmap>();
+    private final List<String> decoded = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch blockerStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseBlocker = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        loader = new ThumbnailLoader(photoCaptureHelper, mainThread, 1);
+        for (String key : Arrays.asList("blocker", "a", "b")) {
+            thumbnails.put(key, mock(Bitmap.class));
+        }
+
+        given(mainThread.post(any(Runnable.class))).willAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ((Runnable) invocation.getArguments()[0]).run();
+                return true;
+            }
+        });
+        given(photoCaptureHelper.getThumbnailOrDefault(anyString())).willAnswer(new Answer<Bitmap>() {
+            @Override
+            public Bitmap answer(InvocationOnMock invocation) throws Throwable {
+                String key = (String) invocation.getArguments()[0];
+                decoded.add(key);
+                if (key.equals("blocker")) {
+                    blockerStarted.countDown();
+                    releaseBlocker.await(5, TimeUnit.SECONDS);
+                }
+                return thumbnails.get(key);
+            }
+        });
+    }
+
+    @Test
+    public void shouldAssignCachedThumbnailWithoutDecoding() {
+        ImageView imageView = mock(ImageView.class);
+        given(photoCaptureHelper.getCachedThumbnail("a")).willReturn(thumbnails.get("a"));
+
+        loader.load("a", imageView);
+
+        verify(imageView).setImageBitmap(thumbnails.get("a"));
+        verify(photoCaptureHelper, never()).getThumbnailOrDefault(anyString());
+    }
+
+    @Test
+    public void shouldDecodeLatestRequestFirstAndShareRequestsForSameKey() throws Exception {
+        ImageView first = mock(ImageView.class), second = mock(ImageView.class), third = mock(ImageView.class);
+        occupyLoader();
+
+        loader.load("a", first);
+        loader.load("b", second);
+        loader.load("a", third);
+        releaseBlocker.countDown();
+
+        verify(second, timeout(1000)).setImageBitmap(thumbnails.get("b"));
+        verify(first).setImageBitmap(thumbnails.get("a"));
+        verify(third).setImageBitmap(thumbnails.get("a"));
+        assertThat(decoded, is(Arrays.asList("blocker", "a", "b")));
+    }
+
+    @Test
+    public void shouldCancelRequestWhenImageViewIsRebound() throws Exception {
+        ImageView imageView = mock(ImageView.class);
+        occupyLoader();
+
+        loader.load("a", imageView);
+        loader.load("b", imageView);
+        releaseBlocker.countDown();
+
+        verify(imageView, timeout(1000)).setImageBitmap(thumbnails.get("b"));
+        verify(imageView, never()).setImageBitmap(thumbnails.get("a"));
+        assertThat(decoded, is(Arrays.asList("blocker", "b")));
+    }
+
+    private void occupyLoader() throws InterruptedException {
+        loader.load("blocker", mock(ImageView.class));
+        blockerStarted.await(5, TimeUnit.SECONDS);
+    }
+}
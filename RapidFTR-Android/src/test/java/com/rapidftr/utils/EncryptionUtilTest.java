@@ -4,9 +4,11 @@ import com.rapidftr.CustomTestRunner;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import javax.crypto.Cipher;
 import javax.crypto.CipherOutputStream;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.UUID;
@@ -37,4 +39,60 @@ public class EncryptionUtilTest {
 
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void shouldDeriveFileKeyOncePerPasswordAndFileName() throws Exception {
+        EncryptionUtil.clearKeyCache();
+        File file = File.createTempFile(UUID.randomUUID().toString(), ".jpg");
+        file.deleteOnExit();
+
+        OutputStream outputStream = EncryptionUtil.getCipherOutputStream(file, "test pass word");
+        outputStream.write("test data".getBytes());
+        outputStream.close();
+        EncryptionUtil.getCipherInputStream(file, "test pass word").close();
+        EncryptionUtil.getCipherInputStream(file, "other pass word").close();
+
+        assertEquals(1, EncryptionUtil.getKeyCacheHits());
+        assertEquals(2, EncryptionUtil.getKeyCacheMisses());
+    }
+
+    @Test
+    public void shouldReadFilesEncryptedWithUncachedKey() throws Exception {
+        EncryptionUtil.clearKeyCache();
+        File file = File.createTempFile(UUID.randomUUID().toString(), ".jpg");
+        file.deleteOnExit();
+
+        OutputStream outputStream = new CipherOutputStream(new FileOutputStream(file), EncryptionUtil.getCipher("test pass word", file.getName(), Cipher.ENCRYPT_MODE));
+        outputStream.write("test data".getBytes());
+        outputStream.close();
+
+        InputStream inputStream = EncryptionUtil.getCipherInputStream(file, "test pass word");
+        assertEquals("test data", new String(IOUtils.toByteArray(inputStream)));
+    }
+
+    @Test
+    public void shouldForgetDerivedKeysWhenCacheIsCleared() throws Exception {
+        File file = File.createTempFile(UUID.randomUUID().toString(), ".jpg");
+        file.deleteOnExit();
+        EncryptionUtil.getCipherOutputStream(file, "test pass word").close();
+
+        EncryptionUtil.clearKeyCache();
+        EncryptionUtil.getCipherOutputStream(file, "test pass word").close();
+
+        assertEquals(0, EncryptionUtil.getKeyCacheHits());
+        assertEquals(1, EncryptionUtil.getKeyCacheMisses());
+    }
+
+    @Test
+    public void shouldComputeDecryptedLengthFromLastBlock() throws Exception {
+        for (int length : new int[]{0, 1, 15, 16, 17, 31, 32, 100}) {
+            File file = File.createTempFile(UUID.randomUUID().toString(), ".jpg");
+            file.deleteOnExit();
+            OutputStream out = EncryptionUtil.getCipherOutputStream(file, "test pass word");
+            out.write(new byte[length]);
+            out.close();
+
+            assertEquals(length, EncryptionUtil.getDecryptedLength(file, "test pass word"));
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package com.rapidftr.utils;
+
+import com.rapidftr.CustomTestRunner;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(CustomTestRunner.class)
+public class JSONStreamsTest {
+
+    @Test
+    public void shouldReadObjectFromStream() throws Exception {
+        String json = "{\"name\":\"Foo\",\"age\":14,\"big\":12345678901,\"height\":1.5,\"alive\":true,\"note\":null,"
+                + "\"photo_keys\":[\"a\",\"b\"],\"histories\":[{\"changes\":{\"name\":{\"from\":\"\",\"to\":\"Foo\"}}}]}";
+
+        JSONObject object = JSONStreams.readObject(stream(json));
+
+        assertThat(object.getString("name"), is("Foo"));
+        assertThat(object.getInt("age"), is(14));
+        assertThat(object.getLong("big"), is(12345678901L));
+        assertThat(object.getDouble("height"), is(1.5));
+        assertThat(object.getBoolean("alive"), is(true));
+        assertTrue(object.isNull("note"));
+        assertThat(object.getJSONArray("photo_keys").getString(1), is("b"));
+        assertThat(object.toString(), JSONMatcher.equalJSONIgnoreOrder(new JSONObject(json)));
+    }
+
+    @Test
+    public void shouldReadFieldOfEachObjectInArray() throws Exception {
+        String json = "[{\"location\":\"blah.com/1\",\"other\":{\"nested\":[1,2]}},{\"other\":[],\"location\":\"blah.com/2\"}]";
+
+        List<String> locations = JSONStreams.readFieldOfEach(stream(json), "location");
+
+        assertThat(locations, is(asList("blah.com/1", "blah.com/2")));
+    }
+
+    @Test(expected = JSONException.class)
+    public void shouldFailWhenFieldIsMissing() throws Exception {
+        JSONStreams.readFieldOfEach(stream("[{\"other\":\"blah.com/1\"}]"), "location");
+    }
+
+    @Test(expected = JSONException.class)
+    public void shouldFailWhenBodyIsNotAnObject() throws Exception {
+        JSONStreams.readObject(stream("[]"));
+    }
+
+    private InputStream stream(String json) throws Exception {
+        return new ByteArrayInputStream(json.getBytes("UTF-8"));
+    }
+}
@@ -14,6 +14,8 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.robolectric.Robolectric;
 
 import java.io.File;
@@ -130,9 +132,8 @@ public class PhotoCaptureHelperTest {
 
     @Test
     public void testSaveThumbnailShouldResizeAndSave() throws Exception {
-        Bitmap original = mock(Bitmap.class), scaled = mock(Bitmap.class), rotated = mock(Bitmap.class);
-        doReturn(scaled).when(photoCaptureHelper).resizeImageTo(original, 96, 96);
-	    doReturn(rotated).when(photoCaptureHelper).rotateBitmap(scaled, 90);
+        Bitmap original = mock(Bitmap.class), rotated = mock(Bitmap.class);
+        doReturn(rotated).when(photoCaptureHelper).scaleAndRotate(original, 96, 96, 90);
 	    User user = mock(User.class);
 	    doReturn(user).when(application).getCurrentUser();
 	    doReturn("key").when(user).getDbKey();
@@ -144,9 +145,10 @@ public class PhotoCaptureHelperTest {
 
     @Test
     public void testSaveActualImageShouldResizeAndSave() throws Exception {
-        Bitmap original = mock(Bitmap.class), scaled = mock(Bitmap.class), rotated = mock(Bitmap.class);
-        doReturn(scaled).when(photoCaptureHelper).scaleImageTo(original, 475, 635);
-	    doReturn(rotated).when(photoCaptureHelper).rotateBitmap(scaled, 180);
+        Bitmap original = mock(Bitmap.class), rotated = mock(Bitmap.class);
+        given(original.getWidth()).willReturn(950);
+        given(original.getHeight()).willReturn(1270);
+        doReturn(rotated).when(photoCaptureHelper).scaleAndRotate(original, 475, 635, 180);
 	    User user = mock(User.class);
 	    doReturn(user).when(application).getCurrentUser();
 	    doReturn("key").when(user).getDbKey();
@@ -154,8 +156,16 @@ public class PhotoCaptureHelperTest {
 
         photoCaptureHelper.savePhoto(original, 180, "random_file");
         verify(photoCaptureHelper).save(rotated, "random_file", QUALITY, "key");
-	    verify(scaled).recycle();
 	    verify(rotated).recycle();
+	    verify(original, never()).recycle();
+    }
+
+    @Test
+    public void shouldSubsampleCaptureToSmallestPowerOfTwoCoveringThePhotoSize() {
+        assertEquals(4, PhotoCaptureHelper.sampleSizeFor(3264, 2448, 475, 635));
+        assertEquals(4, PhotoCaptureHelper.sampleSizeFor(2448, 3264, 475, 635));
+        assertEquals(1, PhotoCaptureHelper.sampleSizeFor(640, 480, 475, 635));
+        assertEquals(1, PhotoCaptureHelper.sampleSizeFor(400, 300, 475, 635));
     }
 
     @Test
@@ -171,6 +181,44 @@ public class PhotoCaptureHelperTest {
         verify(out).close();
     }
 
+    @Test
+    public void shouldDecodePhotoOnceUntilItIsSavedAgain() throws Exception {
+        BitmapCache.clear();
+        Bitmap first = mock(Bitmap.class), second = mock(Bitmap.class);
+        InputStream in = mock(InputStream.class);
+        doReturn(in).when(photoCaptureHelper).getDecodedImageStream("cached_file");
+        doReturn(first).doReturn(second).when(photoCaptureHelper).decodeStreamToBitMap(in);
+        doReturn(mock(OutputStream.class)).when(photoCaptureHelper).getCipherOutputStream(any(File.class), anyString());
+
+        assertThat(photoCaptureHelper.loadPhoto("cached_file"), equalTo(first));
+        assertThat(photoCaptureHelper.loadPhoto("cached_file"), equalTo(first));
+        photoCaptureHelper.save(second, "cached_file", QUALITY, "key");
+        assertThat(photoCaptureHelper.loadPhoto("cached_file"), equalTo(second));
+
+        verify(photoCaptureHelper, times(2)).decodeStreamToBitMap(in);
+    }
+
+    @Test
+    public void shouldNotKeepPhotoCachedWhileItWasBeingSaved() throws Exception {
+        BitmapCache.clear();
+        Bitmap old = mock(Bitmap.class), saved = mock(Bitmap.class);
+        InputStream in = mock(InputStream.class);
+        doReturn(in).when(photoCaptureHelper).getDecodedImageStream("racing_file");
+        doReturn(old).doReturn(saved).when(photoCaptureHelper).decodeStreamToBitMap(in);
+        doReturn(mock(OutputStream.class)).when(photoCaptureHelper).getCipherOutputStream(any(File.class), anyString());
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                photoCaptureHelper.loadPhoto("racing_file");
+                return true;
+            }
+        }).when(saved).compress(any(Bitmap.CompressFormat.class), anyInt(), any(OutputStream.class));
+
+        photoCaptureHelper.save(saved, "racing_file", QUALITY, "key");
+
+        assertThat(photoCaptureHelper.loadPhoto("racing_file"), equalTo(saved));
+    }
+
     @Test
     public void testShouldReturnRotationInfoOfPicture() throws IOException {
         ExifInterface mockExifInterface = mock(ExifInterface.class);
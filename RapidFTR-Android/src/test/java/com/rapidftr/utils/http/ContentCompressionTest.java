@@ -0,0 +1,134 @@
+package com.rapidftr.utils.http;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+import com.rapidftr.CustomTestRunner;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.rapidftr.utils.http.FluentRequest.http;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Robolectric.getFakeHttpLayer;
+
+@RunWith(CustomTestRunner.class)
+public class ContentCompressionTest {
+
+    private static final String RECORDS = "[{\"location\":\"http://whatever/api/children/1\"},{\"location\":\"http://whatever/api/children/2\"},"
+            + "{\"location\":\"http://whatever/api/children/3\"},{\"location\":\"http://whatever/api/children/4\"}]";
+
+    private HttpServer server;
+    private final List<String> requestEncodings = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> requestBodies = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> requestLengths = Collections.synchronizedList(new ArrayList<String>());
+    private volatile String acceptedEncoding;
+
+    @Before
+    public void setUp() throws Exception {
+        getFakeHttpLayer().interceptHttpRequests(false);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+                InputStream body = "gzip".equals(contentEncoding) ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody();
+                requestEncodings.add(contentEncoding);
+                requestLengths.add(exchange.getRequestHeaders().getFirst("Content-Length"));
+                requestBodies.add(new String(ByteStreams.toByteArray(body), "UTF-8"));
+                acceptedEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+                gzip.write(RECORDS.getBytes("UTF-8"));
+                gzip.close();
+
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.getResponseHeaders().add("Accept-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, compressed.size());
+                exchange.getResponseBody().write(compressed.toByteArray());
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldDecodeGzippedResponsesAndCountWireBytes() throws Exception {
+        ContentCompression.resetCounters();
+
+        FluentResponse response = http().host(serverUrl()).path("/api/children").get();
+        String content = CharStreams.toString(new InputStreamReader(response.getEntity().getContent(), "UTF-8"));
+
+        assertThat(content, is(RECORDS));
+        assertTrue(acceptedEncoding.contains("gzip"));
+        assertThat(ContentCompression.getLogicalBytes(), is((long) RECORDS.length()));
+        assertTrue(ContentCompression.getWireBytes() < ContentCompression.getLogicalBytes());
+    }
+
+    @Test
+    public void shouldGzipFormBodiesOnceServerAcceptsGzippedRequests() throws Exception {
+        consume(http().host(serverUrl()).path("/login").param("user_name", "rapidftr").post());
+        consume(http().host(serverUrl()).path("/login").param("user_name", "rapidftr").post());
+
+        assertThat(requestEncodings.get(0), is(nullValue()));
+        assertThat(requestEncodings.get(1), is("gzip"));
+        assertThat(requestBodies.get(1), is(requestBodies.get(0)));
+    }
+
+    @Test
+    public void shouldSendGzippedBodiesWithContentLength() throws Exception {
+        consume(http().host(serverUrl()).path("/login").param("user_name", "rapidftr").post());
+        consume(http().host(serverUrl()).path("/login").param("user_name", "rapidftr").post());
+
+        assertThat(requestEncodings.get(1), is("gzip"));
+        assertThat(requestLengths.get(1), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldNotGzipMultipartBodies() throws Exception {
+        consume(http().host(serverUrl()).path("/api/children").put(multipart()));
+        consume(http().host(serverUrl()).path("/api/children").put(multipart()));
+
+        assertThat(requestEncodings.get(1), is(nullValue()));
+        assertThat(requestBodies.get(1), is(requestBodies.get(0)));
+    }
+
+    private StringEntity multipart() throws IOException {
+        StringEntity entity = new StringEntity("--boundary\r\nContent-Disposition: form-data; name=\"child\"\r\n\r\n{}\r\n--boundary--\r\n");
+        entity.setContentType("multipart/form-data; boundary=boundary");
+        return entity;
+    }
+
+    private String serverUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void consume(FluentResponse response) throws IOException {
+        response.getEntity().consumeContent();
+    }
+}
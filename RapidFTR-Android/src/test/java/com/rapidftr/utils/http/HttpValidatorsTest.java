@@ -0,0 +1,88 @@
+package com.rapidftr.utils.http;
+
+import com.rapidftr.CustomTestRunner;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import static com.rapidftr.utils.http.FluentRequest.http;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.robolectric.Robolectric.getFakeHttpLayer;
+
+@RunWith(CustomTestRunner.class)
+public class HttpValidatorsTest {
+
+    private static final String ETAG = "\"forms-1\"";
+
+    private HttpServer server;
+    private HttpValidators validators;
+
+    @Before
+    public void setUp() throws Exception {
+        getFakeHttpLayer().interceptHttpRequests(false);
+        validators = new HttpValidators(Robolectric.application);
+        validators.clear();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/form_sections", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(HttpStatus.SC_NOT_MODIFIED, -1);
+                } else {
+                    byte[] body = "{}".getBytes("UTF-8");
+                    exchange.sendResponseHeaders(HttpStatus.SC_OK, body.length);
+                    exchange.getResponseBody().write(body);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedOnceValidatorsAreSaved() throws Exception {
+        FluentResponse first = get();
+        first.getEntity().consumeContent();
+        assertThat(first.isSuccess(), is(true));
+
+        first.saveValidators();
+
+        assertThat(get().isNotModified(), is(true));
+    }
+
+    @Test
+    public void shouldNotSaveValidatorsOfUnconditionalRequests() throws Exception {
+        FluentResponse response = http().host(serverUrl()).path("/api/form_sections").get();
+        response.getEntity().consumeContent();
+        response.saveValidators();
+
+        FluentResponse conditional = get();
+        conditional.getEntity().consumeContent();
+        assertThat(conditional.isNotModified(), is(false));
+    }
+
+    private FluentResponse get() throws IOException {
+        return http().host(serverUrl()).path("/api/form_sections").validators(validators).get();
+    }
+
+    private String serverUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
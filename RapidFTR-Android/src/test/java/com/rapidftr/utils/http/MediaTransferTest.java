@@ -0,0 +1,265 @@
+package com.rapidftr.utils.http;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.rapidftr.CustomTestRunner;
+import com.rapidftr.RapidFtrApplication;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static com.rapidftr.RapidFtrApplication.SERVER_URL_PREF;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.robolectric.Robolectric.getFakeHttpLayer;
+
+@RunWith(CustomTestRunner.class)
+public class MediaTransferTest {
+
+    private static final String PASSWORD = "testDbKey";
+
+    private StubMediaServer server;
+    private RapidFtrApplication context;
+    private File partsDir;
+
+    @Before
+    public void setUp() throws Exception {
+        getFakeHttpLayer().interceptHttpRequests(false);
+        server = new StubMediaServer();
+        context = RapidFtrApplication.getApplicationInstance();
+        context.getSharedPreferences().edit().putString(SERVER_URL_PREF, "http://localhost:" + server.getPort()).commit();
+        partsDir = Files.createTempDir();
+        ChunkedUpload.forgetServersWithoutUploads();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void shouldResumeDownloadWithRangeRequestAfterDroppedConnection() throws Exception {
+        server.resource = randomBytes(100000);
+        server.dropDownloadAfter = 40000;
+
+        try {
+            new ResumableDownload(new TransferJournal(context), partsDir).download("photo.jpg", "/photo", PASSWORD);
+            fail("Download should have stopped at the dropped connection");
+        } catch (IOException expected) {
+        }
+        InputStream photo = new ResumableDownload(new TransferJournal(context), partsDir).download("photo.jpg", "/photo", PASSWORD);
+
+        assertArrayEquals(server.resource, ByteStreams.toByteArray(photo));
+        assertThat(server.rangeRequests, is(Arrays.asList(null, "bytes=40000-")));
+    }
+
+    @Test
+    public void shouldKeepPartialDownloadEncrypted() throws Exception {
+        server.resource = randomBytes(100000);
+        server.dropDownloadAfter = 40000;
+
+        try {
+            new ResumableDownload(new TransferJournal(context), partsDir).download("photo.jpg", "/photo", PASSWORD);
+            fail("Download should have stopped at the dropped connection");
+        } catch (IOException expected) {
+        }
+
+        File[] parts = partsDir.listFiles();
+        assertThat(parts.length, is(1));
+        byte[] stored = Files.toByteArray(parts[0]);
+        assertFalse(Arrays.equals(Arrays.copyOf(server.resource, 1000), Arrays.copyOf(stored, 1000)));
+    }
+
+    @Test
+    public void shouldDeletePartsOnceDownloadedResourceIsRead() throws Exception {
+        server.resource = randomBytes(1000);
+
+        InputStream photo = new ResumableDownload(new TransferJournal(context), partsDir).download("photo.jpg", "/photo", PASSWORD);
+        ByteStreams.toByteArray(photo);
+        photo.close();
+
+        assertThat(partsDir.listFiles().length, is(0));
+    }
+
+    @Test
+    public void shouldDownloadWholeResourceAgainWhenItChangedSinceTheDroppedConnection() throws Exception {
+        server.resource = randomBytes(100000);
+        server.dropDownloadAfter = 40000;
+        try {
+            new ResumableDownload(new TransferJournal(context), partsDir).download("audio.amr", "/audio", PASSWORD);
+            fail("Download should have stopped at the dropped connection");
+        } catch (IOException expected) {
+        }
+
+        server.resource = randomBytes(60000);
+        server.eTag = "\"v2\"";
+        InputStream audio = new ResumableDownload(new TransferJournal(context), partsDir).download("audio.amr", "/audio", PASSWORD);
+
+        assertArrayEquals(server.resource, ByteStreams.toByteArray(audio));
+    }
+
+    @Test
+    public void shouldResumeUploadFromOffsetConfirmedByServer() throws Exception {
+        byte[] content = randomBytes(ChunkedUpload.CHUNK_SIZE * 2 + 1000);
+        File file = new File(partsDir, "audio.amr");
+        Files.write(content, file);
+        server.dropUploadAt = ChunkedUpload.CHUNK_SIZE;
+
+        try {
+            new ChunkedUpload(new TransferJournal(context)).upload("audio.amr", file, null);
+            fail("Upload should have stopped at the dropped connection");
+        } catch (IOException expected) {
+        }
+        assertTrue(new ChunkedUpload(new TransferJournal(context)).upload("audio.amr", file, null));
+
+        assertArrayEquals(content, server.uploaded.toByteArray());
+        assertThat(server.chunkOffsets, is(Arrays.asList(0L, (long) ChunkedUpload.CHUNK_SIZE, (long) ChunkedUpload.CHUNK_SIZE, 2L * ChunkedUpload.CHUNK_SIZE)));
+    }
+
+    @Test
+    public void shouldNotUploadChunksWhenServerHasNoUploadEndpoint() throws Exception {
+        File file = new File(partsDir, "audio.amr");
+        Files.write(randomBytes(1000), file);
+        server.uploadsSupported = false;
+
+        assertFalse(new ChunkedUpload(new TransferJournal(context)).upload("audio.amr", file, null));
+        assertTrue(server.chunkOffsets.isEmpty());
+    }
+
+    @Test
+    public void shouldNotAskServerWithoutUploadEndpointAgain() throws Exception {
+        File file = new File(partsDir, "audio.amr");
+        Files.write(randomBytes(1000), file);
+        server.uploadsSupported = false;
+
+        assertFalse(new ChunkedUpload(new TransferJournal(context)).upload("audio.amr", file, null));
+        assertFalse(new ChunkedUpload(new TransferJournal(context)).upload("audio.amr", file, null));
+
+        assertThat(server.unsupportedUploads, is(1));
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static class StubMediaServer implements HttpHandler {
+        private final HttpServer server;
+        byte[] resource;
+        String eTag = "\"v1\"";
+        int dropDownloadAfter = -1;
+        long dropUploadAt = -1;
+        boolean uploadsSupported = true;
+        int unsupportedUploads;
+        final ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        final List<String> rangeRequests = Collections.synchronizedList(new ArrayList<String>());
+        final List<Long> chunkOffsets = Collections.synchronizedList(new ArrayList<Long>());
+
+        StubMediaServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", this);
+            server.start();
+        }
+
+        int getPort() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        @Override
+        public synchronized void handle(HttpExchange exchange) throws IOException {
+            if (exchange.getRequestMethod().equals("GET")) {
+                get(exchange);
+            } else if (!uploadsSupported || !exchange.getRequestURI().getPath().startsWith(ChunkedUpload.UPLOADS_PATH)) {
+                unsupportedUploads++;
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            } else {
+                put(exchange);
+            }
+        }
+
+        private void get(HttpExchange exchange) throws IOException {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            rangeRequests.add(range);
+            exchange.getResponseHeaders().add("ETag", eTag);
+
+            int start = 0;
+            if (range != null && eTag.equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+                start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+                exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + (resource.length - 1) + "/" + resource.length);
+                exchange.sendResponseHeaders(206, resource.length - start);
+            } else {
+                exchange.sendResponseHeaders(200, resource.length);
+            }
+
+            OutputStream body = exchange.getResponseBody();
+            if (dropDownloadAfter > start) {
+                body.write(resource, start, dropDownloadAfter - start);
+                body.flush();
+                dropDownloadAfter = -1;
+                dropConnection();
+            } else {
+                body.write(resource, start, resource.length - start);
+                exchange.close();
+            }
+        }
+
+        private void put(HttpExchange exchange) throws IOException {
+            String[] contentRange = exchange.getRequestHeaders().getFirst("Content-Range").substring("bytes ".length()).split("/");
+            long total = Long.parseLong(contentRange[1]);
+            byte[] chunk = ByteStreams.toByteArray(exchange.getRequestBody());
+
+            if (!contentRange[0].equals("*")) {
+                long offset = Long.parseLong(contentRange[0].substring(0, contentRange[0].indexOf('-')));
+                chunkOffsets.add(offset);
+                if (offset == dropUploadAt) {
+                    dropUploadAt = -1;
+                    dropConnection();
+                }
+                if (offset == uploaded.size()) {
+                    uploaded.write(chunk);
+                }
+            }
+
+            if (uploaded.size() == total) {
+                exchange.sendResponseHeaders(201, -1);
+            } else {
+                if (uploaded.size() > 0) {
+                    exchange.getResponseHeaders().add("Range", "bytes=0-" + (uploaded.size() - 1));
+                }
+                exchange.sendResponseHeaders(308, -1);
+            }
+            exchange.close();
+        }
+
+        // the server closes the connection of a handler that throws, part way through its response
+        private void dropConnection() throws IOException {
+            throw new IOException("Dropped connection");
+        }
+    }
+}
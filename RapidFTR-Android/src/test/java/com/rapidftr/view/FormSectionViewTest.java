@@ -2,6 +2,7 @@ package com.rapidftr.view;
 
 import android.app.Activity;
 import com.rapidftr.CustomTestRunner;
+import com.rapidftr.R;
 import com.rapidftr.activity.RegisterChildActivity;
 import com.rapidftr.forms.FormField;
 import com.rapidftr.forms.FormSection;
@@ -145,4 +146,30 @@ public class FormSectionViewTest {
         verify(view).createFormField(field3);
     }
 
+    @Test
+    public void shouldInflateFieldsOfLongSectionsInBatches() {
+        FormSection longSection = new FormSection();
+        for (int i = 0; i < DefaultFormSectionView.FIELDS_PER_BATCH * 2 + 1; i++) {
+            FormField textField = new FormField();
+            textField.setId("field_" + i);
+            textField.setType("text_field");
+            longSection.getFields().add(textField);
+        }
+        DefaultFormSectionView longView = new DefaultFormSectionView(view.getContext());
+
+        Robolectric.pauseMainLooper();
+        longView.initialize(longSection, child);
+        assertThat(longView.getContainer().getChildCount(), equalTo(DefaultFormSectionView.FIELDS_PER_BATCH));
+
+        Robolectric.unPauseMainLooper();
+        assertThat(longView.getContainer().getChildCount(), equalTo(longSection.getFields().size()));
+    }
+
+    @Test
+    public void shouldLookUpLayoutOfEachFieldType() {
+        assertThat(FieldLayouts.getLayoutId(view.getContext(), "text_field"), equalTo(R.layout.form_text_field));
+        assertThat(FieldLayouts.getLayoutId(view.getContext(), "abcd"), equalTo(0));
+        assertThat(FieldLayouts.getLayoutId(view.getContext(), null), equalTo(0));
+    }
+
 }